@@ -0,0 +1,65 @@
+-- Test data for the example schema at scale: 100,000 drugs, each with 2 brands and 10 advisories.
+-- Load into its own schema after create-schema-objects.sql, e.g. for psql:
+--   create schema drugs_bench authorization drugs;
+--   set search_path to drugs_bench;
+--   \i example/db/init/create-schema-objects.sql
+--   \i example/db/benchmarks/create-benchmark-data-pg.sql
+
+insert into analyst values(1, 'jdoe');
+insert into analyst values(2, 'sch');
+
+insert into authority(id, name, url, description, weight)
+  values(1, 'FDA', 'http://www.fda.gov', 'Food and Drug Administration', 100);
+insert into authority(id, name, url, description, weight)
+  values(2, 'Anonymous', null, 'Various People with Opinions', 0);
+insert into advisory_type(id, name, authority_id)
+ values(1, 'Boxed Warning', 1);
+insert into advisory_type(id, name, authority_id)
+ values(2, 'Caution', 1);
+insert into advisory_type(id, name, authority_id)
+ values(3, 'Rumor', 2);
+insert into manufacturer(id, name)
+  values(1, 'Acme Drug Co');
+insert into manufacturer(id, name)
+  values(2, 'PharmaCorp');
+insert into manufacturer(id, name)
+  values(3, 'SellsAll Drug Co.');
+
+insert into compound(id, display_name, nctr_isis_id, cas, entered_by, entered, approved_by)
+  select n,
+    'Test Compound ' || n ,
+    'ISIS-' || n ,
+    '5'||n||'-'||n,
+    mod(n,2)+1,
+    current_timestamp,
+    mod(n+1,2) + 1
+  from generate_series(1,100000) n
+;
+
+insert into drug(id, name, compound_id, category_code, descr, therapeutic_indications, mesh_id, cid, registered_by, registered, market_entry_date)
+  select
+    n,
+    'Test Drug ' || n,
+    n,
+    case when mod(n, 2) = 0 then 'A' else 'B' end category_code,
+    'This is drug number ' || n || '.',
+    'Indication ' || n,
+    'M' || n,
+    n * 99,
+    mod(n+1,2) + 1,
+    current_timestamp,
+    current_date - mod(n, 10000)
+  from generate_series(1,100000) n
+;
+
+insert into brand(drug_id, brand_name, language_code, manufacturer_id)
+ select n, 'Brand' || b || '-' || n || '(TM)', 'EN', mod(n+b,3)+1
+ from generate_series(1,100000) n, generate_series(1,2) b
+;
+
+insert into advisory(id, drug_id, advisory_type_id, text)
+ select 10*n+a, n, mod(a,3)+1, 'Advisory ' || a || ' concerning drug ' || n
+ from generate_series(1,100000) n, generate_series(0,9) a
+;
+
+analyze;
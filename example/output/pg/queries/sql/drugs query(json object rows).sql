@@ -1,5 +1,24 @@
 -- [ THIS QUERY WAS AUTO-GENERATED, ANY CHANGES MADE HERE MAY BE LOST. ]
 -- JSON_OBJECT_ROWS results representation for drugs query
+with
+shared_analyst as materialized (
+  select
+    q."_id",
+    -- row object builder for table 'analyst'
+    jsonb_build_object(
+      'id', q.id,
+      'shortName', q."shortName"
+    ) json
+  from (
+    -- base query for table 'analyst'
+    select
+      a.id "_id",
+      a.id as id,
+      a.short_name "shortName"
+    from
+      analyst a
+  ) q
+)
 select
   -- row object builder for table 'drug'
   jsonb_build_object(
@@ -28,70 +47,17 @@ from (
     d.therapeutic_indications "therapeuticIndications",
     d.cid + 1000 "cidPlus1000",
     -- parent table 'analyst' referenced as 'registeredByAnalyst'
-    (
-      select
-        -- row object builder for table 'analyst'
-        jsonb_build_object(
-          'id', q.id,
-          'shortName', q."shortName"
-        ) json
-      from (
-        -- base query for table 'analyst'
-        select
-          a.id as id,
-          a.short_name "shortName"
-        from
-          analyst a
-        where (
-          d.registered_by = a.id
-        )
-      ) q
-    ) "registeredByAnalyst",
+    a.json "registeredByAnalyst",
     -- parent table 'compound' referenced as 'compound'
-    (
-      select
-        -- row object builder for table 'compound'
-        jsonb_build_object(
-          'displayName', q."displayName",
-          'nctrIsisId', q."nctrIsisId",
-          'cas', q.cas,
-          'entered', q.entered,
-          'enteredByAnalyst', q."enteredByAnalyst"
-        ) json
-      from (
-        -- base query for table 'compound'
-        select
-          c.display_name "displayName",
-          c.nctr_isis_id "nctrIsisId",
-          c.cas as cas,
-          c.entered as entered,
-          -- parent table 'analyst' referenced as 'enteredByAnalyst'
-          (
-            select
-              -- row object builder for table 'analyst'
-              jsonb_build_object(
-                'id', q.id,
-                'shortName', q."shortName"
-              ) json
-            from (
-              -- base query for table 'analyst'
-              select
-                a.id as id,
-                a.short_name "shortName"
-              from
-                analyst a
-              where (
-                c.entered_by = a.id
-              )
-            ) q
-          ) "enteredByAnalyst"
-        from
-          compound c
-        where (
-          d.compound_id = c.id
-        )
-      ) q
-    ) as compound,
+    case when c."_id" is not null then
+      jsonb_build_object(
+        'displayName', c."displayName",
+        'nctrIsisId', c."nctrIsisId",
+        'cas', c.cas,
+        'entered', c.entered,
+        'enteredByAnalyst', c."enteredByAnalyst"
+      )
+    end as compound,
     -- records from child table 'drug_reference' as collection 'references'
     (
       select
@@ -103,17 +69,11 @@ from (
         -- base query for table 'drug_reference'
         select
           -- field(s) inlined from parent table 'reference'
-          q.publication as publication
+          r.publication as publication
         from
           drug_reference dr
           -- parent table 'reference', joined for inlined fields
-          left join (
-            select
-              r.id "_id",
-              r.publication as publication
-            from
-              reference r
-          ) q on dr.reference_id = q."_id"
+          left join reference r on dr.reference_id = r.id
         where (
           dr.drug_id = d.id
         )
@@ -126,23 +86,17 @@ from (
         coalesce(jsonb_agg(jsonb_build_object(
           'brandName', q."brandName",
           'manufacturer', q.manufacturer
-        )),'[]'::jsonb) json
+        ) order by q."brandName" desc),'[]'::jsonb) json
       from (
         -- base query for table 'brand'
         select
           b.brand_name "brandName",
           -- field(s) inlined from parent table 'manufacturer'
-          q.manufacturer as manufacturer
+          m.name as manufacturer
         from
           brand b
           -- parent table 'manufacturer', joined for inlined fields
-          left join (
-            select
-              m.id "_id",
-              m.name as manufacturer
-            from
-              manufacturer m
-          ) q on b.manufacturer_id = q."_id"
+          left join manufacturer m on b.manufacturer_id = m.id
         where (
           b.drug_id = d.id
         )
@@ -159,42 +113,24 @@ from (
           'authorityName', q."authorityName",
           'authorityUrl', q."authorityUrl",
           'authorityDescription', q."authorityDescription"
-        )),'[]'::jsonb) json
+        ) order by q."advisoryType"),'[]'::jsonb) json
       from (
         -- base query for table 'advisory'
         select
           a.text "advisoryText",
           -- field(s) inlined from parent table 'advisory_type'
-          q."advisoryType" "advisoryType",
-          q."exprYieldingTwo" "exprYieldingTwo",
-          q."authorityName" "authorityName",
-          q."authorityUrl" "authorityUrl",
-          q."authorityDescription" "authorityDescription"
+          at.name "advisoryType",
+          (1 + 1) "exprYieldingTwo",
+          -- field(s) inlined from parent table 'authority'
+          a1.name "authorityName",
+          a1.url "authorityUrl",
+          a1.description "authorityDescription"
         from
           advisory a
           -- parent table 'advisory_type', joined for inlined fields
-          left join (
-            select
-              at.id "_id",
-              at.name "advisoryType",
-              (1 + 1) "exprYieldingTwo",
-              -- field(s) inlined from parent table 'authority'
-              q."authorityName" "authorityName",
-              q."authorityUrl" "authorityUrl",
-              q."authorityDescription" "authorityDescription"
-            from
-              advisory_type at
-              -- parent table 'authority', joined for inlined fields
-              left join (
-                select
-                  a.id "_id",
-                  a.name "authorityName",
-                  a.url "authorityUrl",
-                  a.description "authorityDescription"
-                from
-                  authority a
-              ) q on at.authority_id = q."_id"
-          ) q on a.advisory_type_id = q."_id"
+          left join advisory_type at on a.advisory_type_id = at.id
+          -- parent table 'authority', joined for inlined fields
+          left join authority a1 on at.authority_id = a1.id
         where (
           a.drug_id = d.id
         )
@@ -215,33 +151,18 @@ from (
         -- base query for table 'drug_functional_category'
         select
           -- field(s) inlined from parent table 'functional_category'
-          q."categoryName" "categoryName",
-          q.description as description,
+          fc.name "categoryName",
+          fc.description as description,
           -- field(s) inlined from parent table 'authority'
-          q1."authorityName" "authorityName",
-          q1."authorityUrl" "authorityUrl",
-          q1."authorityDescription" "authorityDescription"
+          a.name "authorityName",
+          a.url "authorityUrl",
+          a.description "authorityDescription"
         from
           drug_functional_category dfc
           -- parent table 'functional_category', joined for inlined fields
-          left join (
-            select
-              fc.id "_id",
-              fc.name "categoryName",
-              fc.description as description
-            from
-              functional_category fc
-          ) q on dfc.functional_category_id = q."_id"
+          left join functional_category fc on dfc.functional_category_id = fc.id
           -- parent table 'authority', joined for inlined fields
-          left join (
-            select
-              a.id "_id",
-              a.name "authorityName",
-              a.url "authorityUrl",
-              a.description "authorityDescription"
-            from
-              authority a
-          ) q1 on dfc.authority_id = q1."_id"
+          left join authority a on dfc.authority_id = a.id
         where (
           dfc.drug_id = d.id
         )
@@ -249,7 +170,25 @@ from (
     ) "functionalCategories"
   from
     drug d
+    -- parent table 'analyst', joined for reference 'registeredByAnalyst'
+    left join shared_analyst a on d.registered_by = a."_id"
+    -- parent table 'compound', joined for reference 'compound'
+    left join (
+      select
+        c.id "_id",
+        c.display_name "displayName",
+        c.nctr_isis_id "nctrIsisId",
+        c.cas as cas,
+        c.entered as entered,
+        -- parent table 'analyst' referenced as 'enteredByAnalyst'
+        a.json "enteredByAnalyst"
+      from
+        compound c
+        -- parent table 'analyst', joined for reference 'enteredByAnalyst'
+        left join shared_analyst a on c.entered_by = a."_id"
+    ) c on d.compound_id = c."_id"
   where (
     (not d.id = 2)
   )
 ) q
+order by q.name desc
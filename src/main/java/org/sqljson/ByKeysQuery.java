@@ -0,0 +1,14 @@
+package org.sqljson;
+
+
+/// Names used by the JSON_OBJECT_ROWS_BY_KEYS query of a query specification, which yields the json object rows of the
+/// query's top table for the primary key values bound to its keys param, as an array on Postgres or a json array
+/// text on Oracle. Each result row has its primary key value in the key column after its json value, so that the
+/// results can be matched to the requested keys.
+public final class ByKeysQuery
+{
+   public static final String KEYS_PARAM = "keys";
+   public static final String KEY_COLUMN = "key";
+
+   private ByKeysQuery() {}
+}
@@ -0,0 +1,85 @@
+package org.sqljson;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import org.sqljson.dbmd.DatabaseMetadata;
+import org.sqljson.dbmd.DatabaseMetadataWriter;
+import org.sqljson.util.IO;
+import static org.sqljson.util.Serialization.getObjectMapper;
+
+
+/// Converts a database metadata file between the supported formats (json, yaml or the binary smile format), as
+/// determined by the input and output file extensions, optionally with an additional ".gz" extension for gzip
+/// compression.
+public class DatabaseMetadataConverterMain
+{
+   public static void printUsage(PrintStream ps)
+   {
+      ps.println("Expected arguments: input-dbmd-file output-dbmd-file|-");
+      ps.println(
+         "File formats are determined by file extension, one of .json, .yaml, .yml or .smile, " +
+         "optionally followed by .gz for gzip compression. Output to stdout is written as json."
+      );
+   }
+
+   public static void main(String[] args)
+   {
+      try
+      {
+         execCommandLine(args);
+      }
+      catch(Exception e)
+      {
+         System.err.println(e.getMessage());
+         System.exit(1);
+      }
+   }
+
+   public static void execCommandLine(String[] args) throws IOException
+   {
+      if ( args.length == 1 && (args[0].equals("-h") || args[0].equals("--help")) )
+      {
+         printUsage(System.out);
+         return;
+      }
+      else if ( args.length != 2 )
+      {
+         throw new RuntimeException("Expected 2 arguments");
+      }
+
+      Path inputPath = Paths.get(args[0]);
+      String outputFilePath = args[1];
+
+      long startMillis = System.currentTimeMillis();
+
+      DatabaseMetadata dbmd;
+      try ( var dbmdIS = IO.inputStream(inputPath) )
+      {
+         dbmd = getObjectMapper(inputPath).readValue(dbmdIS, DatabaseMetadata.class);
+      }
+
+      long readMillis = System.currentTimeMillis() - startMillis;
+
+      ObjectMapper outputMapper =
+         outputFilePath.equals("-") ? getObjectMapper("json") : getObjectMapper(Paths.get(outputFilePath));
+      if ( outputMapper instanceof JsonMapper )
+         outputMapper.enable(SerializationFeature.INDENT_OUTPUT);
+
+      try ( var writer = new DatabaseMetadataWriter(outputMapper, IO.outputStream(outputFilePath)) )
+      {
+         writer.writeMetadata(dbmd);
+      }
+
+      System.err.println(
+         "Converted metadata for " + dbmd.getRelationMetadatas().size() + " relations and " +
+         dbmd.getForeignKeys().size() + " foreign keys (read in " + readMillis + " ms)."
+      );
+   }
+}
@@ -1,10 +1,21 @@
 package org.sqljson;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.regex.Pattern;
+import static java.util.stream.Collectors.toList;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -16,9 +27,12 @@ import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import org.sqljson.util.IO;
 import org.sqljson.dbmd.DatabaseMetadata;
 import org.sqljson.dbmd.DatabaseMetadataFetcher;
+import org.sqljson.dbmd.DatabaseMetadataWriter;
+import org.sqljson.sql_dialects.SqlDialect;
 import static org.sqljson.util.Nullables.*;
 import static org.sqljson.util.Props.getProperty;
 import static org.sqljson.util.Props.requireProperty;
+import static org.sqljson.util.Serialization.getObjectMapper;
 
 
 public class DatabaseMetadataGeneratorMain
@@ -39,7 +53,19 @@ public class DatabaseMetadataGeneratorMain
          "dbmd properties file properties:\n  " +
             "  date-mapping (DATES_AS_DRIVER_REPORTED | DATES_AS_TIMESTAMPS | DATES_AS_DATES)\n" +
             "  schema (schema name | *any-owners*)\n" +
-            "  exclude-relations-fqname-regex\n"
+            "  schemas (comma separated schema names, fetched in parallel, instead of schema)\n" +
+            "  parallel-connections (maximum connections to use when fetching multiple schemas, default 4)\n" +
+            "  exclude-relations-fqname-regex\n" +
+            "  include-indexes (true | false, default false: record the indexes of tables, as needed for index coverage\n" +
+            "    reports and for page keys unique by a unique index)\n" +
+            "  include-statistics (true | false, default false: record table row count and size estimates from the\n" +
+            "    database's statistics where supported)\n" +
+            "  previous-metadata-file (enables incremental refresh: reuse unchanged relations from this file, which may\n" +
+            "    be the output file, recording change markers in the output)\n" +
+            "  catalog-queries (native | jdbc: query the database's catalog tables directly where supported, default\n" +
+            "    native for PostgreSQL and jdbc otherwise; native queries for Oracle are experimental)\n" +
+            "  output-format (json | yaml | smile, default json; smile is a compact binary format, which should be\n" +
+            "    written to a file with extension .smile; output is gzip compressed if the output file name ends in .gz)\n"
       );
    }
 
@@ -76,8 +102,7 @@ public class DatabaseMetadataGeneratorMain
 
       Properties props = new Properties();
 
-      try ( var os = IO.outputStream(outputFilePath);
-            var propsIS = new FileInputStream(jdbcPropsFilePath) )
+      try ( var propsIS = new FileInputStream(jdbcPropsFilePath) )
       {
          props.load(propsIS);
 
@@ -104,48 +129,201 @@ public class DatabaseMetadataGeneratorMain
                dateMappingStr != null ? DatabaseMetadataFetcher.DateMapping.valueOf(dateMappingStr)
                   : DatabaseMetadataFetcher.DateMapping.DATES_AS_DRIVER_REPORTED;
 
-            @Nullable String relsOwner = getProperty(props, "schema", "relations-owner");
-            if ( Objects.equals(relsOwner, "*any-owners*") )
-               relsOwner = null;
+            @Nullable String relsOwnerProp = getProperty(props, "schema", "relations-owner");
+            @Nullable String relsOwner = Objects.equals(relsOwnerProp, "*any-owners*") ? null : relsOwnerProp;
 
             @Nullable Pattern excludeRelsPat =
                 applyIfPresent(getProperty(props, "exclude-relations-fqname-regex"), Pattern::compile);
 
-            DatabaseMetadata dbmd =
-               new DatabaseMetadataFetcher(dateMapping)
-               .fetchMetadata(
-                  conn.getMetaData(),
-                  relsOwner,
-                  true,
-                  true,
-                  true,
-                  excludeRelsPat
-               );
+            String catalogQueries =
+               valueOr(getProperty(props, "catalog-queries"), defaultCatalogQueries(conn.getMetaData()));
+
+            boolean includeIndexes = Boolean.parseBoolean(valueOr(getProperty(props, "include-indexes"), "false"));
+            boolean includeStats = Boolean.parseBoolean(valueOr(getProperty(props, "include-statistics"), "false"));
 
-            String outputFormat = valueOr(props.getProperty("output-format"), "json");
+            @Nullable String prevDbmdPath = getProperty(props, "previous-metadata-file");
+            boolean refresh = prevDbmdPath != null;
+            @Nullable DatabaseMetadata prevDbmd = prevDbmdPath != null ? readMetadataIfExists(Paths.get(prevDbmdPath)) : null;
 
-            switch ( outputFormat )
+            long fetchStartMillis = System.currentTimeMillis();
+
+            DatabaseMetadataFetcher fetcher;
+            switch ( catalogQueries )
             {
-               case "json":
-               {
-                  var mapper = new ObjectMapper();
-                  mapper.registerModule(new Jdk8Module());
-                  mapper.enable(SerializationFeature.INDENT_OUTPUT);
-                  mapper.writeValue(os, dbmd);
-                  break;
-               }
-               case "yaml":
+               case "native": fetcher = DatabaseMetadataFetcher.forDatabase(conn.getMetaData(), dateMapping); break;
+               case "jdbc": fetcher = new DatabaseMetadataFetcher(dateMapping); break;
+               default: throw new RuntimeException("catalog-queries property must be native or jdbc");
+            }
+
+            @Nullable String schemasStr = getProperty(props, "schemas");
+
+            ObjectMapper outputMapper = getOutputMapper(valueOr(props.getProperty("output-format"), "json"));
+
+            DatabaseMetadataWriter dbmdWriter;
+            if ( schemasStr == null && !refresh )
+            {
+               // Write each relation's metadata as it's fetched.
+               dbmdWriter = writeMetadataOutput(outputMapper, outputFilePath, writer ->
+                  fetcher.fetchMetadata(
+                     conn.getMetaData(), relsOwner, true, true, true, includeIndexes, includeStats, excludeRelsPat, writer
+                  )
+               );
+            }
+            else
+            {
+               DatabaseMetadata dbmd;
+               if ( schemasStr != null )
                {
-                  var mapper = new ObjectMapper(new YAMLFactory());
-                  mapper.registerModule(new Jdk8Module());
-                  mapper.writeValue(os, dbmd);
-                  break;
+                  List<String> schemas =
+                     Arrays.stream(schemasStr.split(",")).map(String::trim).filter(s -> !s.isEmpty()).collect(toList());
+                  int maxConns = applyOr(getProperty(props, "parallel-connections"), Integer::parseInt, 4);
+                  if ( maxConns < 1 )
+                     throw new RuntimeException("parallel-connections property must be a positive integer");
+
+                  List<Connection> conns = new ArrayList<>();
+                  conns.add(conn);
+                  try
+                  {
+                     while ( conns.size() < Math.min(maxConns, schemas.size()) )
+                        conns.add(DriverManager.getConnection(connStr, user, password));
+
+                     dbmd = refresh ?
+                        fetcher.refreshMetadata(
+                           conns, prevDbmd, schemas, true, true, true, includeIndexes, includeStats, excludeRelsPat
+                        )
+                        : fetcher.fetchMetadata(
+                           conns, schemas, true, true, true, includeIndexes, includeStats, excludeRelsPat
+                        );
+                  }
+                  finally
+                  {
+                     closeConnections(conns.subList(1, conns.size()));
+                  }
                }
-               default:
-                  throw new RuntimeException("output format in property must be json or yaml");
-                }
+               else
+                  dbmd = fetcher.refreshMetadata(
+                     conn.getMetaData(), prevDbmd, relsOwner, true, true, true, includeIndexes, includeStats, excludeRelsPat
+                  );
+
+               dbmdWriter = writeMetadataOutput(outputMapper, outputFilePath, writer -> writer.writeMetadata(dbmd));
+            }
+
+            System.err.println(
+               "Fetched and wrote metadata for " + dbmdWriter.getRelationsCount() + " relations and " +
+               dbmdWriter.getForeignKeysCount() + " foreign keys in " +
+               (System.currentTimeMillis() - fetchStartMillis) + " ms."
+            );
             }
         }
     }
-}
 
+   private interface MetadataWriting
+   {
+      void write(DatabaseMetadataWriter writer) throws SQLException;
+   }
+
+   /// Write metadata to the given output file path or "-" for stdout. A file is written via a temporary file in the
+   /// same directory which replaces it only when writing completes, so a failure leaves any existing file unchanged.
+   private static DatabaseMetadataWriter writeMetadataOutput
+      (
+         ObjectMapper outputMapper,
+         String outputFilePath,
+         MetadataWriting writing
+      )
+      throws IOException, SQLException
+   {
+      if ( "-".equals(outputFilePath) )
+      {
+         try ( var writer = new DatabaseMetadataWriter(outputMapper, IO.outputStream(outputFilePath)) )
+         {
+            writing.write(writer);
+            return writer;
+         }
+      }
+
+      Path outputPath = Paths.get(outputFilePath).toAbsolutePath();
+      Path tempPath = Files.createTempFile(outputPath.getParent(), outputPath.getFileName() + ".", ".tmp");
+      try
+      {
+         DatabaseMetadataWriter dbmdWriter;
+         try ( var writer =
+                  new DatabaseMetadataWriter(outputMapper, IO.outputStream(tempPath, IO.isGzipPath(outputFilePath))) )
+         {
+            writing.write(writer);
+            dbmdWriter = writer;
+         }
+         Files.move(tempPath, outputPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+         return dbmdWriter;
+      }
+      finally
+      {
+         Files.deleteIfExists(tempPath);
+      }
+   }
+
+   /// Native catalog queries are the default only where they have been proven against a live database.
+   private static String defaultCatalogQueries(DatabaseMetaData dbmd) throws SQLException
+   {
+      return SqlDialect.getDbmsType(dbmd.getDatabaseProductName()) == SqlDialect.DbmsType.PG ? "native" : "jdbc";
+   }
+
+   private static ObjectMapper getOutputMapper(String outputFormat)
+   {
+      switch ( outputFormat )
+      {
+         case "json":
+         {
+            var mapper = new ObjectMapper();
+            mapper.registerModule(new Jdk8Module());
+            mapper.enable(SerializationFeature.INDENT_OUTPUT);
+            return mapper;
+         }
+         case "yaml":
+         {
+            var mapper = new ObjectMapper(new YAMLFactory());
+            mapper.registerModule(new Jdk8Module());
+            return mapper;
+         }
+         case "smile":
+            return getObjectMapper("smile");
+         default:
+            throw new RuntimeException("output format in property must be json, yaml or smile");
+      }
+   }
+
+   private static @Nullable DatabaseMetadata readMetadataIfExists(Path dbmdPath)
+   {
+      if ( !Files.exists(dbmdPath) )
+         return null;
+
+      try ( var dbmdIS = IO.inputStream(dbmdPath) )
+      {
+         return getObjectMapper(dbmdPath).readValue(dbmdIS, DatabaseMetadata.class);
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
+      }
+   }
+
+   private static void closeConnections(List<Connection> conns) throws SQLException
+   {
+      @Nullable SQLException firstException = null;
+
+      for ( Connection conn : conns )
+      {
+         try
+         {
+            conn.close();
+         }
+         catch (SQLException e)
+         {
+            if ( firstException == null )
+               firstException = e;
+         }
+      }
+
+      if ( firstException != null )
+         throw firstException;
+   }
+}
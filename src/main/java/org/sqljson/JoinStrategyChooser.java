@@ -0,0 +1,249 @@
+package org.sqljson;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import static java.util.Objects.requireNonNull;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import org.sqljson.dbmd.DatabaseMetadata;
+import org.sqljson.dbmd.Index;
+import org.sqljson.dbmd.RelId;
+import org.sqljson.dbmd.RelMetadata;
+import org.sqljson.dbmd.RelStatistics;
+import org.sqljson.query_specs.*;
+import static org.sqljson.query_specs.ChildCollectionStrategy.*;
+import static org.sqljson.query_specs.ReferencedParentStrategy.JOIN;
+import static org.sqljson.util.Nullables.*;
+
+
+/// Chooses how to generate the joins of a query to related tables, where the query specification leaves this open,
+/// from estimates of the numbers of rows involved which are made from the table statistics in the database metadata.
+/// No choice is made for joins involving tables without statistics.
+final class JoinStrategyChooser
+{
+   // Fraction of a parent table's rows, at or above which the children of all parents are aggregated at once.
+   private static final double PREAGGREGATION_MIN_PARENTS_FRACTION = 0.2;
+
+   // Estimated parent rows at or above which the planner is given a lateral join rather than a subquery per row.
+   private static final double LATERAL_JOIN_MIN_PARENT_ROWS = 1000;
+
+   // Estimated child rows, and fraction of the referenced parent table's rows, at or above either of which a
+   // referenced parent is joined once rather than found by a subquery per child row.
+   private static final double PARENT_JOIN_MIN_CHILD_ROWS = 1000;
+   private static final double PARENT_JOIN_MIN_PARENT_ROWS_FRACTION = 0.2;
+
+   // Selectivities assumed for conditions that are not an equality on a unique field, following Postgres' defaults.
+   private static final double EQUALITY_SELECTIVITY = 0.005;
+   private static final double DEFAULT_SELECTIVITY = 1.0 / 3;
+
+   private static final String DEFAULT_TABLE_ALIAS_VAR = "$$";
+
+   private final DatabaseMetadata dbmd;
+   private final @Nullable String defaultSchema;
+
+   // Estimated result rows by table specification, for the tables of the query having statistics.
+   private final Map<TableJsonSpec,Double> estimatedRows;
+
+   JoinStrategyChooser
+      (
+         QuerySpec querySpec,
+         DatabaseMetadata dbmd,
+         @Nullable String defaultSchema
+      )
+   {
+      this.dbmd = dbmd;
+      this.defaultSchema = defaultSchema;
+      this.estimatedRows = new IdentityHashMap<>();
+      estimateRows(querySpec.getTableJson(), null);
+   }
+
+   /// A join strategy chosen from statistics, with a description of the estimates it was based on.
+   static final class Choice<S>
+   {
+      final S strategy;
+      final String basis;
+
+      Choice(S strategy, String basis)
+      {
+         this.strategy = strategy;
+         this.basis = basis;
+      }
+   }
+
+   /// Choose the strategy for a child collection of the given parent table specification, or return null if either
+   /// table lacks statistics.
+   /// @param childJoinFieldsIndexed Whether the child table's join fields lead some index, or null if unknown.
+   @Nullable Choice<ChildCollectionStrategy> chooseChildCollectionStrategy
+      (
+         TableJsonSpec parentSpec,
+         RelId parentRelId,
+         RelId childRelId,
+         @Nullable Boolean childJoinFieldsIndexed
+      )
+   {
+      @Nullable Double parentRows = estimatedRows.get(parentSpec);
+      @Nullable RelStatistics parentStats = statistics(parentRelId);
+      @Nullable RelStatistics childStats = statistics(childRelId);
+      if ( parentRows == null || parentStats == null || childStats == null )
+         return null;
+
+      double parentsFraction = parentRows / Math.max(parentStats.getRowCount(), 1);
+      double fanOut = (double)childStats.getRowCount() / Math.max(parentStats.getRowCount(), 1);
+
+      String basis =
+         "~" + Math.round(parentRows) + " of " + parentStats.getRowCount() + " parent rows, ~" +
+         String.format("%.1f", fanOut) + " child rows per parent";
+
+      // Without an index, each parent's child rows would be found by scanning the child table.
+      if ( Boolean.FALSE.equals(childJoinFieldsIndexed) && parentRows > 1 )
+         return new Choice<>(PREAGGREGATED_JOIN, basis + ", child join fields unindexed");
+      else if ( parentsFraction >= PREAGGREGATION_MIN_PARENTS_FRACTION )
+         return new Choice<>(PREAGGREGATED_JOIN, basis);
+      else if ( parentRows >= LATERAL_JOIN_MIN_PARENT_ROWS )
+         return new Choice<>(LATERAL_JOIN, basis);
+      else
+         return new Choice<>(CORRELATED_SUBQUERY, basis);
+   }
+
+   /// Choose the strategy for a parent referenced from the given child table specification, or return null if either
+   /// table lacks statistics.
+   /// @param parentJoinFieldsIndexed Whether the parent table's join fields lead some index, or null if unknown.
+   @Nullable Choice<ReferencedParentStrategy> chooseReferencedParentStrategy
+      (
+         TableJsonSpec childSpec,
+         RelId childRelId,
+         RelId parentRelId,
+         @Nullable Boolean parentJoinFieldsIndexed
+      )
+   {
+      @Nullable Double childRows = estimatedRows.get(childSpec);
+      @Nullable RelStatistics childStats = statistics(childRelId);
+      @Nullable RelStatistics parentStats = statistics(parentRelId);
+      if ( childRows == null || childStats == null || parentStats == null )
+         return null;
+
+      String basis = "~" + Math.round(childRows) + " child rows, " + parentStats.getRowCount() + " parent rows";
+
+      // Without an index, each child's parent row would be found by scanning the parent table.
+      if ( Boolean.FALSE.equals(parentJoinFieldsIndexed) && childRows > 1 )
+         return new Choice<>(JOIN, basis + ", parent join fields unindexed");
+      else if ( childRows >= PARENT_JOIN_MIN_CHILD_ROWS ||
+                childRows >= PARENT_JOIN_MIN_PARENT_ROWS_FRACTION * parentStats.getRowCount() )
+         return new Choice<>(JOIN, basis);
+      else
+         return new Choice<>(ReferencedParentStrategy.CORRELATED_SUBQUERY, basis);
+   }
+
+   /// Record the estimated rows for the given table specification and the related table specifications within it.
+   /// The estimate for a child table is bounded by the child rows of its estimated parent rows at the table's average
+   /// fan-out or the collection's limit per parent, and the estimate for a parent table by the estimated rows of its
+   /// child table.
+   private void estimateRows
+      (
+         TableJsonSpec tableSpec,
+         @Nullable Double rowsBound
+      )
+   {
+      RelId relId = dbmd.toRelId(tableSpec.getTable(), defaultSchema);
+      @Nullable RelStatistics stats = statistics(relId);
+
+      @Nullable Double rows = null;
+      if ( stats != null )
+      {
+         double tableRows = stats.getRowCount();
+         double boundedRows = rowsBound != null ? Math.min(tableRows, rowsBound) : tableRows;
+         rows = boundedRows * applyOr(tableSpec.getRecordCondition(), rc -> selectivity(rc, relId, stats), 1.0);
+         estimatedRows.put(tableSpec, rows);
+      }
+
+      for ( ChildCollectionSpec childSpec : tableSpec.getChildTableCollectionsList() )
+      {
+         TableJsonSpec childTableSpec = childSpec.getTableJson();
+         RelId childRelId = dbmd.toRelId(childTableSpec.getTable(), defaultSchema);
+         @Nullable RelStatistics childStats = statistics(childRelId);
+         @Nullable Double childRowsBound = null;
+         if ( rows != null && stats != null && childStats != null )
+         {
+            double fanOut = (double)childStats.getRowCount() / Math.max(stats.getRowCount(), 1);
+            double filterSelectivity = filterSelectivity(childSpec.getFilter(), childRelId, childStats);
+            double rowsPerParent = fanOut * filterSelectivity;
+            @Nullable Integer limit = childSpec.getLimit();
+            childRowsBound = rows * (limit != null ? Math.min(rowsPerParent, limit) : rowsPerParent);
+         }
+         estimateRows(childTableSpec, childRowsBound);
+      }
+
+      for ( ParentSpec parentSpec : tableSpec.getParentTablesList() )
+         estimateRows(parentSpec.getTableJson(), rows);
+   }
+
+   /// Estimate the fraction of a child table's rows satisfying a child collection's filter, which is a condition on
+   /// the child table.
+   private double filterSelectivity
+      (
+         @Nullable String filter,
+         RelId childRelId,
+         @Nullable RelStatistics childStats
+      )
+   {
+      if ( filter == null )
+         return 1.0;
+      else if ( childStats == null )
+         return DEFAULT_SELECTIVITY;
+      else
+         return conditionSelectivity(filter, DEFAULT_TABLE_ALIAS_VAR, childRelId, childStats);
+   }
+
+   private double selectivity
+      (
+         RecordCondition recordCondition,
+         RelId relId,
+         RelStatistics stats
+      )
+   {
+      String aliasVar = valueOr(recordCondition.getWithTableAliasAs(), DEFAULT_TABLE_ALIAS_VAR);
+      return conditionSelectivity(recordCondition.getSql(), aliasVar, relId, stats);
+   }
+
+   /// Estimate the fraction of a table's rows satisfying a condition. Only a single equality on a field is
+   /// recognized, which selects at most one row if the field is unique in the table.
+   private double conditionSelectivity
+      (
+         String condition,
+         String tableAliasVar,
+         RelId relId,
+         RelStatistics stats
+      )
+   {
+      Matcher m =
+         Pattern.compile("^\\s*" + Pattern.quote(tableAliasVar) + "\\.(\\w+|\"[^\"]+\")\\s*=\\s*[^\\s=<>]+\\s*$")
+         .matcher(condition);
+      if ( !m.matches() )
+         return DEFAULT_SELECTIVITY;
+
+      String field = dbmd.normalizeName(requireNonNull(m.group(1)));
+      return isUniqueField(relId, field) ? 1.0 / Math.max(stats.getRowCount(), 1) : EQUALITY_SELECTIVITY;
+   }
+
+   private boolean isUniqueField(RelId relId, String fieldName)
+   {
+      if ( dbmd.getPrimaryKeyFieldNames(relId).equals(List.of(fieldName)) )
+         return true;
+
+      @Nullable RelMetadata relMd = dbmd.getRelationMetadata(relId);
+      @Nullable List<Index> indexes = relMd != null ? relMd.getIndexes() : null;
+      return indexes != null && indexes.stream().anyMatch(idx ->
+         idx.isUnique() && idx.getFilterCondition() == null && idx.getFieldNames().equals(List.of(fieldName))
+      );
+   }
+
+   private @Nullable RelStatistics statistics(RelId relId)
+   {
+      @Nullable RelMetadata relMd = dbmd.getRelationMetadata(relId);
+      return relMd != null ? relMd.getStatistics() : null;
+   }
+}
@@ -0,0 +1,32 @@
+package org.sqljson;
+
+import java.util.List;
+import static java.util.stream.Collectors.toList;
+
+import org.sqljson.util.StringFuns;
+
+
+/// The page key of a query's JSON_OBJECT_ROWS_PAGE result representation, which pages through the query's top table
+/// in order of key fields which are unique in the table. The first page is fetched by the query of the accompanying
+/// JSON_OBJECT_ROWS_FIRST_PAGE representation, and each following page with the key values of the last row of the
+/// previous page bound to the after-key params. The page query results include each row's key values, in columns
+/// named as the corresponding after-key params.
+public class KeysetPaging
+{
+   public static final String PAGE_SIZE_PARAM = "pageSize";
+
+   private final List<String> keyFieldNames;
+   private final List<String> afterKeyParamNames;
+
+   public KeysetPaging(List<String> keyFieldNames)
+   {
+      this.keyFieldNames = List.copyOf(keyFieldNames);
+      this.afterKeyParamNames =
+         keyFieldNames.stream().map(f -> "after" + StringFuns.upperCamelCase(f)).collect(toList());
+   }
+
+   public List<String> getKeyFieldNames() { return keyFieldNames; }
+
+   /// The after-key param names in key field order, which are also the names of the page key result columns.
+   public List<String> getAfterKeyParamNames() { return afterKeyParamNames; }
+}
@@ -7,6 +7,7 @@ import java.nio.file.Paths;
 import java.util.*;
 import java.util.function.Function;
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -19,6 +20,7 @@ import org.sqljson.source_code_writers.TypeScriptWriter;
 import org.sqljson.query_specs.*;
 import org.sqljson.query_specs.SpecError;
 import org.sqljson.util.AppUtils.SplitArgs;
+import org.sqljson.util.IO;
 import org.sqljson.dbmd.DatabaseMetadata;
 import static org.sqljson.util.AppUtils.splitOptionsAndRequiredArgs;
 import static org.sqljson.util.AppUtils.throwError;
@@ -39,6 +41,7 @@ public class QueryGeneratorMain
    private static final String includeSourceGenerationTimestamp = "--include-source-gen-timestamp";
    private static final String javaGenerateGetters = "--java-generate-getters";
    private static final String javaGenerateSetters = "--java-generate-setters";
+   private static final String indexCoverageReportOptPrefix = "--index-coverage-report:";
 
    private static void printUsage()
    {
@@ -60,6 +63,9 @@ public class QueryGeneratorMain
          "top of each generated type's source file (e.g. additional imports for overridden field types).");
       ps.println("   " + includeSourceGenerationTimestamp + "  Whether to include a generation timestamp " +
          "in generated source code.");
+      ps.println("   " + indexCoverageReportOptPrefix + "<file>  Write a report of parent/child join conditions " +
+         "whose fields are not the leading fields of an index, with suggested CREATE INDEX statements " +
+         "(requires database metadata generated with include-indexes).");
       ps.println("    --print-spec-json-schema: Print a json schema for the query group spec, to " +
          "facilitate editing.");
    }
@@ -95,16 +101,27 @@ public class QueryGeneratorMain
 
       boolean includeSrcGenTimestamp = args.optional.contains(includeSourceGenerationTimestamp);
 
-      SourceCodeWriter srcWriter = getSourceCodeWriter(args.optional, srcOutputBaseDirPath);
+      @Nullable Path indexCoverageReportPath =
+         args.optional.stream()
+         .filter(opt -> opt.startsWith(indexCoverageReportOptPrefix))
+         .map(opt -> Paths.get(opt.substring(indexCoverageReportOptPrefix.length())))
+         .findFirst().orElse(null);
 
-      try ( var dbmdIS = Files.newInputStream(dbmdPath);
+      List<String> srcWriterOpts =
+         args.optional.stream().filter(opt -> !opt.startsWith(indexCoverageReportOptPrefix)).collect(toList());
+
+      SourceCodeWriter srcWriter = getSourceCodeWriter(srcWriterOpts, srcOutputBaseDirPath);
+
+      try ( var dbmdIS = IO.inputStream(dbmdPath);
             var queriesSpecIS = Files.newInputStream(queriesSpecFilePath) )
       {
-         DatabaseMetadata dbmd = getObjectMapper(fileExtension(dbmdPath)).readValue(dbmdIS, DatabaseMetadata.class);
+         DatabaseMetadata dbmd = getObjectMapper(dbmdPath).readValue(dbmdIS, DatabaseMetadata.class);
 
          QueryGroupSpec queryGroupSpec = getObjectMapper(fileExtension(queriesSpecFilePath)).readValue(queriesSpecIS, QueryGroupSpec.class);
 
-         generateQueries(queryGroupSpec, queriesOutputDirPath, dbmd, srcWriter, includeSrcGenTimestamp);
+         generateQueries(
+            queryGroupSpec, queriesOutputDirPath, dbmd, srcWriter, includeSrcGenTimestamp, indexCoverageReportPath
+         );
       }
       catch( SpecError sse )
       {
@@ -132,7 +149,8 @@ public class QueryGeneratorMain
          Path queriesOutputDirPath,
          DatabaseMetadata dbmd,
          SourceCodeWriter srcWriter,
-         boolean includeSrcGenTimestamp
+         boolean includeSrcGenTimestamp,
+         @Nullable Path indexCoverageReportPath
       )
       throws IOException
    {
@@ -141,7 +159,9 @@ public class QueryGeneratorMain
             dbmd,
             queryGroupSpec.getDefaultSchema(),
             new HashSet<>(queryGroupSpec.getGenerateUnqualifiedNamesForSchemas()),
-            getPropertyNamer(queryGroupSpec)
+            getPropertyNamer(queryGroupSpec),
+            queryGroupSpec.getJsonType(),
+            queryGroupSpec.getOracleExtendedStringSizeOrDefault()
          );
 
       var resultTypesGenerator =
@@ -161,18 +181,74 @@ public class QueryGeneratorMain
 
          if ( querySpec.getGenerateResultTypesOrDefault() )
          {
-            List<ResultType> resultTypes = resultTypesGenerator.generateResultTypes(querySpec.getTableJson());
+            List<ResultType> resultTypes =
+               resultTypesGenerator.generateResultTypes(querySpec.getTableJson(), querySpec.getChildCollectionEncoding());
 
             srcWriter.writeQuerySourceCode(
                querySpec.getQueryName(),
                resultTypes,
                getParamNames(querySpec),
+               sqlGenerator.getKeysetPaging(querySpec),
                sqlPaths,
+               querySpec.getOmitNullPropertiesOrDefault(),
+               querySpec.getCompactPropertyKeysOrDefault(),
                querySpec.getTypesFileHeader(),
                includeSrcGenTimestamp
             );
          }
       }
+
+      List<UnindexedJoinCondition> unindexedJoinConds = sqlGenerator.getUnindexedJoinConditions();
+
+      if ( indexCoverageReportPath != null )
+         writeIndexCoverageReport(unindexedJoinConds, dbmd, indexCoverageReportPath);
+      else if ( !unindexedJoinConds.isEmpty() )
+         System.err.println(
+            "Warning: " + unindexedJoinConds.size() + " parent/child join condition(s) in generated queries are not " +
+            "supported by an index, see option " + indexCoverageReportOptPrefix + "<file> for details."
+         );
+   }
+
+   private static void writeIndexCoverageReport
+      (
+         List<UnindexedJoinCondition> unindexedJoinConds,
+         DatabaseMetadata dbmd,
+         Path reportPath
+      )
+      throws IOException
+   {
+      // Group the join conditions by the index which would support them, in order of first occurrence.
+      Map<String,List<UnindexedJoinCondition>> joinCondsByCreateIndexSql = new LinkedHashMap<>();
+      for ( UnindexedJoinCondition joinCond : unindexedJoinConds )
+      {
+         String createIndexSql = joinCond.getCreateIndexSql(dbmd);
+         joinCondsByCreateIndexSql.computeIfAbsent(createIndexSql, k -> new ArrayList<>()).add(joinCond);
+      }
+
+      try ( BufferedWriter bw = newFileOrStdoutWriter(reportPath) )
+      {
+         bw.write(
+            "-- [ THIS REPORT WAS AUTO-GENERATED, ANY CHANGES MADE HERE MAY BE LOST. ]\n" +
+            "-- Parent/child join conditions in the generated queries whose fields are not the leading fields of an\n" +
+            "-- index on the filtered table, so that the table may be scanned for each row of the other table.\n" +
+            "-- Tables without index information in the database metadata are not checked.\n"
+         );
+
+         if ( joinCondsByCreateIndexSql.isEmpty() )
+            bw.write("-- All checked join conditions are supported by indexes.\n");
+
+         for ( var entry : joinCondsByCreateIndexSql.entrySet() )
+         {
+            bw.write("\n");
+            for ( UnindexedJoinCondition joinCond : entry.getValue() )
+               bw.write(
+                  "-- query '" + joinCond.getQueryName() + "'" +
+                  (joinCond.getQueryPart().isEmpty() ? "" : ", at " + joinCond.getQueryPart()) + ": " +
+                  joinCond.getRelationId().getIdString() + " (" + String.join(", ", joinCond.getFieldNames()) + ")\n"
+               );
+            bw.write(entry.getKey() + "\n");
+         }
+      }
    }
 
    private static SourceCodeWriter getSourceCodeWriter
@@ -268,7 +344,13 @@ public class QueryGeneratorMain
 
    private static List<String> getParamNames(QuerySpec querySpec)
    {
-      return getParamNames(querySpec.getTableJson());
+      List<String> paramNames = getParamNames(querySpec.getTableJson());
+
+      if ( querySpec.getGenerateByKeysVariantOrDefault() ||
+           querySpec.getResultRepresentationsList().contains(ResultRepr.JSON_OBJECT_ROWS_BY_KEYS) )
+         paramNames.add(ByKeysQuery.KEYS_PARAM);
+
+      return paramNames;
    }
 
    private static List<String> getParamNames(TableJsonSpec tableSpec)
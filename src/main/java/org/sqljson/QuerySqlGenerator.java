@@ -11,12 +11,23 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 import org.sqljson.util.StringFuns;
 import org.sqljson.dbmd.DatabaseMetadata;
+import org.sqljson.dbmd.Field;
 import org.sqljson.dbmd.ForeignKey;
+import org.sqljson.dbmd.Index;
 import org.sqljson.dbmd.RelId;
+import org.sqljson.dbmd.RelMetadata;
 import org.sqljson.query_specs.*;
+import org.sqljson.result_types.ResultType;
+import org.sqljson.sql_dialects.JsonSizeEstimates;
+import org.sqljson.sql_dialects.SourceColumn;
 import org.sqljson.sql_dialects.SqlDialect;
 import static org.sqljson.QuerySqlGenerator.SelectEntry.Source.HIDDEN_PK;
 import static org.sqljson.QuerySqlGenerator.SelectEntry.Source.NATIVE_FIELD;
+import static org.sqljson.QuerySqlGenerator.ArrayElements.*;
+import static org.sqljson.query_specs.ChildCollectionStrategy.CORRELATED_SUBQUERY;
+import static org.sqljson.query_specs.ResultRepr.JSON_OBJECT_ROWS_BY_KEYS;
+import static org.sqljson.query_specs.ResultRepr.JSON_OBJECT_ROWS_FIRST_PAGE;
+import static org.sqljson.query_specs.ResultRepr.JSON_OBJECT_ROWS_PAGE;
 import static org.sqljson.query_specs.ResultRepr.MULTI_COLUMN_ROWS;
 import static org.sqljson.query_specs.SpecError.specError;
 import static org.sqljson.util.Nullables.*;
@@ -28,11 +39,13 @@ import static org.sqljson.dbmd.ForeignKeyScope.REGISTERED_TABLES_ONLY;
 public class QuerySqlGenerator
 {
    private final DatabaseMetadata dbmd;
-   private final SqlDialect sqlDialect;
+   private final JsonType defaultJsonType; // for queries not specifying a json type
+   private final boolean oracleExtendedStringSize; // whether Oracle varchar2 values may exceed 4000 bytes
    private final @Nullable String defaultSchema;
    private final Set<String> unqualifiedNamesSchemas; // Use unqualified names for objects in these schemas.
    private final int indentSpaces;
    private final Function<String,String> defaultPropNameFn; // default output property naming function
+   private final Set<UnindexedJoinCondition> unindexedJoinConditions; // found in queries generated so far
 
    private static final String HIDDEN_PK_PREFIX = "_";
 
@@ -58,13 +71,28 @@ public class QuerySqlGenerator
          Set<String> unqualifiedNamesSchemas,
          Function<String,String> defaultPropNameFn
       )
+   {
+      this(dbmd, defaultSchema, unqualifiedNamesSchemas, defaultPropNameFn, null, false);
+   }
+
+   public QuerySqlGenerator
+      (
+         DatabaseMetadata dbmd,
+         @Nullable String defaultSchema,
+         Set<String> unqualifiedNamesSchemas,
+         Function<String,String> defaultPropNameFn,
+         @Nullable JsonType defaultJsonType,
+         boolean oracleExtendedStringSize
+      )
    {
       this.dbmd = dbmd;
+      this.defaultJsonType = valueOr(defaultJsonType, JsonType.JSONB);
+      this.oracleExtendedStringSize = oracleExtendedStringSize;
       this.indentSpaces = 2;
-      this.sqlDialect = SqlDialect.fromDatabaseMetadata(this.dbmd, this.indentSpaces);
       this.defaultSchema = defaultSchema;
       this.unqualifiedNamesSchemas = unqualifiedNamesSchemas.stream().map(dbmd::normalizeName).collect(toSet());
       this.defaultPropNameFn = defaultPropNameFn;
+      this.unindexedJoinConditions = new LinkedHashSet<>();
    }
 
    public Map<ResultRepr,String> generateSqls(QuerySpec querySpec)
@@ -74,16 +102,88 @@ public class QuerySqlGenerator
          applyOr(querySpec.getPropertyNameDefault(), PropertyNameDefault::toFunctionOfFieldName,
                  this.defaultPropNameFn);
 
+      // This query spec may override the json type of the query group.
+      SqlDialect sqlDialect =
+         SqlDialect.fromDatabaseMetadata(
+            dbmd,
+            indentSpaces,
+            valueOr(querySpec.getJsonType(), defaultJsonType),
+            oracleExtendedStringSize,
+            querySpec.getOmitNullPropertiesOrDefault()
+         );
+
+      QueryOptions queryOpts =
+         new QueryOptions(
+            propNameFn,
+            querySpec.getChildCollectionStrategy(),
+            querySpec.getChildCollectionEncoding(),
+            querySpec.getCompactPropertyKeysOrDefault(),
+            querySpec.getReferencedParentStrategy(),
+            new JoinStrategyChooser(querySpec, dbmd, defaultSchema),
+            sqlDialect,
+            new SharedSubqueries(SharedSubqueryMode.NONE, sqlDialect)
+         );
+
+      List<ResultRepr> resultReprs = new ArrayList<>(querySpec.getResultRepresentationsList());
+      // The first page of a paged representation is fetched by its own query.
+      if ( resultReprs.contains(JSON_OBJECT_ROWS_PAGE) && !resultReprs.contains(JSON_OBJECT_ROWS_FIRST_PAGE) )
+         resultReprs.add(JSON_OBJECT_ROWS_FIRST_PAGE);
+      if ( querySpec.getGenerateByKeysVariantOrDefault() && !resultReprs.contains(JSON_OBJECT_ROWS_BY_KEYS) )
+         resultReprs.add(JSON_OBJECT_ROWS_BY_KEYS);
+
        return
-         querySpec.getResultRepresentationsList().stream()
-         .collect(toMap(identity(), repr -> queryResultReprSql(querySpec, repr, propNameFn)));
+         resultReprs.stream()
+         .collect(toMap(identity(), repr -> queryResultReprSqlSharingSubqueries(querySpec, repr, queryOpts)));
+   }
+
+   /// Return the page key of the query's paged result representations, or null if the query does not include them.
+   public @Nullable KeysetPaging getKeysetPaging(QuerySpec querySpec)
+   {
+      List<ResultRepr> resultReprs = querySpec.getResultRepresentationsList();
+      if ( !resultReprs.contains(JSON_OBJECT_ROWS_PAGE) && !resultReprs.contains(JSON_OBJECT_ROWS_FIRST_PAGE) )
+         return null;
+
+      return keysetPaging(querySpec, new SpecLocation(querySpec.getQueryName()));
+   }
+
+   /// Return the parent/child join conditions in queries generated so far by this generator whose fields are not the
+   /// leading fields of any index of the filtered table, in the order encountered. Tables without index metadata are
+   /// not checked.
+   public List<UnindexedJoinCondition> getUnindexedJoinConditions()
+   {
+      return new ArrayList<>(unindexedJoinConditions);
+   }
+
+   /// Generate the query for the result representation, then if any subqueries were repeated in it, generate it again
+   /// with those subqueries shared in a with clause as the query spec allows.
+   private String queryResultReprSqlSharingSubqueries
+      (
+         QuerySpec querySpec,
+         ResultRepr resultRepr,
+         QueryOptions queryOpts
+      )
+   {
+      // Locking clauses can't apply to the rows of with clause queries.
+      SharedSubqueryMode sharingMode =
+         querySpec.getForUpdateOrDefault() ? SharedSubqueryMode.NONE : querySpec.getSharedSubqueriesOrDefault();
+
+      var collectingSubqueries = new SharedSubqueries(sharingMode, queryOpts.sqlDialect);
+      String sql = queryResultReprSql(querySpec, resultRepr, queryOpts.withSharedSubqueries(collectingSubqueries));
+
+      @Nullable SharedSubqueries sharedSubqueries = collectingSubqueries.forSharingRepeatedSubqueries();
+      if ( sharedSubqueries == null )
+         return sql;
+
+      return sharedSubqueries.withSharedSubqueries(
+         queryResultReprSql(querySpec, resultRepr, queryOpts.withSharedSubqueries(sharedSubqueries))
+      );
    }
 
    private String queryResultReprSql
       (
          QuerySpec querySpec,
          ResultRepr resultRepr,
-         Function<String,String> propNameFn
+         QueryOptions queryOpts
       )
    {
       TableJsonSpec tjs = querySpec.getTableJson();
@@ -94,11 +194,20 @@ public class QuerySqlGenerator
       switch ( resultRepr )
       {
          case JSON_OBJECT_ROWS:
-            return jsonObjectRowsSql(tjs, null, querySpec.getOrderBy(), propNameFn, specLoc);
+            return jsonObjectRowsSql(tjs, null, querySpec.getOrderBy(), queryOpts, specLoc).sql;
          case JSON_ARRAY_ROW:
-            return jsonArrayRowSql(tjs, null, false, querySpec.getOrderBy(), propNameFn, specLoc);
+            return
+               jsonArrayRowSql(tjs, null, null, ROW_OBJECTS, querySpec.getOrderBy(), null, null, queryOpts, specLoc).sql;
+         case JSON_ARRAY_CHUNK_ROWS:
+            return jsonArrayChunkRowsSql(querySpec, queryOpts, specLoc);
+         case JSON_OBJECT_ROWS_PAGE:
+            return jsonObjectRowsPageSql(tjs, keysetPaging(querySpec, specLoc), false, queryOpts, specLoc);
+         case JSON_OBJECT_ROWS_FIRST_PAGE:
+            return jsonObjectRowsPageSql(tjs, keysetPaging(querySpec, specLoc), true, queryOpts, specLoc);
+         case JSON_OBJECT_ROWS_BY_KEYS:
+            return jsonObjectRowsByKeysSql(querySpec, queryOpts, specLoc);
          case MULTI_COLUMN_ROWS:
-            return baseQuery(tjs, null, false, querySpec.getOrderBy(), propNameFn, specLoc).sql
+            return baseQuery(tjs, null, null, emptyList(), querySpec.getOrderBy(), queryOpts, specLoc).sql
                    + (querySpec.getForUpdateOrDefault() ? "\nfor update" : "");
          default:
             throw specError(querySpec, "resultRepresentations", "Result representation is not valid.");
@@ -113,13 +222,16 @@ public class QuerySqlGenerator
     * @param parentChildCond
     *    A filter condition on this table from a parent or child table whose
     *    alias (accessible from the condition) can be assumed to be in context.
-    * @param exportPkFieldsHidden
-    *    If enabled then all primary key fields will be added to the SQL select
-    *    clause but not are not listed in the result columns list which
-    *    is reserved for columns intended for final results. The primary key
-    *    columns added for this option have prefixed output names to avoid name
-    *    collisions. This is useful for filtering results of this base query
-    *    such as for parent child relationship conditions.
+    * @param filter
+    *    An additional SQL condition on this table, with $$ standing for the
+    *    table alias.
+    * @param hiddenFieldNames
+    *    Table fields to be added to the SQL select clause but not listed in the
+    *    result columns list which is reserved for columns intended for final
+    *    results. The columns added for this option have prefixed output names
+    *    to avoid name collisions. This is useful for filtering or grouping
+    *    results of this base query, such as by primary key fields for parent
+    *    child relationship conditions.
     * @return
     *    A BaseQuery structure containing the generated SQL and some metadata
     *    about the query (e.g. column names).
@@ -128,9 +240,10 @@ public class QuerySqlGenerator
       (
          TableJsonSpec tableSpec,
          @Nullable ParentChildCondition parentChildCond,
-         boolean exportPkFieldsHidden,
+         @Nullable String filter,
+         List<String> hiddenFieldNames,
          @Nullable String orderBy,
-         Function<String,String> propNameFn,
+         QueryOptions queryOpts,
          SpecLocation specLoc
       )
    {
@@ -144,22 +257,21 @@ public class QuerySqlGenerator
          q.aliasesInScope.add(pcCond.getOtherTableAlias())
       );
 
-      if ( exportPkFieldsHidden )
-         q.selectEntries.addAll(hiddenPkSelectEntries(relId, alias));
+      q.selectEntries.addAll(hiddenFieldSelectEntries(hiddenFieldNames, alias));
 
       q.selectEntries.addAll(
-         tableFieldExpressionSelectEntries(tableSpec, alias, propNameFn, specLoc)
+         tableFieldExpressionSelectEntries(tableSpec, alias, queryOpts.propNameFn, specLoc)
       );
 
       q.addParts(
-         inlineParentsSqlParts(tableSpec, relId, alias, q.aliasesInScope, propNameFn, specLoc)
+         inlineParentsSqlParts(tableSpec, relId, alias, q.aliasesInScope, queryOpts, specLoc)
       );
       q.addParts(
-         referencedParentsSqlParts(tableSpec, relId, alias, propNameFn, specLoc)
+         referencedParentsSqlParts(tableSpec, relId, alias, q.aliasesInScope, queryOpts, specLoc)
       );
 
-      q.selectEntries.addAll(
-         childCollectionSelectEntries(tableSpec, relId, alias, propNameFn, specLoc)
+      q.addParts(
+         childCollectionsSqlParts(tableSpec, relId, alias, q.aliasesInScope, queryOpts, specLoc)
       );
 
       // Add parent/child relationship filter condition if any to the where clause.
@@ -171,26 +283,50 @@ public class QuerySqlGenerator
          q.whereEntries::add
       );
 
+      ifPresent(filter, f ->
+         q.whereEntries.add("(" + f.replace(DEFAULT_TABLE_ALIAS_VAR, alias) + ")")
+      );
+
       if ( orderBy != null )
          q.orderBy = orderBy;
 
-      List<String> columnNames =
+      List<SourceColumn> columns =
          q.selectEntries.stream()
          .filter(e -> e.getSource() != HIDDEN_PK)
-         .map(SelectEntry::getName)
+         .map(SelectEntry::toSourceColumn)
          .collect(toList());
 
-      return new BaseQuery(q.toSql(indentSpaces), columnNames);
+      if ( queryOpts.compactPropertyKeys )
+         columns = withCompactPropertyKeys(tableSpec, columns, queryOpts, specLoc);
+
+      return new BaseQuery(q.toSql(indentSpaces), columns);
    }
 
-   private List<SelectEntry> hiddenPkSelectEntries(RelId relId, String alias)
+   /// Return the given result columns for the table spec in property order, keyed by the compact keys of their
+   /// properties in json objects.
+   private List<SourceColumn> withCompactPropertyKeys
+      (
+         TableJsonSpec tableSpec,
+         List<SourceColumn> columns,
+         QueryOptions queryOpts,
+         SpecLocation specLoc
+      )
+   {
+      List<SourceColumn> orderedColumns = propertyOrderedColumns(tableSpec, columns, queryOpts, specLoc);
+      List<SourceColumn> keyedColumns = new ArrayList<>(orderedColumns.size());
+      for ( int i = 0; i < orderedColumns.size(); ++i )
+         keyedColumns.add(orderedColumns.get(i).withJsonKey(ResultType.compactPropertyKey(i)));
+      return keyedColumns;
+   }
+
+   private List<SelectEntry> hiddenFieldSelectEntries(List<String> fieldNames, String alias)
    {
       return
-         dbmd.getPrimaryKeyFieldNames(relId).stream()
-         .map(pkFieldName -> {
-            String pkFieldDbName = dbmd.quoteIfNeeded(pkFieldName);
-            String pkFieldOutputName = dbmd.quoteIfNeeded(HIDDEN_PK_PREFIX + pkFieldName);
-            return new SelectEntry(alias + "." + pkFieldDbName, pkFieldOutputName, HIDDEN_PK);
+         fieldNames.stream()
+         .map(fieldName -> {
+            String fieldDbName = dbmd.quoteIfNeeded(fieldName);
+            String fieldOutputName = dbmd.quoteIfNeeded(HIDDEN_PK_PREFIX + fieldName);
+            return new SelectEntry(alias + "." + fieldDbName, fieldOutputName, HIDDEN_PK);
          })
          .collect(toList());
    }
@@ -210,6 +346,7 @@ public class QuerySqlGenerator
          return emptyList();
       else
       {
+         @Nullable RelMetadata relMd = dbmd.getRelationMetadata(identifyTable(tableSpec.getTable(), specLoc));
          var res = new ArrayList<SelectEntry>();
          for (int ix=0; ix < fieldExprs.size(); ++ix)
          {
@@ -217,12 +354,27 @@ public class QuerySqlGenerator
             var loc = specLoc.addPart("fieldExpressions entry #" + (ix+1) + " of table " + tableSpec.getTable());
             String propName = dbmd.quoteIfNeeded(this.jsonPropertyName(tfe, propNameFn, loc));
             String sqlExpr = this.tableFieldExpressionSql(tfe, alias, loc);
-            res.add(new SelectEntry(sqlExpr, propName, NATIVE_FIELD));
+            res.add(new SelectEntry(sqlExpr, propName, NATIVE_FIELD, null, false, fieldValueMaxJsonBytes(tfe, relMd)));
          }
          return res;
       }
    }
 
+   /// Return the largest size in json of the values of a table field expression, or null if unbounded or unknown,
+   /// as for general expressions.
+   private @Nullable Integer fieldValueMaxJsonBytes
+      (
+         TableFieldExpr tableFieldExpr,
+         @Nullable RelMetadata relMd
+      )
+   {
+      @Nullable String fieldName = tableFieldExpr.getField();
+      if ( fieldName == null || relMd == null )
+         return null;
+      @Nullable Field field = relMd.getField(dbmd.normalizeName(fieldName));
+      return field != null ? JsonSizeEstimates.ofFieldValue(field) : null;
+   }
+
    private String tableFieldExpressionSql
       (
          TableFieldExpr tableFieldExpr,
@@ -248,7 +400,7 @@ public class QuerySqlGenerator
          RelId relId,
          String alias,
          Set<String> aliasesInScope,
-         Function<String,String> propNameFn,
+         QueryOptions queryOpts,
          SpecLocation specLoc
       )
    {
@@ -262,7 +414,7 @@ public class QuerySqlGenerator
             "inline parentTables entry #" + (ix+1) + ", '" + parentSpec.getTableJson().getTable() + "' table"
          );
          sqlParts.addParts(
-            inlineParentSqlParts(parentSpec, relId, alias, sqlParts.aliasesInScope, propNameFn, parentLoc)
+            inlineParentSqlParts(parentSpec, relId, alias, sqlParts.aliasesInScope, queryOpts, parentLoc)
          );
       }
 
@@ -275,28 +427,39 @@ public class QuerySqlGenerator
          RelId childRelId,
          String childAlias,
          Set<String> avoidAliases,
-         Function<String,String> propNameFn,
+         QueryOptions queryOpts,
          SpecLocation specLoc
       )
    {
       assert inlineParentSpec.getReferenceName() == null;
 
-      SqlParts q = new SqlParts();
+      if ( inlineParentSpec.getStrategy() != null )
+         throw new SpecError(specLoc, "Only referenced parents can specify a strategy.");
 
       TableJsonSpec ptjSpec = inlineParentSpec.getTableJson();
-      BaseQuery fromClauseQuery = baseQuery(ptjSpec, null, true, null, propNameFn, specLoc);
+
+      if ( canJoinInlineParentTableDirectly(ptjSpec) )
+         return directlyJoinedInlineParentSqlParts(inlineParentSpec, childRelId, childAlias, avoidAliases, queryOpts, specLoc);
+
+      SqlParts q = new SqlParts();
+
+      RelId parentRelId = identifyTable(ptjSpec.getTable(), specLoc);
+      List<String> parentPkFieldNames = dbmd.getPrimaryKeyFieldNames(parentRelId);
+      BaseQuery fromClauseQuery = baseQuery(ptjSpec, null, null, parentPkFieldNames, null, queryOpts, specLoc);
 
       String fromClauseQueryAlias = StringFuns.makeNameNotInSet("q", avoidAliases);
       q.aliasesInScope.add(fromClauseQueryAlias);
 
-      for (int i = 0; i < fromClauseQuery.resultColumnNames.size(); ++i )
+      for (int i = 0; i < fromClauseQuery.resultColumns.size(); ++i )
       {
-         String parentColumn = fromClauseQuery.resultColumnNames.get(i);
+         SourceColumn parentColumn = fromClauseQuery.resultColumns.get(i);
          q.selectEntries.add(new SelectEntry(
-            fromClauseQueryAlias + "." + parentColumn,
-            parentColumn,
+            fromClauseQueryAlias + "." + parentColumn.getName(),
+            parentColumn.getName(),
             SelectEntry.Source.INLINE_PARENT,
-            (i == 0 ? lineCommentInlineParentFieldsBegin(inlineParentSpec): null)
+            (i == 0 ? lineCommentInlineParentFieldsBegin(inlineParentSpec): null),
+            parentColumn.isJson(),
+            parentColumn.getMaxJsonBytes()
          ));
       }
 
@@ -304,16 +467,86 @@ public class QuerySqlGenerator
          getParentPkCondition(inlineParentSpec, childRelId, childAlias, specLoc)
          .asEquationConditionOn(fromClauseQueryAlias, dbmd, HIDDEN_PK_PREFIX);
 
+      @Nullable String sharedQueryName =
+         queryOpts.sharedSubqueries.sharedSubqueryName(inlineParentSpec, fromClauseQuery.sql, parentRelId.getName());
+
       q.fromEntries.add(
          lineCommentJoinToParent(inlineParentSpec) + "\n" +
-         "left join (\n" +
-            indent(fromClauseQuery.sql) + "\n" +
-         ") " + fromClauseQueryAlias + " on " + joinCond
+         (sharedQueryName != null ? "left join " + sharedQueryName :
+            "left join (\n" +
+               indent(fromClauseQuery.sql) + "\n" +
+            ")") + " " + fromClauseQueryAlias + " on " + joinCond
       );
 
       return q;
    }
 
+   /// Whether an inline parent's table can be joined directly into its child's query, rather than via a derived table
+   /// isolating the parent's own query. Isolation is needed for a record condition, which must only filter the
+   /// parent's rows and not the child's, and for child collections, to keep their aggregation within the parent's
+   /// query.
+   private static boolean canJoinInlineParentTableDirectly(TableJsonSpec parentSpec)
+   {
+      return parentSpec.getRecordCondition() == null && parentSpec.getChildTableCollectionsList().isEmpty();
+   }
+
+   /// Make sql parts for an inline parent whose table is outer joined directly into the child's query, with the
+   /// parent's fields, and those of its own parents, projected from the joined tables.
+   private SqlParts directlyJoinedInlineParentSqlParts
+      (
+         ParentSpec inlineParentSpec,
+         RelId childRelId,
+         String childAlias,
+         Set<String> avoidAliases,
+         QueryOptions queryOpts,
+         SpecLocation specLoc
+      )
+   {
+      SqlParts q = new SqlParts(emptyList(), emptyList(), emptyList(), null, avoidAliases);
+
+      TableJsonSpec ptjSpec = inlineParentSpec.getTableJson();
+      RelId parentRelId = identifyTable(ptjSpec.getTable(), specLoc);
+      String parentAlias = q.makeNewAliasFor(parentRelId.getName());
+
+      String joinCond =
+         getParentPkCondition(inlineParentSpec, childRelId, childAlias, specLoc)
+         .asEquationConditionOn(parentAlias, dbmd);
+
+      q.fromEntries.add(
+         lineCommentJoinToParent(inlineParentSpec) + "\n" +
+         "left join " + minimalRelIdentifier(parentRelId) + " " + parentAlias + " on " + joinCond
+      );
+
+      SqlParts parentParts = new SqlParts(emptyList(), emptyList(), emptyList(), null, q.aliasesInScope);
+      parentParts.selectEntries.addAll(
+         tableFieldExpressionSelectEntries(ptjSpec, parentAlias, queryOpts.propNameFn, specLoc)
+      );
+      parentParts.addParts(
+         inlineParentsSqlParts(ptjSpec, parentRelId, parentAlias, parentParts.aliasesInScope, queryOpts, specLoc)
+      );
+      parentParts.addParts(
+         referencedParentsSqlParts(ptjSpec, parentRelId, parentAlias, parentParts.aliasesInScope, queryOpts, specLoc)
+      );
+
+      for ( int i = 0; i < parentParts.selectEntries.size(); ++i )
+      {
+         SelectEntry se = parentParts.selectEntries.get(i);
+         q.selectEntries.add(new SelectEntry(
+            se.getValueExpression(),
+            se.getName(),
+            SelectEntry.Source.INLINE_PARENT,
+            i == 0 ? lineCommentInlineParentFieldsBegin(inlineParentSpec) + applyOr(se.getComment(), c -> "\n" + c, "")
+               : se.getComment(),
+            se.isJson(),
+            se.getMaxJsonBytes()
+         ));
+      }
+      q.fromEntries.addAll(parentParts.fromEntries);
+      q.aliasesInScope.addAll(parentParts.aliasesInScope);
+
+      return q;
+   }
+
    private ParentPkCondition getParentPkCondition
       (
          ParentSpec parentSpec,
@@ -323,21 +556,27 @@ public class QuerySqlGenerator
       )
    {
       @Nullable CustomJoinCondition customJoinCond = parentSpec.getCustomJoinCondition();
+      RelId parentRelId = identifyTable(parentSpec.getParentTableJsonSpec().getTable(), specLoc);
 
+      ParentPkCondition parentPkCond;
       if ( customJoinCond != null )
       {
          if ( parentSpec.getChildForeignKeyFieldsSet() != null )
             throw new SpecError(specLoc, "Parent with customJoinCondition cannot specify foreignKeyFields.");
 
-         return customJoinParentPkCondition(customJoinCond, childAlias);
+         parentPkCond = customJoinParentPkCondition(customJoinCond, childAlias);
       }
       else
       {
          @Nullable Set<String> childForeignKeyFieldsSet = parentSpec.getChildForeignKeyFieldsSet();
-         RelId parentRelId = identifyTable(parentSpec.getParentTableJsonSpec().getTable(), specLoc);
          ForeignKey fk = getForeignKey(childRelId, parentRelId, childForeignKeyFieldsSet, specLoc);
-         return new ParentPkCondition(childAlias, fk.getForeignKeyComponents());
+         parentPkCond = new ParentPkCondition(childAlias, fk.getForeignKeyComponents());
       }
+
+      // The parent table is the one filtered, by its primary key (or custom join) fields.
+      checkJoinFieldsIndexed(parentRelId, parentPkCond.getParentFieldNames(), specLoc);
+
+      return parentPkCond;
    }
 
    private ParentPkCondition customJoinParentPkCondition
@@ -362,11 +601,12 @@ public class QuerySqlGenerator
          TableJsonSpec tableSpec,
          RelId relId,
          String alias,
-         Function<String,String> propNameFn,
+         Set<String> aliasesInScope,
+         QueryOptions queryOpts,
          SpecLocation specLoc
       )
    {
-      var sqlParts = new SqlParts();
+      var sqlParts = new SqlParts(emptyList(), emptyList(), emptyList(), null, aliasesInScope);
 
       var parentSpecs = tableSpec.getReferencedParentTablesList();
       for (int ix=0; ix < parentSpecs.size(); ++ix )
@@ -376,7 +616,7 @@ public class QuerySqlGenerator
             "referencedParentTables entry #" + (ix+1) + ", '" + parentSpec.getTableJson().getTable() + "' table"
          );
          sqlParts.addParts(
-            referencedParentSqlParts(parentSpec, relId, alias, propNameFn, parentLoc)
+            referencedParentSqlParts(parentSpec, tableSpec, relId, alias, sqlParts.aliasesInScope, queryOpts, parentLoc)
          );
       }
 
@@ -386,9 +626,11 @@ public class QuerySqlGenerator
    private SqlParts referencedParentSqlParts
       (
          ParentSpec parentSpec,
+         TableJsonSpec childSpec,
          RelId childRelId,
          String childAlias,
-         Function<String,String> propNameFn,
+         Set<String> avoidAliases,
+         QueryOptions queryOpts,
          SpecLocation specLoc
       )
    {
@@ -396,58 +638,252 @@ public class QuerySqlGenerator
 
       var parentPkCond = getParentPkCondition(parentSpec, childRelId, childAlias, specLoc);
 
-      var selectEntries = singletonList(new SelectEntry(
-         lineCommentReferencedParent(parentSpec) + "\n" +
-            "(\n" +
-               indent(
-                  jsonObjectRowsSql(parentSpec.getTableJson(), parentPkCond, null, propNameFn, specLoc)
-               ) + "\n" +
-            ")",
-         dbmd.quoteIfNeeded(refName),
-         SelectEntry.Source.PARENT_REFERENCE,
-         null
-      ));
+      TableJsonSpec ptjSpec = parentSpec.getTableJson();
+
+      // A strategy specified for the parent or query takes precedence over one chosen from statistics.
+      @Nullable ReferencedParentStrategy specifiedStrategy =
+         parentSpec.getStrategy() != null ? parentSpec.getStrategy() : queryOpts.referencedParentStrategy;
+      JoinStrategyChooser.@Nullable Choice<ReferencedParentStrategy> chosenStrategy = null;
+      if ( specifiedStrategy == null )
+      {
+         RelId parentRelId = identifyTable(ptjSpec.getTable(), specLoc);
+         @Nullable Boolean indexed = joinFieldsIndexed(parentRelId, parentPkCond.getParentFieldNames());
+         chosenStrategy =
+            queryOpts.strategyChooser.chooseReferencedParentStrategy(childSpec, childRelId, parentRelId, indexed);
+      }
+      ReferencedParentStrategy strategy =
+         specifiedStrategy != null ? specifiedStrategy
+         : chosenStrategy != null ? chosenStrategy.strategy
+         : ReferencedParentStrategy.CORRELATED_SUBQUERY;
+
+      String selectEntryComment =
+         lineCommentReferencedParent(parentSpec) +
+         applyOr(chosenStrategy, c -> "\n" + lineCommentChosenStrategy(c), "");
+
+      SqlParts q = new SqlParts(emptyList(), emptyList(), emptyList(), null, avoidAliases);
+
+      switch ( strategy )
+      {
+         case CORRELATED_SUBQUERY:
+         {
+            JsonQuery parentQuery = jsonObjectRowsSql(ptjSpec, parentPkCond, null, queryOpts, specLoc);
+            q.selectEntries.add(new SelectEntry(
+               selectEntryComment + "\n" +
+                  "(\n" +
+                     indent(parentQuery.sql) + "\n" +
+                  ")",
+               dbmd.quoteIfNeeded(refName),
+               SelectEntry.Source.PARENT_REFERENCE,
+               null,
+               true,
+               parentQuery.maxJsonBytes
+            ));
+            break;
+         }
+         case JOIN:
+         {
+            List<String> parentJoinFieldNames = parentPkCond.getParentFieldNames();
+            BaseQuery parentQuery = baseQuery(ptjSpec, null, null, parentJoinFieldNames, null, queryOpts, specLoc);
+            RelId parentRelId = identifyTable(ptjSpec.getTable(), specLoc);
+            String parentAlias = q.makeNewAliasFor(parentRelId.getName());
+            String joinCond = parentPkCond.asEquationConditionOn(parentAlias, dbmd, HIDDEN_PK_PREFIX);
+
+            String rowObjectsQuery = rowObjectsByJoinFieldsQuery(ptjSpec, parentQuery, parentJoinFieldNames, queryOpts);
+            @Nullable String sharedQueryName =
+               queryOpts.sharedSubqueries.sharedSubqueryName(parentSpec, rowObjectsQuery, parentRelId.getName());
+
+            @Nullable Integer parentMaxJsonBytes = JsonSizeEstimates.ofObject(parentQuery.resultColumns);
+
+            if ( sharedQueryName != null )
+            {
+               // The shared query has the parent's row object already built, for each value of its join fields.
+               q.selectEntries.add(new SelectEntry(
+                  parentAlias + ".json",
+                  dbmd.quoteIfNeeded(refName),
+                  SelectEntry.Source.PARENT_REFERENCE,
+                  selectEntryComment,
+                  true,
+                  parentMaxJsonBytes
+               ));
+               q.fromEntries.add(
+                  lineCommentJoinToReferencedParent(parentSpec) + "\n" +
+                  "left join " + sharedQueryName + " " + parentAlias + " on " + joinCond
+               );
+               break;
+            }
+
+            // The joined parent's fields are all null if the child has no parent row, as tested on a join field.
+            String joinedFieldTest =
+               parentAlias + "." + dbmd.quoteIfNeeded(HIDDEN_PK_PREFIX + parentJoinFieldNames.get(0)) + " is not null";
+
+            String parentRowObject =
+               queryOpts.sqlDialect.getRowObjectExpression(parentQuery.resultColumns, parentAlias);
+
+            q.selectEntries.add(new SelectEntry(
+               "case when " + joinedFieldTest + " then\n" +
+                  indent(parentRowObject) + "\n" +
+               "end",
+               dbmd.quoteIfNeeded(refName),
+               SelectEntry.Source.PARENT_REFERENCE,
+               selectEntryComment,
+               true,
+               parentMaxJsonBytes
+            ));
+            q.fromEntries.add(
+               lineCommentJoinToReferencedParent(parentSpec) + "\n" +
+               "left join (\n" +
+                  indent(parentQuery.sql) + "\n" +
+               ") " + parentAlias + " on " + joinCond
+            );
+            break;
+         }
+         default:
+            throw new SpecError(specLoc, "Referenced parent strategy is not valid.");
+      }
 
-      return new SqlParts(selectEntries, emptyList(), emptyList(), null, emptySet());
+      return q;
    }
 
-   private List<SelectEntry> childCollectionSelectEntries
+   /// Make a query of a parent table's row objects, with the parent's join fields in hidden columns, from the given
+   /// base query for the parent which includes the join fields as hidden columns.
+   private String rowObjectsByJoinFieldsQuery
+      (
+         TableJsonSpec parentSpec,
+         BaseQuery parentQuery,
+         List<String> parentJoinFieldNames,
+         QueryOptions queryOpts
+      )
+   {
+      String joinFieldColumns =
+         parentJoinFieldNames.stream()
+         .map(f -> "q." + dbmd.quoteIfNeeded(HIDDEN_PK_PREFIX + f))
+         .collect(joining(",\n"));
+
+      return
+         "select\n" +
+            indent(joinFieldColumns) + ",\n" +
+            indent(lineCommentTableRowObject(parentSpec)) + "\n" +
+            indent(queryOpts.sqlDialect.getRowObjectExpression(parentQuery.resultColumns, "q")) + " json\n" +
+         "from (\n" +
+            indent(lineCommentBaseTableQuery(parentSpec)) + "\n" +
+            indent(parentQuery.sql) + "\n" +
+         ") q";
+   }
+
+   private SqlParts childCollectionsSqlParts
       (
          TableJsonSpec tableSpec,
          RelId relId,
          String alias,
-         Function<String,String> propNameFn,
+         Set<String> aliasesInScope,
+         QueryOptions queryOpts,
          SpecLocation specLoc
       )
    {
-      @Nullable List<ChildCollectionSpec> childSpecs = tableSpec.getChildTableCollections();
+      var sqlParts = new SqlParts(emptyList(), emptyList(), emptyList(), null, aliasesInScope);
 
+      @Nullable List<ChildCollectionSpec> childSpecs = tableSpec.getChildTableCollections();
       if ( childSpecs == null )
-         return emptyList();
-      return
-         childSpecs.stream()
-         .map(childSpec -> {
-            SpecLocation loc =  specLoc.addPart("child collection '" + childSpec.getCollectionName() + "'");
-            return new SelectEntry(
-               lineCommentChildCollectionSelectExpression(childSpec) + "\n" +
-                  "(" + "\n" +
-                     indent(
-                        childCollectionQuery(childSpec, relId, alias, propNameFn, loc)
-                     ) + "\n" +
-                  ")",
-               dbmd.quoteIfNeeded(childSpec.getCollectionName()),
-               SelectEntry.Source.CHILD_COLLECTION
-            );
-         })
-         .collect(toList());
+         return sqlParts;
+
+      for ( ChildCollectionSpec childSpec : childSpecs )
+      {
+         SpecLocation loc =  specLoc.addPart("child collection '" + childSpec.getCollectionName() + "'");
+         String collectionName = dbmd.quoteIfNeeded(childSpec.getCollectionName());
+
+         verifyRowsLimitValid(childSpec, loc);
+
+         // A strategy specified for the collection or query takes precedence over one chosen from statistics.
+         @Nullable ChildCollectionStrategy specifiedStrategy =
+            childSpec.getStrategy() != null ? childSpec.getStrategy() : queryOpts.childCollectionStrategy;
+         JoinStrategyChooser.@Nullable Choice<ChildCollectionStrategy> chosenStrategy =
+            specifiedStrategy == null ? chooseChildCollectionStrategy(childSpec, tableSpec, relId, alias, queryOpts, loc) : null;
+         ChildCollectionStrategy strategy =
+            specifiedStrategy != null ? specifiedStrategy
+            : chosenStrategy != null ? chosenStrategy.strategy
+            : CORRELATED_SUBQUERY;
+
+         String selectEntryComment =
+            lineCommentChildCollectionSelectExpression(childSpec) +
+            applyOr(chosenStrategy, c -> "\n" + lineCommentChosenStrategy(c), "");
+
+         switch ( strategy )
+         {
+            case CORRELATED_SUBQUERY:
+            {
+               JsonQuery collectionQuery = childCollectionQuery(childSpec, relId, alias, queryOpts, loc);
+               sqlParts.selectEntries.add(new SelectEntry(
+                  selectEntryComment + "\n" +
+                     "(" + "\n" +
+                        indent(collectionQuery.sql) + "\n" +
+                     ")",
+                  collectionName,
+                  SelectEntry.Source.CHILD_COLLECTION,
+                  null,
+                  true,
+                  collectionQuery.maxJsonBytes
+               ));
+               break;
+            }
+            case LATERAL_JOIN:
+            {
+               JsonQuery collectionQuery = childCollectionQuery(childSpec, relId, alias, queryOpts, loc);
+               String collectionAlias = sqlParts.makeNewAliasFor(childSpec.getCollectionName());
+               sqlParts.selectEntries.add(new SelectEntry(
+                  collectionAlias + ".json",
+                  collectionName,
+                  SelectEntry.Source.CHILD_COLLECTION,
+                  selectEntryComment,
+                  true,
+                  collectionQuery.maxJsonBytes
+               ));
+               sqlParts.fromEntries.add(
+                  lineCommentJoinToChildCollection(childSpec) + "\n" +
+                  queryOpts.sqlDialect.getLateralJoinFromEntry(collectionQuery.sql, collectionAlias)
+               );
+               break;
+            }
+            case PREAGGREGATED_JOIN:
+            {
+               String collectionAlias = sqlParts.makeNewAliasFor(childSpec.getCollectionName());
+               sqlParts.addParts(
+                  preaggregatedChildCollectionSqlParts(
+                     childSpec, relId, alias, collectionAlias, selectEntryComment, queryOpts, loc
+                  )
+               );
+               break;
+            }
+            default:
+               throw new SpecError(loc, "Child collection strategy is not valid.");
+         }
+      }
+
+      return sqlParts;
    }
 
-   private String childCollectionQuery
+   private JoinStrategyChooser.@Nullable Choice<ChildCollectionStrategy> chooseChildCollectionStrategy
       (
          ChildCollectionSpec childSpec,
+         TableJsonSpec parentSpec,
          RelId parentRelId,
          String parentAlias,
-         Function<String,String> propNameFn,
+         QueryOptions queryOpts,
+         SpecLocation specLoc
+      )
+   {
+      RelId childRelId = identifyTable(childSpec.getTableJson().getTable(), specLoc);
+      var fkCond = getChildFkCondition(childSpec, childRelId, parentRelId, parentAlias, specLoc);
+      @Nullable Boolean indexed = joinFieldsIndexed(childRelId, fkCond.getChildFieldNames());
+
+      return queryOpts.strategyChooser.chooseChildCollectionStrategy(parentSpec, parentRelId, childRelId, indexed);
+   }
+
+   private JsonQuery childCollectionQuery
+      (
+         ChildCollectionSpec childSpec,
+         RelId parentRelId,
+         String parentAlias,
+         QueryOptions queryOpts,
          SpecLocation specLoc
       )
    {
@@ -457,11 +893,152 @@ public class QuerySqlGenerator
 
       var pcCond = getChildFkCondition(childSpec, childRelId, parentRelId, parentAlias, specLoc);
 
-      boolean unwrapChildValues = valueOr(childSpec.getUnwrap(), false);
-      if ( unwrapChildValues && childSpec.getTableJson().getJsonPropertiesCount() > 1 )
-         throw new SpecError(specLoc, "Unwrapped child collection option is incompatible with multiple field expressions.");
+      // The child table is the one filtered, by its foreign key (or custom join) fields.
+      checkJoinFieldsIndexed(childRelId, pcCond.getChildFieldNames(), specLoc);
 
-      return jsonArrayRowSql(tableSpec, pcCond, unwrapChildValues, childSpec.getOrderBy(), propNameFn, specLoc);
+      ArrayElements elements = childArrayElements(childSpec, queryOpts, specLoc);
+
+      return
+         jsonArrayRowSql(
+            tableSpec, pcCond, childSpec.getFilter(), elements, childSpec.getOrderBy(),
+            childSpec.getOffset(), childSpec.getLimit(), queryOpts, specLoc
+         );
+   }
+
+   /// Make sql parts for a child collection which is aggregated for all parents at once, grouped by the child's
+   /// foreign key fields, with the aggregates then joined to the parent table. The child table's own child
+   /// collections are generated within its base query, and so are aggregated before it.
+   private SqlParts preaggregatedChildCollectionSqlParts
+      (
+         ChildCollectionSpec childSpec,
+         RelId parentRelId,
+         String parentAlias,
+         String collectionAlias,
+         String selectEntryComment,
+         QueryOptions queryOpts,
+         SpecLocation specLoc
+      )
+   {
+      TableJsonSpec tableSpec = childSpec.getTableJson();
+
+      RelId childRelId = identifyTable(tableSpec.getTable(), specLoc);
+
+      var fkCond = getChildFkCondition(childSpec, childRelId, parentRelId, parentAlias, specLoc);
+
+      ArrayElements elements = childArrayElements(childSpec, queryOpts, specLoc);
+
+      List<String> childFieldNames = fkCond.getChildFieldNames();
+
+      BaseQuery baseQuery =
+         baseQuery(tableSpec, null, childSpec.getFilter(), childFieldNames, null, queryOpts, specLoc);
+
+      if ( elements == COLUMN_VALUES && baseQuery.resultColumns.size() != 1 )
+         throw new SpecError(specLoc, "Unwrapped child collections cannot have multiple field expressions.");
+
+      String groupByColumns =
+         childFieldNames.stream()
+         .map(f -> "q." + dbmd.quoteIfNeeded(HIDDEN_PK_PREFIX + f))
+         .collect(joining(", "));
+
+      String rowsQuery = lineCommentBaseTableQuery(tableSpec) + "\n" + baseQuery.sql;
+      @Nullable String rowNumCondition = null;
+      @Nullable Integer limit = childSpec.getLimit();
+      @Nullable Integer offset = childSpec.getOffset();
+      if ( limit != null || offset != null )
+      {
+         // The child rows of all parents are numbered within each parent, to select the same rows per parent as
+         // limiting each parent's child rows separately.
+         String rowNum = dbmd.quoteIfNeeded(HIDDEN_PK_PREFIX + "row_num");
+         rowsQuery =
+            "select\n" +
+               indent(
+                  "q.*,\n" +
+                  "row_number() over (partition by " + groupByColumns + " order by " +
+                     requireNonNull(childSpec.getOrderBy()).replace(DEFAULT_TABLE_ALIAS_VAR, "q") + ") " + rowNum
+               ) + "\n" +
+            "from (\n" +
+               indent(rowsQuery) + "\n" +
+            ") q";
+         int firstRowNum = valueOr(offset, 0) + 1;
+         rowNumCondition =
+            (firstRowNum > 1 ? "q." + rowNum + " >= " + firstRowNum : "") +
+            (firstRowNum > 1 && limit != null ? " and " : "") +
+            (limit != null ? "q." + rowNum + " < " + (firstRowNum + limit) : "");
+      }
+
+      String aggregatesQuery =
+         "select\n" +
+            indent(groupByColumns) + ",\n" +
+            indent(lineCommentAggregatedElements(tableSpec, elements)) + "\n" +
+            indent(
+               aggregatedElementsExpression(
+                  tableSpec, baseQuery, elements, childSpec.getOrderBy(), limit, queryOpts, specLoc
+               )
+            ) + " json\n" +
+         "from (\n" +
+            indent(rowsQuery) + "\n" +
+         ") q\n" +
+         (rowNumCondition != null ? "where " + rowNumCondition + "\n" : "") +
+         "group by " + groupByColumns;
+
+      SqlParts q = new SqlParts();
+
+      // Parents without child rows have no aggregate row to join, so are given the value of an empty aggregate.
+      q.selectEntries.add(new SelectEntry(
+         queryOpts.sqlDialect.getAggregateOrEmptyExpression(collectionAlias + ".json", elements == COLUMN_VALUES),
+         dbmd.quoteIfNeeded(childSpec.getCollectionName()),
+         SelectEntry.Source.CHILD_COLLECTION,
+         selectEntryComment,
+         true,
+         JsonSizeEstimates.ofArray(elementMaxJsonBytes(baseQuery, elements), limit)
+      ));
+
+      @Nullable String sharedQueryName =
+         queryOpts.sharedSubqueries.sharedSubqueryName(childSpec, aggregatesQuery, childRelId.getName() + "_agg");
+
+      q.fromEntries.add(
+         lineCommentJoinToPreaggregatedChildCollection(childSpec) + "\n" +
+         (sharedQueryName != null ? "left join " + sharedQueryName :
+            "left join (\n" +
+               indent(aggregatesQuery) + "\n" +
+            ")") + " " + collectionAlias + " on " + fkCond.asEquationConditionOn(collectionAlias, dbmd, HIDDEN_PK_PREFIX)
+      );
+
+      return q;
+   }
+
+   private static void verifyRowsLimitValid
+      (
+         ChildCollectionSpec childSpec,
+         SpecLocation specLoc
+      )
+   {
+      @Nullable Integer limit = childSpec.getLimit();
+      @Nullable Integer offset = childSpec.getOffset();
+      if ( limit == null && offset == null )
+         return;
+      if ( childSpec.getOrderBy() == null )
+         throw new SpecError(specLoc, "A child collection with a limit or offset must specify orderBy.");
+      if ( limit != null && limit < 0 || offset != null && offset < 0 )
+         throw new SpecError(specLoc, "Child collection limit and offset must not be negative.");
+   }
+
+   private ArrayElements childArrayElements
+      (
+         ChildCollectionSpec childSpec,
+         QueryOptions queryOpts,
+         SpecLocation specLoc
+      )
+   {
+      boolean unwrap = valueOr(childSpec.getUnwrap(), false);
+      if ( unwrap && childSpec.getTableJson().getJsonPropertiesCount() > 1 )
+         throw new SpecError(specLoc, "Unwrapped child collection option is incompatible with multiple field expressions.");
+      if ( unwrap && childSpec.getEncoding() == ChildCollectionEncoding.TUPLES )
+         throw new SpecError(specLoc, "Unwrapped child collection option is incompatible with tuple encoding.");
+      return
+         unwrap ? COLUMN_VALUES
+         : childSpec.hasTupleElements(queryOpts.childCollectionEncoding) ? ROW_TUPLES
+         : ROW_OBJECTS;
    }
 
    private ChildFkCondition getChildFkCondition
@@ -475,19 +1052,63 @@ public class QuerySqlGenerator
    {
       @Nullable CustomJoinCondition customJoinCond = childCollectionSpec.getCustomJoinCondition();
 
+      ChildFkCondition childFkCond;
       if ( customJoinCond != null ) // custom join condition specified
       {
          if ( childCollectionSpec.getForeignKeyFields() != null )
             throw new SpecError(specLoc, "Child collection that specifies customJoinCondition cannot specify foreignKeyFields.");
          validateCustomJoinCondition(customJoinCond, childRelId, parentRelId, dbmd, specLoc.addPart("custom join condition"));
-         return customJoinChildFkCondition(customJoinCond, parentAlias);
+         childFkCond = customJoinChildFkCondition(customJoinCond, parentAlias);
       }
       else // foreign key join condition
       {
          @Nullable Set<String> fkFields = childCollectionSpec.getForeignKeyFieldsSet();
          ForeignKey fk = getForeignKey(childRelId, parentRelId, fkFields, specLoc);
-         return new ChildFkCondition(parentAlias, fk.getForeignKeyComponents());
+         childFkCond = new ChildFkCondition(parentAlias, fk.getForeignKeyComponents());
       }
+
+      return childFkCond;
+   }
+
+   /// Record the join condition as unindexed if the given fields of the table filtered by the condition are not the
+   /// leading fields of any of the table's indexes, when the metadata has index information for the table.
+   private void checkJoinFieldsIndexed
+      (
+         RelId relId,
+         List<String> fieldNames,
+         SpecLocation specLoc
+      )
+   {
+      if ( Boolean.FALSE.equals(joinFieldsIndexed(relId, fieldNames)) )
+         unindexedJoinConditions.add(
+            new UnindexedJoinCondition(specLoc.getQueryName(), specLoc.getQueryPart(), relId, unquotedNames(fieldNames))
+         );
+   }
+
+   /// Return whether the given fields are the leading fields of some index of the table, or null if the table has no
+   /// index metadata.
+   private @Nullable Boolean joinFieldsIndexed
+      (
+         RelId relId,
+         List<String> fieldNames
+      )
+   {
+      @Nullable RelMetadata relMd = dbmd.getRelationMetadata(relId);
+      @Nullable List<Index> indexes = relMd != null ? relMd.getIndexes() : null;
+      if ( indexes == null )
+         return null;
+
+      List<String> unquotedFieldNames = unquotedNames(fieldNames);
+
+      return indexes.stream().anyMatch(idx -> idx.hasLeadingFields(unquotedFieldNames));
+   }
+
+   private static List<String> unquotedNames(List<String> names)
+   {
+      return
+         names.stream()
+         .map(f -> f.startsWith("\"") && f.endsWith("\"") ? f.substring(1, f.length() - 1) : f)
+         .collect(toList());
    }
 
    private ChildFkCondition customJoinChildFkCondition
@@ -513,34 +1134,266 @@ public class QuerySqlGenerator
     * @param tableSpec  The output specification for this table, the subject of the query.
     * @param parentChildCond A filter condition on this table (always) from a parent or child table whose alias
     *                        (accessible from the condition) can be assumed to be in context.
-    * @return the generated SQL query
+    * @param filter An additional SQL condition on this table, with $$ standing for the table alias.
+    * @return the generated SQL query, with the largest size of its result if bounded
     */
-   private String jsonArrayRowSql
+   private JsonQuery jsonArrayRowSql
       (
          TableJsonSpec tableSpec,
          @Nullable ParentChildCondition parentChildCond,
-         boolean unwrap,
+         @Nullable String filter,
+         ArrayElements elements,
          @Nullable String orderBy,
-         Function<String, String> propNameFn,
+         @Nullable Integer offset,
+         @Nullable Integer limit,
+         QueryOptions queryOpts,
          SpecLocation specLoc
       )
    {
-      BaseQuery baseQuery = baseQuery(tableSpec, parentChildCond, false, null, propNameFn, specLoc);
+      BaseQuery baseQuery = baseQuery(tableSpec, parentChildCond, filter, emptyList(), null, queryOpts, specLoc);
 
-      if ( unwrap && baseQuery.resultColumnNames.size() != 1 )
+      if ( elements == COLUMN_VALUES && baseQuery.resultColumns.size() != 1 )
          throw new SpecError(specLoc, "Unwrapped child collections cannot have multiple field expressions.");
 
+      String rowsQuery =
+         limitedRowsQuery(
+            lineCommentBaseTableQuery(tableSpec) + "\n" + baseQuery.sql, orderBy, offset, limit, queryOpts
+         );
+
+      String aggregatedElements =
+         aggregatedElementsExpression(tableSpec, baseQuery, elements, orderBy, limit, queryOpts, specLoc);
+
+      String sql =
+         "select\n" +
+            indent(lineCommentAggregatedElements(tableSpec, elements)) + "\n" +
+            indent(resultJsonExpression(aggregatedElements, parentChildCond, queryOpts)) + " json\n" +
+         "from (\n" +
+            indent(rowsQuery) + "\n" +
+         ") q";
+
+      return new JsonQuery(sql, JsonSizeEstimates.ofArray(elementMaxJsonBytes(baseQuery, elements), limit));
+   }
+
+   /// Return the aggregate expression building a json array of the given elements from the rows of the given base
+   /// query for the table spec, which is selected from as alias "q".
+   private String aggregatedElementsExpression
+      (
+         TableJsonSpec tableSpec,
+         BaseQuery baseQuery,
+         ArrayElements elements,
+         @Nullable String orderBy,
+         @Nullable Integer limit,
+         QueryOptions queryOpts,
+         SpecLocation specLoc
+      )
+   {
+      SqlDialect sqlDialect = queryOpts.sqlDialect;
+      List<SourceColumn> columns = baseQuery.resultColumns;
+      switch ( elements )
+      {
+         case ROW_OBJECTS:
+            return sqlDialect.getAggregatedRowObjectsExpression(columns, orderBy, "q", limit);
+         case ROW_TUPLES:
+            return
+               sqlDialect.getAggregatedRowTuplesExpression(
+                  propertyOrderedColumns(tableSpec, columns, queryOpts, specLoc), orderBy, "q", limit
+               );
+         case COLUMN_VALUES:
+            return sqlDialect.getAggregatedColumnValuesExpression(columns.get(0), orderBy, "q", limit);
+         default:
+            throw new RuntimeException("Unexpected array elements " + elements);
+      }
+   }
+
+   /// Return the given json value expression of a query as a result json value if the query is a top level query, as
+   /// indicated by its not being conditioned on a parent or child table, else as is for inclusion in other json.
+   private String resultJsonExpression
+      (
+         String jsonValue,
+         @Nullable ParentChildCondition parentChildCond,
+         QueryOptions queryOpts
+      )
+   {
+      return parentChildCond == null ? queryOpts.sqlDialect.getResultJsonExpression(jsonValue) : jsonValue;
+   }
+
+   /// Return the given result columns for the table spec in the order of the properties of the table's result type,
+   /// which is the order of the values in the table's tuple encoding and of its compact property keys.
+   private List<SourceColumn> propertyOrderedColumns
+      (
+         TableJsonSpec tableSpec,
+         List<SourceColumn> columns,
+         QueryOptions queryOpts,
+         SpecLocation specLoc
+      )
+   {
+      List<String> propertyNames =
+         queryOpts.propertyNamesBySpec.computeIfAbsent(tableSpec, ts -> propertyNames(ts, queryOpts, specLoc));
+
+      Map<String,SourceColumn> columnsByPropertyName = new HashMap<>();
+      for ( SourceColumn column : columns )
+         columnsByPropertyName.put(StringFuns.unDoubleQuote(column.getName()), column);
+
+      if ( propertyNames.size() != columnsByPropertyName.size() )
+         throw new SpecError(specLoc,
+            "Properties " + propertyNames + " of table " + tableSpec.getTable() + " do not match the query's columns " +
+            columnsByPropertyName.keySet() + "."
+         );
+
+      List<SourceColumn> orderedColumns = new ArrayList<>(propertyNames.size());
+      for ( String propertyName : propertyNames )
+      {
+         orderedColumns.add(valueOrThrow(columnsByPropertyName.get(propertyName), () ->
+            new SpecError(specLoc, "No column for property " + propertyName + " of table " + tableSpec.getTable() + ".")
+         ));
+      }
+      return orderedColumns;
+   }
+
+   /// Return the property names of the table spec's json values in the order of its result type's properties: fields,
+   /// then expressions, then child collections and then referenced parents. Inline parents' fields and expressions
+   /// follow the table's own, and their child collections and referenced parents precede the table's own.
+   private List<String> propertyNames
+      (
+         TableJsonSpec tableSpec,
+         QueryOptions queryOpts,
+         SpecLocation specLoc
+      )
+   {
+      List<String> fields = new ArrayList<>(), expressions = new ArrayList<>();
+      List<String> childCollections = new ArrayList<>(), parentReferences = new ArrayList<>();
+      addPropertyNames(tableSpec, queryOpts, specLoc, fields, expressions, childCollections, parentReferences);
+
+      List<String> names = new ArrayList<>(fields);
+      names.addAll(expressions);
+      names.addAll(childCollections);
+      names.addAll(parentReferences);
+      return names;
+   }
+
+   private void addPropertyNames
+      (
+         TableJsonSpec tableSpec,
+         QueryOptions queryOpts,
+         SpecLocation specLoc,
+         List<String> fields,
+         List<String> expressions,
+         List<String> childCollections,
+         List<String> parentReferences
+      )
+   {
+      for ( TableFieldExpr tfe : tableSpec.getFieldExpressionsList() )
+         (tfe.getField() != null ? fields : expressions).add(jsonPropertyName(tfe, queryOpts.propNameFn, specLoc));
+
+      for ( ParentSpec parentSpec : tableSpec.getInlineParentTablesList() )
+         addPropertyNames(
+            parentSpec.getParentTableJsonSpec(), queryOpts, specLoc,
+            fields, expressions, childCollections, parentReferences
+         );
+
+      for ( ChildCollectionSpec childSpec : tableSpec.getChildTableCollectionsList() )
+         childCollections.add(childSpec.getCollectionName());
+
+      for ( ParentSpec parentSpec : tableSpec.getReferencedParentTablesList() )
+         parentReferences.add(requireNonNull(parentSpec.getReferenceName()));
+   }
+
+   /// Return the largest size in json of the elements of an array aggregated from the rows of the given base query.
+   private static @Nullable Integer elementMaxJsonBytes
+      (
+         BaseQuery baseQuery,
+         ArrayElements elements
+      )
+   {
+      List<SourceColumn> columns = baseQuery.resultColumns;
+      switch ( elements )
+      {
+         case ROW_OBJECTS: return JsonSizeEstimates.ofObject(columns);
+         case ROW_TUPLES: return JsonSizeEstimates.ofTuple(columns);
+         case COLUMN_VALUES: return columns.get(0).getMaxJsonBytes();
+         default: throw new RuntimeException("Unexpected array elements " + elements);
+      }
+   }
+
+   /// Return a query of the rows of the given query within the given offset and limit in the given order, or the
+   /// given query if neither is given.
+   private String limitedRowsQuery
+      (
+         String query,
+         @Nullable String orderBy,
+         @Nullable Integer offset,
+         @Nullable Integer limit,
+         QueryOptions queryOpts
+      )
+   {
+      if ( offset == null && limit == null )
+         return query;
+
+      return
+         "select\n" +
+            indent("q.*") + "\n" +
+         "from (\n" +
+            indent(query) + "\n" +
+         ") q\n" +
+         "order by " + requireNonNull(orderBy).replace(DEFAULT_TABLE_ALIAS_VAR, "q") + "\n" +
+         queryOpts.sqlDialect.getRowsLimitClause(
+            applyIfPresent(offset, String::valueOf), applyIfPresent(limit, String::valueOf)
+         );
+   }
+
+   /// Make a query aggregating the top table's row objects into json arrays of at most the query's chunk size, one per
+   /// result row, so that large results can be read an array at a time. The rows are numbered in the query's order, or
+   /// in primary key order if the query has none, to assign them to arrays, and the arrays are yielded in the same order.
+   private String jsonArrayChunkRowsSql
+      (
+         QuerySpec querySpec,
+         QueryOptions queryOpts,
+         SpecLocation specLoc
+      )
+   {
+      TableJsonSpec tableSpec = querySpec.getTableJson();
+      int chunkSize = querySpec.getJsonArrayChunkSizeOrDefault();
+      if ( chunkSize < 1 )
+         throw specError(querySpec, "jsonArrayChunkSize", "Chunk size must be positive.");
+
+      @Nullable String orderBy = querySpec.getOrderBy();
+      List<String> pkFieldNames =
+         orderBy != null ? emptyList() : dbmd.getPrimaryKeyFieldNames(identifyTable(tableSpec.getTable(), specLoc));
+      if ( orderBy == null && pkFieldNames.isEmpty() )
+         throw specError(querySpec, "orderBy",
+            "An orderBy is required for chunked json arrays of a table without a primary key.");
+      String rowsOrder =
+         orderBy != null ? orderBy.replace("$$", "q")
+         : pkFieldNames.stream().map(f -> "q." + dbmd.quoteIfNeeded(HIDDEN_PK_PREFIX + f)).collect(joining(", "));
+
+      BaseQuery baseQuery = baseQuery(tableSpec, null, null, pkFieldNames, null, queryOpts, specLoc);
+
+      String rowNum = dbmd.quoteIfNeeded(HIDDEN_PK_PREFIX + "row_num");
+      String chunkNum = "floor((q." + rowNum + " - 1) / " + chunkSize + ")";
+
       return
          "select\n" +
             indent(lineCommentAggregatedRowObjects(tableSpec)) + "\n" +
             indent(
-               (unwrap ? sqlDialect.getAggregatedColumnValuesExpression(baseQuery.resultColumnNames.get(0), orderBy, "q")
-                       : sqlDialect.getAggregatedRowObjectsExpression(baseQuery.resultColumnNames, orderBy, "q"))
+               queryOpts.sqlDialect.getResultJsonExpression(
+                  queryOpts.sqlDialect.getAggregatedRowObjectsExpression(
+                     baseQuery.resultColumns, "$$." + rowNum, "q", chunkSize
+                  )
+               )
             ) + " json\n" +
          "from (\n" +
-            indent(lineCommentBaseTableQuery(tableSpec)) + "\n" +
-            indent(baseQuery.sql) + "\n" +
-         ") q";
+            indent(
+               "select\n" +
+                  indent("q.*,\n" +
+                     "row_number() over (order by " + rowsOrder + ") " + rowNum) + "\n" +
+               "from (\n" +
+                  indent(lineCommentBaseTableQuery(tableSpec)) + "\n" +
+                  indent(baseQuery.sql) + "\n" +
+               ") q"
+            ) + "\n" +
+         ") q\n" +
+         "group by " + chunkNum + "\n" +
+         "order by " + chunkNum;
    }
 
    /** Make a query having JSON object result values at the top level of the
@@ -549,30 +1402,177 @@ public class QuerySqlGenerator
     * @param tjSpec  The output specification for this table, the subject of the query.
     * @param parentChildCond A filter condition on this table (always) from a parent or child table whose alias
     *                        (accessible from the condition) can be assumed to be in context.
-    * @return the generated SQL query
+    * @return the generated SQL query, with the largest size of its json values if bounded
     */
-   private String jsonObjectRowsSql
+   private JsonQuery jsonObjectRowsSql
       (
          TableJsonSpec tjSpec,
          @Nullable ParentChildCondition parentChildCond,
          @Nullable String orderBy,
-         Function<String, String> propNameFn,
+         QueryOptions queryOpts,
          SpecLocation specLoc
       )
    {
-      BaseQuery baseQuery = baseQuery(tjSpec, parentChildCond, false, null, propNameFn, specLoc);
+      BaseQuery baseQuery = baseQuery(tjSpec, parentChildCond, null, emptyList(), null, queryOpts, specLoc);
 
-      return
+      String sql =
          "select\n" +
             indent(lineCommentTableRowObject(tjSpec)) + "\n" +
             indent(
-               sqlDialect.getRowObjectExpression(baseQuery.resultColumnNames, "q")
+               resultJsonExpression(
+                  queryOpts.sqlDialect.getRowObjectExpression(baseQuery.resultColumns, "q"), parentChildCond, queryOpts
+               )
             ) + " json\n" +
          "from (\n" +
             indent(lineCommentBaseTableQuery(tjSpec)) + "\n" +
             indent(baseQuery.sql) + "\n" +
          ") q" +
          (orderBy != null ? "\norder by " + orderBy.replace("$$", "q") : "");
+
+      return new JsonQuery(sql, JsonSizeEstimates.ofObject(baseQuery.resultColumns));
+   }
+
+   /// Make the json object rows query for a page of the top table's rows in page key order, which for pages after the
+   /// first follow the row with the page key values bound to the after-key params. The first page has its own query
+   /// rather than a condition allowing null after-key params, since such a condition can't be used to search an
+   /// index in a plan prepared for any param values. The page key values of each row are included after its json.
+   private String jsonObjectRowsPageSql
+      (
+         TableJsonSpec tjSpec,
+         KeysetPaging keysetPaging,
+         boolean firstPage,
+         QueryOptions queryOpts,
+         SpecLocation specLoc
+      )
+   {
+      List<String> keyFieldNames = keysetPaging.getKeyFieldNames();
+      List<String> afterKeyParamNames = keysetPaging.getAfterKeyParamNames();
+      BaseQuery baseQuery = baseQuery(tjSpec, null, null, keyFieldNames, null, queryOpts, specLoc);
+
+      List<String> keyValues =
+         keyFieldNames.stream().map(f -> "q." + dbmd.quoteIfNeeded(HIDDEN_PK_PREFIX + f)).collect(toList());
+
+      List<SelectEntry> keyColumnEntries = new ArrayList<>();
+      for ( int i = 0; i < keyValues.size(); ++i )
+         keyColumnEntries.add(
+            new SelectEntry(keyValues.get(i), dbmd.quoteIfNeeded(afterKeyParamNames.get(i)), HIDDEN_PK)
+         );
+
+      return
+         "select\n" +
+            indent(lineCommentTableRowObject(tjSpec)) + "\n" +
+            indent(
+               queryOpts.sqlDialect.getResultJsonExpression(
+                  queryOpts.sqlDialect.getRowObjectExpression(baseQuery.resultColumns, "q")
+               )
+            ) + " json,\n" +
+            indent("-- page key") + "\n" +
+            indent(keyColumnEntries.stream().map(SqlParts::makeSelectClauseEntrySql).collect(joining(",\n"))) + "\n" +
+         "from (\n" +
+            indent(lineCommentBaseTableQuery(tjSpec)) + "\n" +
+            indent(baseQuery.sql) + "\n" +
+         ") q\n" +
+         (firstPage ? "" : "where " + queryOpts.sqlDialect.getKeysetCondition(keyValues, afterKeyParamNames) + "\n") +
+         "order by " + String.join(", ", keyValues) + "\n" +
+         queryOpts.sqlDialect.getRowsLimitClause(null, ":" + KeysetPaging.PAGE_SIZE_PARAM);
+   }
+
+   /// Make the json object rows query for the rows of the top table having the primary key values bound to the keys
+   /// param, each followed by its key value, for fetching the results for many keys in one execution.
+   private String jsonObjectRowsByKeysSql
+      (
+         QuerySpec querySpec,
+         QueryOptions queryOpts,
+         SpecLocation specLoc
+      )
+   {
+      TableJsonSpec tjSpec = querySpec.getTableJson();
+      RelId relId = identifyTable(tjSpec.getTable(), specLoc);
+      List<String> pkFieldNames = dbmd.getPrimaryKeyFieldNames(relId);
+      if ( pkFieldNames.size() != 1 )
+         throw specError(querySpec, "generateByKeysVariant",
+            "The by-keys query requires a top table with a single field primary key.");
+      String keyFieldName = pkFieldNames.get(0);
+      Field keyField = requireNonNull(requireNonNull(dbmd.getRelationMetadata(relId)).getField(keyFieldName));
+
+      String keysCond =
+         queryOpts.sqlDialect.getValueInParamValuesCondition(
+            DEFAULT_TABLE_ALIAS_VAR + "." + dbmd.quoteIfNeeded(keyFieldName),
+            keyField,
+            ByKeysQuery.KEYS_PARAM
+         );
+      BaseQuery baseQuery = baseQuery(tjSpec, null, keysCond, List.of(keyFieldName), null, queryOpts, specLoc);
+
+      @Nullable String orderBy = querySpec.getOrderBy();
+
+      return
+         "select\n" +
+            indent(lineCommentTableRowObject(tjSpec)) + "\n" +
+            indent(
+               queryOpts.sqlDialect.getResultJsonExpression(
+                  queryOpts.sqlDialect.getRowObjectExpression(baseQuery.resultColumns, "q")
+               )
+            ) + " json,\n" +
+            indent(
+               SqlParts.makeSelectClauseEntrySql(new SelectEntry(
+                  "q." + dbmd.quoteIfNeeded(HIDDEN_PK_PREFIX + keyFieldName),
+                  dbmd.quoteIfNeeded(ByKeysQuery.KEY_COLUMN),
+                  HIDDEN_PK
+               ))
+            ) + "\n" +
+         "from (\n" +
+            indent(lineCommentBaseTableQuery(tjSpec)) + "\n" +
+            indent(baseQuery.sql) + "\n" +
+         ") q" +
+         (orderBy != null ? "\norder by " + orderBy.replace("$$", "q") : "");
+   }
+
+   /// Determine the page key for the query's top table, which must be unique and not nullable so that the order of
+   /// the key is total.
+   private KeysetPaging keysetPaging
+      (
+         QuerySpec querySpec,
+         SpecLocation specLoc
+      )
+   {
+      RelId relId = identifyTable(querySpec.getTableJson().getTable(), specLoc);
+      RelMetadata relMd = valueOrThrow(dbmd.getRelationMetadata(relId), () ->
+         new SpecError(specLoc, "Table '" + relId + "' was not found in database metadata.")
+      );
+      List<String> pkFieldNames = dbmd.getPrimaryKeyFieldNames(relId);
+
+      @Nullable List<String> specifiedKeyFields = querySpec.getPageKeyFields();
+      if ( specifiedKeyFields == null )
+      {
+         if ( pkFieldNames.isEmpty() )
+            throw specError(querySpec, "pageKeyFields",
+               "Page key fields must be specified for a table without a primary key.");
+         return new KeysetPaging(pkFieldNames);
+      }
+
+      List<String> keyFieldNames = specifiedKeyFields.stream().map(dbmd::normalizeName).collect(toList());
+      for ( String keyFieldName : keyFieldNames )
+      {
+         @Nullable Field field = relMd.getField(keyFieldName);
+         if ( field == null )
+            throw specError(querySpec, "pageKeyFields", "Page key field '" + keyFieldName + "' was not found.");
+         if ( !Boolean.FALSE.equals(field.getNullable()) )
+            throw specError(querySpec, "pageKeyFields", "Page key field '" + keyFieldName + "' may be null.");
+      }
+
+      // Uniqueness can only be established from the primary key or from unique indexes included in the metadata.
+      List<Index> indexes = valueOr(relMd.getIndexes(), emptyList());
+      boolean unique =
+         !pkFieldNames.isEmpty() && keyFieldNames.containsAll(pkFieldNames) ||
+         indexes.stream().anyMatch(idx ->
+            idx.isUnique() && idx.getFilterCondition() == null && keyFieldNames.containsAll(idx.getFieldNames())
+         );
+      if ( !unique )
+         throw specError(querySpec, "pageKeyFields",
+            "Page key fields must include the primary key fields of the table, or the fields of a unique index " +
+            "of the table in the database metadata (which must be generated with include-indexes).");
+
+      return new KeysetPaging(keyFieldNames);
    }
 
    private @Nullable String recordConditionSql
@@ -662,12 +1662,38 @@ public class QuerySqlGenerator
       return "-- aggregated row objects builder for table '" + tableSpec.getTable() + "'";
    }
 
+   private static String lineCommentAggregatedElements(TableJsonSpec tableSpec, ArrayElements elements)
+   {
+      return
+         elements == ROW_TUPLES ? "-- aggregated row tuples builder for table '" + tableSpec.getTable() + "'"
+         : lineCommentAggregatedRowObjects(tableSpec);
+   }
+
    private static String lineCommentChildCollectionSelectExpression(ChildCollectionSpec childSpec)
    {
       return "-- records from child table '" + childSpec.getTableJson().getTable() + "'" +
          " as collection '" + childSpec.getCollectionName() + "'";
    }
 
+   private static String lineCommentJoinToChildCollection(ChildCollectionSpec childSpec)
+   {
+      return
+         "-- child table '" + childSpec.getTableJson().getTable() + "'" +
+         ", aggregated in lateral join for collection '" + childSpec.getCollectionName() + "'";
+   }
+
+   private static String lineCommentJoinToPreaggregatedChildCollection(ChildCollectionSpec childSpec)
+   {
+      return
+         "-- child table '" + childSpec.getTableJson().getTable() + "'" +
+         ", aggregated by parent and joined for collection '" + childSpec.getCollectionName() + "'";
+   }
+
+   private static String lineCommentChosenStrategy(JoinStrategyChooser.Choice<?> choice)
+   {
+      return "-- strategy " + choice.strategy + " chosen from statistics: " + choice.basis;
+   }
+
    private static String lineCommentJoinToParent(ParentSpec parentSpec)
    {
       return
@@ -675,6 +1701,13 @@ public class QuerySqlGenerator
          ", joined for inlined fields";
    }
 
+   private static String lineCommentJoinToReferencedParent(ParentSpec parentSpec)
+   {
+      return
+         "-- parent table '" + parentSpec.getTableJson().getTable() + "'" +
+         ", joined for reference '" + parentSpec.getReferenceName() + "'";
+   }
+
    private static String lineCommentInlineParentFieldsBegin(ParentSpec parentSpec)
    {
       return "-- field(s) inlined from parent table '" + parentSpec.getTableJson().getTable() + "'";
@@ -697,15 +1730,102 @@ public class QuerySqlGenerator
    // utility types
    ///////////////////////////////////////////////////
 
+   /// The form of the elements of a json array aggregated from the rows of a query.
+   enum ArrayElements
+   {
+      ROW_OBJECTS,
+      ROW_TUPLES, // arrays of the row's values in the property order of its result type
+      COLUMN_VALUES // values of the query's single column
+   }
+
+   /// Options which apply throughout the generation of one query.
+   private static class QueryOptions
+   {
+      final Function<String,String> propNameFn;
+      final @Nullable ChildCollectionStrategy childCollectionStrategy; // for child collections not specifying one
+      final @Nullable ChildCollectionEncoding childCollectionEncoding; // for child collections not specifying one
+      final boolean compactPropertyKeys;
+      final @Nullable ReferencedParentStrategy referencedParentStrategy; // for referenced parents not specifying one
+      final JoinStrategyChooser strategyChooser; // for joins whose strategy is not specified
+      final SqlDialect sqlDialect; // building json values of the query's json type
+      final SharedSubqueries sharedSubqueries;
+      // Property names in result type order by table spec, computed as needed for tuples or compact property keys.
+      final Map<TableJsonSpec,List<String>> propertyNamesBySpec;
+
+      QueryOptions
+         (
+            Function<String,String> propNameFn,
+            @Nullable ChildCollectionStrategy childCollectionStrategy,
+            @Nullable ChildCollectionEncoding childCollectionEncoding,
+            boolean compactPropertyKeys,
+            @Nullable ReferencedParentStrategy referencedParentStrategy,
+            JoinStrategyChooser strategyChooser,
+            SqlDialect sqlDialect,
+            SharedSubqueries sharedSubqueries
+         )
+      {
+         this(
+            propNameFn, childCollectionStrategy, childCollectionEncoding, compactPropertyKeys, referencedParentStrategy,
+            strategyChooser, sqlDialect, sharedSubqueries, new IdentityHashMap<>()
+         );
+      }
+
+      private QueryOptions
+         (
+            Function<String,String> propNameFn,
+            @Nullable ChildCollectionStrategy childCollectionStrategy,
+            @Nullable ChildCollectionEncoding childCollectionEncoding,
+            boolean compactPropertyKeys,
+            @Nullable ReferencedParentStrategy referencedParentStrategy,
+            JoinStrategyChooser strategyChooser,
+            SqlDialect sqlDialect,
+            SharedSubqueries sharedSubqueries,
+            Map<TableJsonSpec,List<String>> propertyNamesBySpec
+         )
+      {
+         this.propNameFn = propNameFn;
+         this.childCollectionStrategy = childCollectionStrategy;
+         this.childCollectionEncoding = childCollectionEncoding;
+         this.compactPropertyKeys = compactPropertyKeys;
+         this.referencedParentStrategy = referencedParentStrategy;
+         this.strategyChooser = strategyChooser;
+         this.sqlDialect = sqlDialect;
+         this.sharedSubqueries = sharedSubqueries;
+         this.propertyNamesBySpec = propertyNamesBySpec;
+      }
+
+      QueryOptions withSharedSubqueries(SharedSubqueries sharedSubqueries)
+      {
+         return
+            new QueryOptions(
+               propNameFn, childCollectionStrategy, childCollectionEncoding, compactPropertyKeys,
+               referencedParentStrategy, strategyChooser, sqlDialect, sharedSubqueries, propertyNamesBySpec
+            );
+      }
+   }
+
+   /// A query of json values, with the largest size of the values in json if bounded.
+   private static class JsonQuery
+   {
+      final String sql;
+      final @Nullable Integer maxJsonBytes;
+
+      JsonQuery(String sql, @Nullable Integer maxJsonBytes)
+      {
+         this.sql = sql;
+         this.maxJsonBytes = maxJsonBytes;
+      }
+   }
+
    private static class BaseQuery
    {
       final String sql;
-      final List<String> resultColumnNames;
+      final List<SourceColumn> resultColumns;
 
-      BaseQuery(String sql, List<String> resultColumnNames)
+      BaseQuery(String sql, List<SourceColumn> resultColumns)
       {
          this.sql = sql;
-         this.resultColumnNames = List.copyOf(resultColumnNames);
+         this.resultColumns = List.copyOf(resultColumns);
       }
    }
 
@@ -739,6 +1859,11 @@ public class QuerySqlGenerator
 
       public String getOtherTableAlias() { return childAlias; }
 
+      List<String> getParentFieldNames()
+      {
+         return matchedFields.stream().map(ForeignKey.Component::getPrimaryKeyFieldName).collect(toList());
+      }
+
       public String asEquationConditionOn
          (
             String parentAlias,
@@ -783,15 +1908,30 @@ public class QuerySqlGenerator
 
       public String getOtherTableAlias() { return parentAlias; }
 
+      List<String> getChildFieldNames()
+      {
+         return matchedFields.stream().map(ForeignKey.Component::getForeignKeyFieldName).collect(toList());
+      }
+
       public String asEquationConditionOn
          (
             String childAlias,
             DatabaseMetadata dbmd
          )
+      {
+         return asEquationConditionOn(childAlias, dbmd, "");
+      }
+
+      public String asEquationConditionOn
+         (
+            String childAlias,
+            DatabaseMetadata dbmd,
+            String childFkPrefix
+         )
       {
          return
             matchedFields.stream()
-               .map(mf -> childAlias + "." + dbmd.quoteIfNeeded(mf.getForeignKeyFieldName()) + " = " +
+               .map(mf -> childAlias + "." + dbmd.quoteIfNeeded(childFkPrefix + mf.getForeignKeyFieldName()) + " = " +
                   parentAlias + "." + dbmd.quoteIfNeeded(mf.getPrimaryKeyFieldName()))
                .collect(joining(" and "));
       }
@@ -805,6 +1945,8 @@ public class QuerySqlGenerator
       private final String name;
       private final Source source;
       private final @Nullable String comment;
+      private final boolean json; // whether the values are json text, as for parent references and child collections
+      private final @Nullable Integer maxJsonBytes; // largest size of the values in json, if bounded
 
       public SelectEntry(String valueExpression, String name, Source source) { this(valueExpression, name, source, null); }
       public SelectEntry
@@ -814,11 +1956,28 @@ public class QuerySqlGenerator
             Source source,
             @Nullable String comment
          )
+      {
+         this(
+            valueExpression, name, source, comment,
+            source == Source.PARENT_REFERENCE || source == Source.CHILD_COLLECTION, null
+         );
+      }
+      public SelectEntry
+         (
+            String valueExpression,
+            String name,
+            Source source,
+            @Nullable String comment,
+            boolean json,
+            @Nullable Integer maxJsonBytes
+         )
       {
          this.valueExpression = valueExpression;
          this.name = name;
          this.source = source;
          this.comment = comment;
+         this.json = json;
+         this.maxJsonBytes = maxJsonBytes;
       }
 
       String getValueExpression() { return valueExpression; }
@@ -827,7 +1986,13 @@ public class QuerySqlGenerator
 
       Source getSource() { return source; }
 
+      boolean isJson() { return json; }
+
+      @Nullable Integer getMaxJsonBytes() { return maxJsonBytes; }
+
       @Nullable String getComment() { return comment; }
+
+      SourceColumn toSourceColumn() { return new SourceColumn(name, json, maxJsonBytes); }
    }
 
    private static class SqlParts
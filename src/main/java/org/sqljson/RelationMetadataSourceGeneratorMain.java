@@ -7,15 +7,13 @@ import java.nio.file.Paths;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
-import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
-
 import org.sqljson.source_code_writers.SourceCodeLanguage;
 import org.sqljson.util.AppUtils.SplitArgs;
+import org.sqljson.util.IO;
 import static org.sqljson.util.AppUtils.splitOptionsAndRequiredArgs;
 import static org.sqljson.util.AppUtils.throwError;
 import static org.sqljson.util.Nullables.ifPresent;
+import static org.sqljson.util.Serialization.getObjectMapper;
 import org.sqljson.dbmd.DatabaseMetadata;
 import org.sqljson.dbmd.source_writers.JavaWriter;
 import org.sqljson.dbmd.source_writers.SourceCodeWriter;
@@ -68,12 +66,9 @@ public class RelationMetadataSourceGeneratorMain
 
       @Nullable Path outputDir = args.required.size() > 1 ? Paths.get(args.required.get(1)) : null;
 
-      try ( var dbmdIS = Files.newInputStream(dbmdPath) )
+      try ( var dbmdIS = IO.inputStream(dbmdPath) )
       {
-         ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
-         yamlMapper.registerModule(new Jdk8Module());
-
-         DatabaseMetadata dbmd = yamlMapper.readValue(dbmdIS, DatabaseMetadata.class);
+         DatabaseMetadata dbmd = getObjectMapper(dbmdPath).readValue(dbmdIS, DatabaseMetadata.class);
 
          ifPresent(outputDir, path ->  {
             if ( !Files.isDirectory(path) ) throwError("Source output directory not found.");
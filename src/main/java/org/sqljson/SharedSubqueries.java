@@ -0,0 +1,118 @@
+package org.sqljson;
+
+import java.util.*;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import org.sqljson.query_specs.SharedSubqueryMode;
+import org.sqljson.sql_dialects.SqlDialect;
+import org.sqljson.util.StringFuns;
+
+
+/// Subqueries of a query which are independent of their enclosing queries, and so may be shared via a with clause
+/// where repeated. A query is generated first with a collecting instance, which records the subquery occurring at each
+/// spec part, then if any subquery was repeated it's generated again with the sharing instance derived from it, which
+/// names each repeated subquery as a common table expression to be referenced in place of the subquery.
+final class SharedSubqueries
+{
+   private final SharedSubqueryMode mode;
+   private final SqlDialect sqlDialect;
+
+   // Subquery sql as first generated, by the query spec part which it was generated for.
+   private final Map<Object,String> subqueriesBySpecPart;
+
+   // Subqueries generated more than once as first generated, if this instance is sharing, else null if collecting.
+   private final @Nullable Set<String> repeatedSubqueries;
+
+   // Common table expression names and definitions in order of definition, by subquery sql as first generated.
+   private final Map<String,String> cteNamesBySubquery;
+   private final List<String> cteDefinitions;
+
+   SharedSubqueries
+      (
+         SharedSubqueryMode mode,
+         SqlDialect sqlDialect
+      )
+   {
+      this(mode, sqlDialect, new IdentityHashMap<>(), null);
+   }
+
+   private SharedSubqueries
+      (
+         SharedSubqueryMode mode,
+         SqlDialect sqlDialect,
+         Map<Object,String> subqueriesBySpecPart,
+         @Nullable Set<String> repeatedSubqueries
+      )
+   {
+      this.mode = mode;
+      this.sqlDialect = sqlDialect;
+      this.subqueriesBySpecPart = subqueriesBySpecPart;
+      this.repeatedSubqueries = repeatedSubqueries;
+      this.cteNamesBySubquery = new HashMap<>();
+      this.cteDefinitions = new ArrayList<>();
+   }
+
+   /// Return the name of the common table expression to be referenced in place of the given subquery generated for the
+   /// given spec part, defining the common table expression if needed, or null if the subquery is not shared.
+   /// Subqueries generated within the given subquery must already have been passed to this method, so that their
+   /// common table expressions are defined before any that use them.
+   @Nullable String sharedSubqueryName
+      (
+         Object specPart,
+         String subquery,
+         String nameBase
+      )
+   {
+      if ( mode == SharedSubqueryMode.NONE )
+         return null;
+
+      if ( repeatedSubqueries == null ) // collecting
+      {
+         subqueriesBySpecPart.put(specPart, subquery);
+         return null;
+      }
+
+      // The subquery as first generated identifies it, since its sql may now refer to other shared subqueries.
+      @Nullable String firstSubquery = subqueriesBySpecPart.get(specPart);
+      if ( firstSubquery == null || !repeatedSubqueries.contains(firstSubquery) )
+         return null;
+
+      @Nullable String existingName = cteNamesBySubquery.get(firstSubquery);
+      if ( existingName != null )
+         return existingName;
+
+      String name = StringFuns.makeNameNotInSet("shared_" + nameBase, new HashSet<>(cteNamesBySubquery.values()));
+      cteNamesBySubquery.put(firstSubquery, name);
+      @Nullable Boolean materialized =
+         mode == SharedSubqueryMode.MATERIALIZED_CTE ? Boolean.TRUE
+         : mode == SharedSubqueryMode.NOT_MATERIALIZED_CTE ? Boolean.FALSE
+         : null;
+      cteDefinitions.add(sqlDialect.getCommonTableExpression(name, subquery, materialized));
+      return name;
+   }
+
+   /// Return an instance for generating the query again sharing its repeated subqueries, or null if there are none.
+   @Nullable SharedSubqueries forSharingRepeatedSubqueries()
+   {
+      Set<String> seen = new HashSet<>();
+      Set<String> repeated = new HashSet<>();
+      for ( String subquery : subqueriesBySpecPart.values() )
+         if ( !seen.add(subquery) )
+            repeated.add(subquery);
+
+      return repeated.isEmpty() ? null : new SharedSubqueries(mode, sqlDialect, subqueriesBySpecPart, repeated);
+   }
+
+   /// Return the given query with a with clause defining the shared subqueries referenced in it.
+   String withSharedSubqueries(String query)
+   {
+      if ( cteDefinitions.isEmpty() )
+         return query;
+
+      return
+         "with\n" +
+         String.join(",\n", cteDefinitions) + "\n" +
+         query;
+   }
+}
@@ -0,0 +1,79 @@
+package org.sqljson;
+
+import java.util.List;
+import java.util.Objects;
+import static java.util.stream.Collectors.joining;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import org.sqljson.dbmd.DatabaseMetadata;
+import static org.sqljson.dbmd.CaseSensitivity.INSENSITIVE_STORED_UPPER;
+import org.sqljson.dbmd.RelId;
+
+
+/// A parent/child join condition in a generated query which filters a table on fields that are not the leading fields
+/// of any index on the table, so that each evaluation of the condition may require a scan of the table.
+public class UnindexedJoinCondition
+{
+   private static final int MAX_INDEX_NAME_LENGTH = 30;
+
+   private final String queryName;
+   private final String queryPart;
+   private final RelId relationId; // the table filtered by the join condition
+   private final List<String> fieldNames;
+
+   public UnindexedJoinCondition
+      (
+         String queryName,
+         String queryPart,
+         RelId relationId,
+         List<String> fieldNames
+      )
+   {
+      this.queryName = queryName;
+      this.queryPart = queryPart;
+      this.relationId = relationId;
+      this.fieldNames = List.copyOf(fieldNames);
+   }
+
+   public String getQueryName() { return queryName; }
+
+   public String getQueryPart() { return queryPart; }
+
+   public RelId getRelationId() { return relationId; }
+
+   public List<String> getFieldNames() { return fieldNames; }
+
+   /// Suggested DDL for an index supporting the join condition.
+   public String getCreateIndexSql(DatabaseMetadata dbmd)
+   {
+      String idxName = relationId.getName() + "_" + String.join("_", fieldNames);
+      if ( idxName.length() > MAX_INDEX_NAME_LENGTH - 3 )
+         idxName = idxName.substring(0, MAX_INDEX_NAME_LENGTH - 3);
+      idxName += dbmd.getCaseSensitivity() == INSENSITIVE_STORED_UPPER ? "_IX" : "_ix";
+
+      return
+         "create index " + dbmd.quoteIfNeeded(idxName) + " on " + relationId.getIdString() +
+         " (" + fieldNames.stream().map(dbmd::quoteIfNeeded).collect(joining(", ")) + ");";
+   }
+
+   public boolean equals(@Nullable Object other)
+   {
+      if ( !(other instanceof UnindexedJoinCondition) )
+         return false;
+      else
+      {
+         UnindexedJoinCondition o = (UnindexedJoinCondition)other;
+         return
+            queryName.equals(o.queryName) &&
+            queryPart.equals(o.queryPart) &&
+            relationId.equals(o.relationId) &&
+            fieldNames.equals(o.fieldNames);
+      }
+   }
+
+   public int hashCode()
+   {
+      return Objects.hash(queryName, queryPart, relationId, fieldNames);
+   }
+}
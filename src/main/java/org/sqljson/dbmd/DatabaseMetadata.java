@@ -5,6 +5,7 @@ import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
@@ -38,12 +39,10 @@ public class DatabaseMetadata
    private static final Predicate<String> uc_ = Pattern.compile("^[A-Z_]+$").asPredicate();
 
    // derived data
-   // Access these only via methods of the same name, which make sure these fields are initialized.
-   private @MonotonicNonNull Map<RelId, RelMetadata> relMDsByRelId;
-
-   private @MonotonicNonNull Map<RelId, List<ForeignKey>> fksByParentRelId;
-
-   private @MonotonicNonNull Map<RelId, List<ForeignKey>> fksByChildRelId;
+   // Access only via derivedData(), which makes sure this field is initialized. The derived data is immutable, and is
+   // built in the constructor or else, for an instance made by deserialization, on first access. The field is volatile
+   // so that an instance can be shared between threads, where concurrent first accesses may each build equal data.
+   private volatile @MonotonicNonNull DerivedData derivedData;
 
    public DatabaseMetadata
       (
@@ -59,6 +58,7 @@ public class DatabaseMetadata
       this.caseSensitivity = requireNonNull(caseSensitivity);
       this.dbmsName = requireNonNull(dbmsName);
       this.dbmsVersion = requireNonNull(dbmsVersion);
+      this.derivedData = new DerivedData(this.relationMetadatas, this.foreignKeys);
    }
 
    DatabaseMetadata()
@@ -82,7 +82,18 @@ public class DatabaseMetadata
 
    public @Nullable RelMetadata getRelationMetadata(RelId relId)
    {
-      return relMDsByRelId().get(relId);
+      return derivedData().relMdsByRelId.get(relId);
+   }
+
+   /// Return the field of the given relation having the given name after normalization, or null if not found.
+   public @Nullable Field getField
+      (
+         RelId relId,
+         String fieldName
+      )
+   {
+      @Nullable RelMetadata relMd = getRelationMetadata(relId);
+      return relMd != null ? relMd.getField(normalizeName(fieldName)) : null;
    }
 
    public List<String> getPrimaryKeyFieldNames
@@ -108,30 +119,17 @@ public class DatabaseMetadata
          ForeignKeyScope fkScope
       )
    {
-      List<ForeignKey> res = new ArrayList<>();
+      DerivedData dd = derivedData();
+      ForeignKeysIndex fksIndex = fkScope == ForeignKeyScope.REGISTERED_TABLES_ONLY ? dd.registeredFks : dd.allFks;
 
       if ( childRelId == null && parentRelId == null )
-         res.addAll(foreignKeys);
+         return fksIndex.fks;
       else if ( childRelId != null && parentRelId != null )
-      {
-         res.addAll(fksByChildRelId(childRelId));
-         res.retainAll(fksByParentRelId(parentRelId));
-      }
-      else
-         res.addAll(childRelId != null ? fksByChildRelId(childRelId) : fksByParentRelId(requireNonNull(parentRelId)));
-
-      if ( fkScope == ForeignKeyScope.REGISTERED_TABLES_ONLY )
-      {
-         return
-            res.stream()
-            .filter(fk ->
-               getRelationMetadata(fk.getForeignKeyRelationId()) != null &&
-               getRelationMetadata(fk.getPrimaryKeyRelationId()) != null
-            )
-            .collect(toList());
-      }
+         return fksIndex.fksByChildAndParent(childRelId, parentRelId);
+      else if ( childRelId != null )
+         return valueOr(fksIndex.fksByChildRelId.get(childRelId), emptyList());
       else
-         return res;
+         return valueOr(fksIndex.fksByParentRelId.get(requireNonNull(parentRelId)), emptyList());
    }
 
    /** Return a single foreign key between the passed tables, having the specified field names if specified,
@@ -171,7 +169,7 @@ public class DatabaseMetadata
    /////////////////////////////////////////////////////////
    // Sorting for deterministic output
 
-   private static List<RelMetadata> sortedMds(List<RelMetadata> relMds)
+   static List<RelMetadata> sortedMds(List<RelMetadata> relMds)
    {
       List<RelMetadata> rmds = new ArrayList<>(relMds);
 
@@ -183,7 +181,7 @@ public class DatabaseMetadata
    /**
     * Return a new copy of the input list, with its foreign keys sorted by source and target relation names and source and target field names.
     */
-   private static List<ForeignKey> sortedFks(List<ForeignKey> foreignKeys)
+   static List<ForeignKey> sortedFks(List<ForeignKey> foreignKeys)
    {
       List<ForeignKey> fks = new ArrayList<>(foreignKeys);
 
@@ -230,51 +228,110 @@ public class DatabaseMetadata
 
 
    /////////////////////////////////////////////////////////
-   // Derived data accessor methods
+   // Derived data
 
-   private Map<RelId, RelMetadata> relMDsByRelId()
+   private DerivedData derivedData()
    {
-      if ( relMDsByRelId == null )
-         initDerivedData();
+      @Nullable DerivedData dd = derivedData;
 
-      return requireNonNull(relMDsByRelId);
+      if ( dd == null )
+      {
+         dd = new DerivedData(relationMetadatas, foreignKeys);
+         derivedData = dd;
+      }
+
+      return dd;
    }
 
-   private List<ForeignKey> fksByParentRelId(RelId relId)
+   private static final class DerivedData
    {
-      if ( fksByParentRelId == null )
-         initDerivedData();
+      final Map<RelId, RelMetadata> relMdsByRelId;
 
-      return valueOr(requireNonNull(fksByParentRelId).get(relId), emptyList());
-   }
+      final ForeignKeysIndex allFks;
 
-   private List<ForeignKey> fksByChildRelId(RelId relId)
-   {
-      if ( fksByChildRelId == null )
-         initDerivedData();
+      // Foreign keys whose child and parent relations both have metadata here.
+      final ForeignKeysIndex registeredFks;
 
-      return valueOr(requireNonNull(fksByChildRelId).get(relId), emptyList());
+      DerivedData
+         (
+            List<RelMetadata> relMds,
+            List<ForeignKey> fks
+         )
+      {
+         Map<RelId, RelMetadata> relMdsByRelId = new HashMap<>();
+
+         for ( RelMetadata relMd : relMds )
+            relMdsByRelId.put(relMd.getRelationId(), relMd);
+
+         this.relMdsByRelId = unmodifiableMap(relMdsByRelId);
+         this.allFks = new ForeignKeysIndex(fks);
+         this.registeredFks =
+            new ForeignKeysIndex(
+               fks.stream()
+               .filter(fk ->
+                  relMdsByRelId.containsKey(fk.getForeignKeyRelationId()) &&
+                  relMdsByRelId.containsKey(fk.getPrimaryKeyRelationId())
+               )
+               .collect(toList())
+            );
+      }
    }
 
-   private void initDerivedData()
+   private static final class ForeignKeysIndex
    {
-      relMDsByRelId = new HashMap<>();
-      fksByParentRelId = new HashMap<>();
-      fksByChildRelId = new HashMap<>();
+      final List<ForeignKey> fks;
+
+      final Map<RelId, List<ForeignKey>> fksByChildRelId;
+
+      final Map<RelId, List<ForeignKey>> fksByParentRelId;
 
-      for ( RelMetadata relMd : relationMetadatas)
-         relMDsByRelId.put(relMd.getRelationId(), relMd);
+      // Foreign keys by child relation id and then by parent relation id.
+      final Map<RelId, Map<RelId, List<ForeignKey>>> fksByChildAndParentRelIds;
 
-      for ( ForeignKey fk : foreignKeys )
+      ForeignKeysIndex(List<ForeignKey> fks)
       {
-         RelId srcRelId = fk.getForeignKeyRelationId();
-         RelId tgtRelId = fk.getPrimaryKeyRelationId();
+         Map<RelId, List<ForeignKey>> byChild = new HashMap<>();
+         Map<RelId, List<ForeignKey>> byParent = new HashMap<>();
+         Map<RelId, Map<RelId, List<ForeignKey>>> byChildAndParent = new HashMap<>();
 
-         List<ForeignKey> fksFromChild = fksByChildRelId.computeIfAbsent(srcRelId, k -> new ArrayList<>());
-         fksFromChild.add(fk);
+         for ( ForeignKey fk : fks )
+         {
+            RelId childRelId = fk.getForeignKeyRelationId();
+            RelId parentRelId = fk.getPrimaryKeyRelationId();
+
+            byChild.computeIfAbsent(childRelId, k -> new ArrayList<>()).add(fk);
+            byParent.computeIfAbsent(parentRelId, k -> new ArrayList<>()).add(fk);
+            byChildAndParent
+               .computeIfAbsent(childRelId, k -> new HashMap<>())
+               .computeIfAbsent(parentRelId, k -> new ArrayList<>())
+               .add(fk);
+         }
+
+         this.fks = unmodifiableList(new ArrayList<>(fks));
+         this.fksByChildRelId = immutableListsMap(byChild);
+         this.fksByParentRelId = immutableListsMap(byParent);
+         Map<RelId, Map<RelId, List<ForeignKey>>> immByChildAndParent = new HashMap<>();
+         byChildAndParent.forEach((childRelId, fksByParent) ->
+            immByChildAndParent.put(childRelId, immutableListsMap(fksByParent))
+         );
+         this.fksByChildAndParentRelIds = unmodifiableMap(immByChildAndParent);
+      }
 
-         List<ForeignKey> fksToParent = fksByParentRelId.computeIfAbsent(tgtRelId, k -> new ArrayList<>());
-         fksToParent.add(fk);
+      List<ForeignKey> fksByChildAndParent
+         (
+            RelId childRelId,
+            RelId parentRelId
+         )
+      {
+         @Nullable Map<RelId, List<ForeignKey>> fksByParent = fksByChildAndParentRelIds.get(childRelId);
+         return fksByParent != null ? valueOr(fksByParent.get(parentRelId), emptyList()) : emptyList();
+      }
+
+      private static Map<RelId, List<ForeignKey>> immutableListsMap(Map<RelId, List<ForeignKey>> m)
+      {
+         Map<RelId, List<ForeignKey>> res = new HashMap<>();
+         m.forEach((relId, fks) -> res.put(relId, unmodifiableList(fks)));
+         return unmodifiableMap(res);
       }
    }
 
@@ -2,16 +2,22 @@ package org.sqljson.dbmd;
 
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.Pattern;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
 import static java.util.Objects.requireNonNull;
 import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import org.sqljson.util.StringFuns;
 import org.sqljson.dbmd.RelMetadata.RelType;
+import org.sqljson.sql_dialects.SqlDialect;
+import static org.sqljson.util.Nullables.valueOr;
 import static org.sqljson.dbmd.RelMetadata.RelType.Table;
 import static org.sqljson.dbmd.RelMetadata.RelType.View;
 
@@ -26,6 +32,23 @@ public class DatabaseMetadataFetcher
       this.dateMapping = mapping;
    }
 
+   /// Return a fetcher for the given database which queries the database's own catalog tables directly where
+   /// supported for the database type, else the generic fetcher which works through the JDBC metadata calls.
+   public static DatabaseMetadataFetcher forDatabase
+      (
+         DatabaseMetaData dbmd,
+         DateMapping mapping
+      )
+      throws SQLException
+   {
+      switch ( SqlDialect.getDbmsType(dbmd.getDatabaseProductName()) )
+      {
+         case PG: return new PostgresMetadataFetcher(mapping);
+         case ORA: return new OracleMetadataFetcher(mapping);
+         default: return new DatabaseMetadataFetcher(mapping);
+      }
+   }
+
    public DatabaseMetadata fetchMetadata
       (
          DatabaseMetaData dbmd,
@@ -33,6 +56,8 @@ public class DatabaseMetadataFetcher
          boolean includeTables,
          boolean includeViews,
          boolean includeFks,
+         boolean includeIndexes,
+         boolean includeStatistics,
          @Nullable Pattern excludeRelsPat
       )
       throws SQLException
@@ -45,6 +70,12 @@ public class DatabaseMetadataFetcher
 
       List<RelMetadata> relMds = fetchRelationMetadatas(relDescrs, nSchema, dbmd);
 
+      if ( includeIndexes )
+         relMds = withIndexes(relMds, fetchIndexes(relDescrs, nSchema, dbmd));
+
+      if ( includeStatistics )
+         relMds = withStatistics(relMds, fetchRelationStatistics(dbmd, nSchema));
+
       List<ForeignKey> fks = includeFks ? fetchForeignKeys(nSchema, dbmd, excludeRelsPat) : emptyList();
 
       String dbmsName = dbmd.getDatabaseProductName();
@@ -53,6 +84,402 @@ public class DatabaseMetadataFetcher
       return new DatabaseMetadata(relMds, fks, caseSens, dbmsName, dbmsVer);
    }
 
+   /// Fetch metadata as fetchMetadata() does, but writing each relation's metadata to the given writer as it is fetched
+   /// rather than accumulating the metadata for all relations in memory. The relations are fetched in batches of at
+   /// most getRelationMetadataBatchSize() relations, in the sorted order required by the writer.
+   public void fetchMetadata
+      (
+         DatabaseMetaData dbmd,
+         @Nullable String schema,
+         boolean includeTables,
+         boolean includeViews,
+         boolean includeFks,
+         boolean includeIndexes,
+         boolean includeStatistics,
+         @Nullable Pattern excludeRelsPat,
+         DatabaseMetadataWriter writer
+      )
+      throws SQLException
+   {
+      CaseSensitivity caseSens = getDatabaseCaseSensitivity(dbmd);
+
+      @Nullable String nSchema = schema != null ? normalizeDatabaseIdentifier(schema, caseSens) : null;
+
+      List<RelDescr> relDescrs =
+         new ArrayList<>(fetchRelationDescriptions(dbmd, nSchema, includeTables, includeViews, excludeRelsPat));
+
+      relDescrs.sort(Comparator.comparing(relDescr -> relDescr.getRelationId().getIdString()));
+
+      writer.writeStart(dbmd.getDatabaseProductName(), dbmd.getDatabaseProductVersion(), caseSens);
+
+      @Nullable Map<RelId,RelStatistics> stats = includeStatistics ? fetchRelationStatistics(dbmd, nSchema) : null;
+
+      int batchSize = getRelationMetadataBatchSize();
+
+      for ( int batchStart = 0; batchStart < relDescrs.size(); batchStart += batchSize )
+      {
+         List<RelDescr> batchRelDescrs =
+            relDescrs.subList(batchStart, Math.min(batchStart + batchSize, relDescrs.size()));
+
+         List<RelMetadata> relMds = withStatistics(fetchRelationMetadatas(batchRelDescrs, nSchema, dbmd), stats);
+
+         if ( includeIndexes )
+            relMds = withIndexes(relMds, fetchIndexes(batchRelDescrs, nSchema, dbmd));
+
+         for ( RelMetadata relMd : DatabaseMetadata.sortedMds(relMds) )
+            writer.writeRelationMetadata(relMd);
+      }
+
+      writer.writeEnd(includeFks ? fetchForeignKeys(nSchema, dbmd, excludeRelsPat) : emptyList());
+   }
+
+   /// The maximum number of relations for which metadata is fetched at once when writing metadata as it is fetched.
+   /// The generic fetcher reads columns for the whole schema in one pass, so fetches all relations in one batch.
+   protected int getRelationMetadataBatchSize()
+   {
+      return Integer.MAX_VALUE;
+   }
+
+   /// Fetch metadata as fetchMetadata() does, but recording change markers for the relations where the database type
+   /// supports them, and reusing relation metadata from the given previous metadata for any relations whose change
+   /// markers are unchanged. Foreign keys are only re-fetched if any relation in the schema was added, removed or
+   /// changed.
+   public DatabaseMetadata refreshMetadata
+      (
+         DatabaseMetaData dbmd,
+         @Nullable DatabaseMetadata prevDbmd,
+         @Nullable String schema,
+         boolean includeTables,
+         boolean includeViews,
+         boolean includeFks,
+         boolean includeIndexes,
+         boolean includeStatistics,
+         @Nullable Pattern excludeRelsPat
+      )
+      throws SQLException
+   {
+      CaseSensitivity caseSens = getDatabaseCaseSensitivity(dbmd);
+
+      @Nullable String nSchema = schema != null ? normalizeDatabaseIdentifier(schema, caseSens) : null;
+
+      List<RelDescr> relDescrs = fetchRelationDescriptions(dbmd, nSchema, includeTables, includeViews, excludeRelsPat);
+
+      // Markers are fetched before any relation metadata, so a concurrent change can only cause an extra re-fetch later.
+      @Nullable Map<RelId,String> changeMarkers = fetchRelationChangeMarkers(dbmd, nSchema);
+
+      List<RelMetadata> relMds = new ArrayList<>();
+      List<RelDescr> changedRelDescrs = new ArrayList<>();
+
+      for ( RelDescr relDescr : relDescrs )
+      {
+         RelId relId = relDescr.getRelationId();
+         @Nullable String changeMarker = changeMarkers != null ? changeMarkers.get(relId) : null;
+         @Nullable RelMetadata prevRelMd = prevDbmd != null ? prevDbmd.getRelationMetadata(relId) : null;
+
+         if ( changeMarker != null && prevRelMd != null && changeMarker.equals(prevRelMd.getChangeMarker()) &&
+              prevRelMd.getRelationType() == relDescr.getRelationType() )
+            relMds.add(prevRelMd);
+         else
+            changedRelDescrs.add(relDescr);
+      }
+
+      if ( !changedRelDescrs.isEmpty() )
+      {
+         for ( RelMetadata relMd : fetchRelationMetadatas(changedRelDescrs, nSchema, dbmd) )
+         {
+            @Nullable String changeMarker = changeMarkers != null ? changeMarkers.get(relMd.getRelationId()) : null;
+            relMds.add(relMd.withChangeMarker(changeMarker));
+         }
+      }
+
+      // Indexes and statistics aren't covered by the change markers, so are always re-fetched, including for reused
+      // relations.
+      relMds = withIndexes(relMds, includeIndexes ? fetchIndexes(relDescrs, nSchema, dbmd) : null);
+      relMds = withStatistics(relMds, includeStatistics ? fetchRelationStatistics(dbmd, nSchema) : null);
+
+      List<ForeignKey> fks;
+      if ( !includeFks )
+         fks = emptyList();
+      else if ( prevDbmd == null || !changedRelDescrs.isEmpty() || relationsRemoved(prevDbmd, relDescrs, nSchema) )
+         fks = fetchForeignKeys(nSchema, dbmd, excludeRelsPat);
+      else
+         fks = prevDbmd.getForeignKeys().stream().filter(fk -> inSchema(fk.getForeignKeyRelationId(), nSchema)).collect(toList());
+
+      String dbmsName = dbmd.getDatabaseProductName();
+      String dbmsVer = dbmd.getDatabaseProductVersion();
+
+      return new DatabaseMetadata(relMds, fks, caseSens, dbmsName, dbmsVer);
+   }
+
+   private static boolean relationsRemoved
+      (
+         DatabaseMetadata prevDbmd,
+         List<RelDescr> relDescrs,
+         @Nullable String schema
+      )
+   {
+      Set<RelId> relIds = relDescrs.stream().map(RelDescr::getRelationId).collect(toSet());
+
+      return
+         prevDbmd.getRelationMetadatas().stream()
+         .anyMatch(relMd -> inSchema(relMd.getRelationId(), schema) && !relIds.contains(relMd.getRelationId()));
+   }
+
+   private static boolean inSchema(RelId relId, @Nullable String schema)
+   {
+      return schema == null || schema.equals(relId.getSchema());
+   }
+
+   /// Fetch change markers for the relations in the given schema, by relation id, or return null if change markers
+   /// are not supported for the database. A relation's change marker is an opaque value that changes whenever any of
+   /// the relation's fields or constraints are changed.
+   public @Nullable Map<RelId,String> fetchRelationChangeMarkers
+      (
+         DatabaseMetaData dbmd,
+         @Nullable String schema
+      )
+      throws SQLException
+   {
+      return null;
+   }
+
+   /// Fetch row count and size estimates for the tables in the given schema from the database's statistics, by
+   /// relation id, or return null if statistics are not supported for the database. Tables for which statistics have
+   /// not been gathered are omitted.
+   public @Nullable Map<RelId,RelStatistics> fetchRelationStatistics
+      (
+         DatabaseMetaData dbmd,
+         @Nullable String schema
+      )
+      throws SQLException
+   {
+      return null;
+   }
+
+   /// Fetch the indexes of each of the given relations which is a table, by relation id.
+   public Map<RelId,List<Index>> fetchIndexes
+      (
+         List<RelDescr> relDescrs,
+         @Nullable String schema,
+         DatabaseMetaData dbmd
+      )
+      throws SQLException
+   {
+      Map<RelId,List<Index>> indexesByRelId = new HashMap<>();
+
+      for ( RelDescr relDescr : relDescrs )
+      {
+         if ( relDescr.getRelationType() != Table )
+            continue;
+
+         RelId relId = relDescr.getRelationId();
+
+         try ( ResultSet rs = dbmd.getIndexInfo(null, relId.getSchema(), relId.getName(), false, true) )
+         {
+            List<IndexBuilder> idxBldrs = new ArrayList<>();
+
+            while ( rs.next() )
+            {
+               if ( rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic )
+                  continue;
+
+               @Nullable String idxName = rs.getString("INDEX_NAME");
+
+               @Nullable IndexBuilder idxBldr = idxBldrs.isEmpty() ? null : idxBldrs.get(idxBldrs.size() - 1);
+
+               // Index changed ?
+               if ( idxBldr == null || !Objects.equals(idxName, idxBldr.getName()) ||
+                    rs.getShort("ORDINAL_POSITION") == 1 )
+               {
+                  idxBldr = new IndexBuilder(idxName, !rs.getBoolean("NON_UNIQUE"), rs.getString("FILTER_CONDITION"));
+                  idxBldrs.add(idxBldr);
+               }
+
+               idxBldr.addFieldName(requireNonNull(rs.getString("COLUMN_NAME")));
+            }
+
+            indexesByRelId.put(relId, idxBldrs.stream().map(IndexBuilder::build).collect(toList()));
+         }
+      }
+
+      return indexesByRelId;
+   }
+
+   private static List<RelMetadata> withIndexes
+      (
+         List<RelMetadata> relMds,
+         @Nullable Map<RelId,List<Index>> indexesByRelId
+      )
+   {
+      return
+         relMds.stream()
+         .map(relMd -> {
+            if ( indexesByRelId == null || relMd.getRelationType() != Table )
+               return relMd.withIndexes(null);
+            List<Index> indexes = valueOr(indexesByRelId.get(relMd.getRelationId()), emptyList());
+            return relMd.withIndexes(sortedIndexes(indexes));
+         })
+         .collect(toList());
+   }
+
+   // Order indexes by name, so the metadata doesn't depend on the order in which indexes are reported.
+   private static List<Index> sortedIndexes(List<Index> indexes)
+   {
+      List<Index> sorted = new ArrayList<>(indexes);
+      sorted.sort(Comparator.comparing(idx -> valueOr(idx.getName(), "")));
+      return sorted;
+   }
+
+   private static List<RelMetadata> withStatistics
+      (
+         List<RelMetadata> relMds,
+         @Nullable Map<RelId,RelStatistics> statsByRelId
+      )
+   {
+      return
+         relMds.stream()
+         .map(relMd -> relMd.withStatistics(statsByRelId != null ? statsByRelId.get(relMd.getRelationId()) : null))
+         .collect(toList());
+   }
+
+
+   /// Fetch metadata for multiple schemas in parallel, fetching each schema's relations, columns and foreign keys over
+   /// one of the given connections, with no connection used by more than one fetch at a time. The per-schema results
+   /// are merged into a single metadata object whose content and ordering don't depend on the completion order.
+   public DatabaseMetadata fetchMetadata
+      (
+         List<Connection> conns,
+         List<String> schemas,
+         boolean includeTables,
+         boolean includeViews,
+         boolean includeFks,
+         boolean includeIndexes,
+         boolean includeStatistics,
+         @Nullable Pattern excludeRelsPat
+      )
+      throws SQLException
+   {
+      return
+         fetchSchemasInParallel(conns, schemas, (dbmd, schema) ->
+            fetchMetadata(
+               dbmd, schema, includeTables, includeViews, includeFks, includeIndexes, includeStatistics, excludeRelsPat
+            )
+         );
+   }
+
+   /// Refresh metadata for multiple schemas in parallel, as in refreshMetadata() for each schema, over the given
+   /// connections as in the parallel version of fetchMetadata().
+   public DatabaseMetadata refreshMetadata
+      (
+         List<Connection> conns,
+         @Nullable DatabaseMetadata prevDbmd,
+         List<String> schemas,
+         boolean includeTables,
+         boolean includeViews,
+         boolean includeFks,
+         boolean includeIndexes,
+         boolean includeStatistics,
+         @Nullable Pattern excludeRelsPat
+      )
+      throws SQLException
+   {
+      return
+         fetchSchemasInParallel(conns, schemas, (dbmd, schema) ->
+            refreshMetadata(
+               dbmd, prevDbmd, schema, includeTables, includeViews, includeFks, includeIndexes, includeStatistics,
+               excludeRelsPat
+            )
+         );
+   }
+
+   private interface SchemaMetadataFetch
+   {
+      DatabaseMetadata fetch(DatabaseMetaData dbmd, String schema) throws SQLException;
+   }
+
+   private DatabaseMetadata fetchSchemasInParallel
+      (
+         List<Connection> conns,
+         List<String> schemas,
+         SchemaMetadataFetch schemaFetch
+      )
+      throws SQLException
+   {
+      if ( conns.isEmpty() )
+         throw new RuntimeException("At least one connection is required to fetch metadata.");
+
+      DatabaseMetaData dbmd = conns.get(0).getMetaData();
+      CaseSensitivity caseSens = getDatabaseCaseSensitivity(dbmd);
+
+      List<String> nSchemas =
+         schemas.stream().map(schema -> normalizeDatabaseIdentifier(schema, caseSens)).distinct().collect(toList());
+
+      BlockingQueue<Connection> availableConns = new LinkedBlockingQueue<>(conns);
+      ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(conns.size(), nSchemas.size())));
+
+      try
+      {
+         List<Future<DatabaseMetadata>> schemaMdFutures = new ArrayList<>();
+
+         for ( String schema : nSchemas )
+         {
+            schemaMdFutures.add(executor.submit(() -> {
+               Connection conn = availableConns.take();
+               try
+               {
+                  return schemaFetch.fetch(conn.getMetaData(), schema);
+               }
+               finally
+               {
+                  availableConns.put(conn);
+               }
+            }));
+         }
+
+         List<RelMetadata> relMds = new ArrayList<>();
+         List<ForeignKey> fks = new ArrayList<>();
+
+         for ( Future<DatabaseMetadata> schemaMdFuture : schemaMdFutures )
+         {
+            DatabaseMetadata schemaMd = getFetchResult(schemaMdFuture);
+            relMds.addAll(schemaMd.getRelationMetadatas());
+            fks.addAll(schemaMd.getForeignKeys());
+         }
+
+         String dbmsName = dbmd.getDatabaseProductName();
+         String dbmsVer = dbmd.getDatabaseProductVersion();
+
+         return new DatabaseMetadata(relMds, fks, caseSens, dbmsName, dbmsVer);
+      }
+      finally
+      {
+         executor.shutdownNow();
+      }
+   }
+
+   private static DatabaseMetadata getFetchResult(Future<DatabaseMetadata> future) throws SQLException
+   {
+      try
+      {
+         return future.get();
+      }
+      catch (ExecutionException e)
+      {
+         @Nullable Throwable cause = e.getCause();
+         if ( cause instanceof SQLException )
+            throw (SQLException)cause;
+         else if ( cause instanceof RuntimeException )
+            throw (RuntimeException)cause;
+         else
+            throw new RuntimeException(cause);
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException(e);
+      }
+   }
+
 
    public List<RelDescr> fetchRelationDescriptions
       (
@@ -133,6 +560,8 @@ public class DatabaseMetadataFetcher
    {
       Map<RelId,RelDescr> relDescrsByRelId = relDescrs.stream().collect(toMap(RelDescr::getRelationId, identity()));
 
+      Map<RelId,Map<String,Integer>> pkPartNumsByRelId = fetchPrimaryKeyPartNumbers(relDescrs, schema, dbmd);
+
       try ( ResultSet colsRS = dbmd.getColumns(null, schema, "%", "%") )
       {
          List<RelMetadata> relMds = new ArrayList<>();
@@ -148,7 +577,7 @@ public class DatabaseMetadataFetcher
             @Nullable RelDescr relDescr = relDescrsByRelId.get(relId);
             if ( relDescr != null ) // Include this relation?
             {
-               Field f = makeField(colsRS, dbmd);
+               Field f = makeField(colsRS, valueOr(pkPartNumsByRelId.get(relId), emptyMap()));
 
                // Relation changed ?
                if ( rmdBldr == null || !relId.equals(rmdBldr.getRelId()) )
@@ -171,6 +600,69 @@ public class DatabaseMetadataFetcher
       }
    }
 
+   /// Fetch primary key part numbers by field name for each of the given relations, indexed by relation id.
+   /// Where the driver allows the table name to be omitted, all primary keys for the schema are fetched
+   /// in a single call, else the primary keys are fetched separately for each relation.
+   public Map<RelId,Map<String,Integer>> fetchPrimaryKeyPartNumbers
+      (
+         List<RelDescr> relDescrs, // descriptions of relations to include
+         @Nullable String schema,
+         DatabaseMetaData dbmd
+      )
+      throws SQLException
+   {
+      Set<RelId> relIds = relDescrs.stream().map(RelDescr::getRelationId).collect(toSet());
+
+      Map<RelId,Map<String,Integer>> pkPartNumsByRelId = new HashMap<>();
+
+      if ( supportsSchemaWidePrimaryKeysFetch(dbmd) )
+      {
+         // Ignore warning about table-name (third) arg being null, which the pg driver allows.
+         try ( @SuppressWarnings("nullness") ResultSet pkRS = dbmd.getPrimaryKeys(null, schema, null) )
+         {
+            addPrimaryKeyPartNumbers(pkRS, relIds, pkPartNumsByRelId);
+         }
+      }
+      else
+      {
+         for ( RelId relId : relIds )
+         {
+            try ( ResultSet pkRS = dbmd.getPrimaryKeys(null, relId.getSchema(), relId.getName()) )
+            {
+               addPrimaryKeyPartNumbers(pkRS, relIds, pkPartNumsByRelId);
+            }
+         }
+      }
+
+      return pkPartNumsByRelId;
+   }
+
+   private static void addPrimaryKeyPartNumbers
+      (
+         ResultSet pkRS,
+         Set<RelId> includeRelIds,
+         Map<RelId,Map<String,Integer>> pkPartNumsByRelId
+      )
+      throws SQLException
+   {
+      while ( pkRS.next() )
+      {
+         RelId relId = new RelId(pkRS.getString("TABLE_SCHEM"), requireNonNull(pkRS.getString("TABLE_NAME")));
+
+         if ( includeRelIds.contains(relId) )
+         {
+            pkPartNumsByRelId
+               .computeIfAbsent(relId, k -> new HashMap<>())
+               .put(requireNonNull(pkRS.getString("COLUMN_NAME")), pkRS.getInt("KEY_SEQ"));
+         }
+      }
+   }
+
+   protected boolean supportsSchemaWidePrimaryKeysFetch(DatabaseMetaData dbmd) throws SQLException
+   {
+      return SqlDialect.getDbmsType(dbmd.getDatabaseProductName()) == SqlDialect.DbmsType.PG;
+   }
+
    public List<ForeignKey> fetchForeignKeys
       (
          @Nullable String schema,
@@ -274,44 +766,55 @@ public class DatabaseMetadataFetcher
    protected Field makeField
       (
          ResultSet colsRS,
-         DatabaseMetaData dbmd
+         Map<String,Integer> pkPartNumsByFieldName // primary key part numbers for the column's relation
       )
       throws SQLException
    {
+      String name = requireNonNull(colsRS.getString("COLUMN_NAME"));
 
-      try ( ResultSet pkRS = dbmd.getPrimaryKeys(colsRS.getString(1), colsRS.getString(2), requireNonNull(colsRS.getString(3))) )
-      {
-         // Fetch the primary key field names and part numbers for this relation
-         Map<String, Integer> pkSeqNumsByName = new HashMap<>();
-         while (pkRS.next())
-            pkSeqNumsByName.put(requireNonNull(pkRS.getString(4)), pkRS.getInt(5));
-         pkRS.close();
-
-         String name = requireNonNull(colsRS.getString("COLUMN_NAME"));
-         int typeCode = colsRS.getInt("DATA_TYPE");
-         String dbType = requireNonNull(colsRS.getString("TYPE_NAME"));
-
-         // Handle special cases/conversions for the type code.
-         if ( typeCode == Types.DATE || typeCode == Types.TIMESTAMP )
-            typeCode = getTypeCodeForDateOrTimestampColumn(typeCode, dbType);
-         else if ( "XMLTYPE".equals(dbType)  || "SYS.XMLTYPE".equals(dbType) )
-            // Oracle uses proprietary "OPAQUE" code of 2007 as of 11.2, should be Types.SQLXML = 2009.
-            typeCode = Types.SQLXML;
-
-         @Nullable Integer size = getRSInt(colsRS, "COLUMN_SIZE");
-         @Nullable Integer length = Field.isJdbcTypeChar(typeCode) ? size : null;
-         @Nullable Integer nullableCode = getRSInt(colsRS, "NULLABLE");
-         @Nullable Boolean nullable =
-            nullableCode != null && nullableCode == ResultSetMetaData.columnNullable ? Boolean.TRUE
-            : nullableCode != null && nullableCode == ResultSetMetaData.columnNoNulls ? Boolean.FALSE
-            : null;
-         @Nullable Integer fracDigs = Field.isJdbcTypeNumeric(typeCode) ? getRSInt(colsRS, "DECIMAL_DIGITS") : null;
-         @Nullable Integer prec = Field.isJdbcTypeNumeric(typeCode) ? size : null;
-         @Nullable Integer precRadix = null; // TODO: Radix column?
-         @Nullable Integer pkPart = pkSeqNumsByName.get(name);
-
-         return new Field(name, typeCode, dbType, length, prec, precRadix, fracDigs, nullable, pkPart);
-      }
+      return
+         makeField(
+            name,
+            colsRS.getInt("DATA_TYPE"),
+            requireNonNull(colsRS.getString("TYPE_NAME")),
+            getRSInt(colsRS, "COLUMN_SIZE"),
+            getRSInt(colsRS, "DECIMAL_DIGITS"),
+            getRSInt(colsRS, "NULLABLE"),
+            pkPartNumsByFieldName.get(name)
+         );
+   }
+
+   /// Make a field from column information as reported by the driver in DatabaseMetaData.getColumns() results.
+   protected Field makeField
+      (
+         String name,
+         int driverTypeCode,
+         String dbType,
+         @Nullable Integer size,
+         @Nullable Integer decimalDigits,
+         @Nullable Integer nullableCode,
+         @Nullable Integer pkPart
+      )
+   {
+      int typeCode = driverTypeCode;
+
+      // Handle special cases/conversions for the type code.
+      if ( typeCode == Types.DATE || typeCode == Types.TIMESTAMP )
+         typeCode = getTypeCodeForDateOrTimestampColumn(typeCode, dbType);
+      else if ( "XMLTYPE".equals(dbType)  || "SYS.XMLTYPE".equals(dbType) )
+         // Oracle uses proprietary "OPAQUE" code of 2007 as of 11.2, should be Types.SQLXML = 2009.
+         typeCode = Types.SQLXML;
+
+      @Nullable Integer length = Field.isJdbcTypeChar(typeCode) ? size : null;
+      @Nullable Boolean nullable =
+         nullableCode != null && nullableCode == ResultSetMetaData.columnNullable ? Boolean.TRUE
+         : nullableCode != null && nullableCode == ResultSetMetaData.columnNoNulls ? Boolean.FALSE
+         : null;
+      @Nullable Integer fracDigs = Field.isJdbcTypeNumeric(typeCode) ? decimalDigits : null;
+      @Nullable Integer prec = Field.isJdbcTypeNumeric(typeCode) ? size : null;
+      @Nullable Integer precRadix = null; // TODO: Radix column?
+
+      return new Field(name, typeCode, dbType, length, prec, precRadix, fracDigs, nullable, pkPart);
    }
 
    private int getTypeCodeForDateOrTimestampColumn
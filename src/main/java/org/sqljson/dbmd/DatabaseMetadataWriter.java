@@ -0,0 +1,129 @@
+package org.sqljson.dbmd;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+/// Writes database metadata incrementally through a Jackson streaming generator, so that relation metadatas can be
+/// written as they are fetched rather than being held in memory for the whole database. The output is the same as
+/// that of serializing the equivalent DatabaseMetadata object with the same object mapper. Relation metadatas must
+/// be written in the sorted order of DatabaseMetadata, and foreign keys are sorted here before being written.
+public class DatabaseMetadataWriter implements Closeable
+{
+   private final JsonGenerator gen;
+
+   private @Nullable String lastRelIdString;
+
+   private int relationsCount;
+
+   private int foreignKeysCount;
+
+   public DatabaseMetadataWriter
+      (
+         ObjectMapper mapper,
+         OutputStream os
+      )
+   {
+      try
+      {
+         // Closing must not complete the json of a partial write, which would make it look like complete metadata.
+         this.gen = mapper.createGenerator(os).disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
+      }
+   }
+
+   public void writeStart
+      (
+         String dbmsName,
+         String dbmsVersion,
+         CaseSensitivity caseSensitivity
+      )
+   {
+      try
+      {
+         gen.writeStartObject();
+         gen.writeStringField("dbmsName", dbmsName);
+         gen.writeStringField("dbmsVersion", dbmsVersion);
+         gen.writeFieldName("caseSensitivity");
+         gen.writeObject(caseSensitivity);
+         gen.writeArrayFieldStart("relationMetadatas");
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
+      }
+   }
+
+   public void writeRelationMetadata(RelMetadata relMd)
+   {
+      String relIdString = relMd.getRelationId().getIdString();
+
+      if ( lastRelIdString != null && relIdString.compareTo(lastRelIdString) < 0 )
+         throw new RuntimeException(
+            "Relation metadata for " + relIdString + " was written after that for " + lastRelIdString + "."
+         );
+
+      try
+      {
+         gen.writeObject(relMd);
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
+      }
+
+      lastRelIdString = relIdString;
+      ++relationsCount;
+   }
+
+   public void writeEnd(List<ForeignKey> foreignKeys)
+   {
+      try
+      {
+         gen.writeEndArray();
+         gen.writeArrayFieldStart("foreignKeys");
+         for ( ForeignKey fk : DatabaseMetadata.sortedFks(foreignKeys) )
+            gen.writeObject(fk);
+         gen.writeEndArray();
+         gen.writeEndObject();
+         gen.flush();
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
+      }
+
+      foreignKeysCount += foreignKeys.size();
+   }
+
+   /// Write complete metadata which has already been fetched into memory.
+   public void writeMetadata(DatabaseMetadata dbmd)
+   {
+      writeStart(dbmd.getDbmsName(), dbmd.getDbmsVersion(), dbmd.getCaseSensitivity());
+
+      for ( RelMetadata relMd : dbmd.getRelationMetadatas() )
+         writeRelationMetadata(relMd);
+
+      writeEnd(dbmd.getForeignKeys());
+   }
+
+   public int getRelationsCount() { return relationsCount; }
+
+   public int getForeignKeysCount() { return foreignKeysCount; }
+
+   @Override
+   public void close() throws IOException
+   {
+      gen.close();
+   }
+}
@@ -1,90 +1,78 @@
 package org.sqljson.dbmd;
 
 import java.sql.Types;
-import static java.util.Objects.requireNonNull;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
 @JsonPropertyOrder({
-   "name", "databaseType", "nullable", "primaryKeyPartNumber", "length", "precision", "precisionRadix"
+   "name", "databaseType", "nullable", "primaryKeyPartNumber", "length", "precision", "precisionRadix",
+   "jdbcTypeCode", "fractionalDigits"
 })
 public class Field {
 
-   private String name;
+   // A field is a view of one entry in the columnar field storage of its relation.
+   private final FieldTable table;
 
-   private int jdbcTypeCode;
-
-   private String databaseType;
-
-   private @Nullable Integer length;
-
-   private @Nullable Integer precision;
-
-   private @Nullable Integer precisionRadix;
-
-   private @Nullable Integer fractionalDigits;
-
-   private @Nullable Boolean nullable;
-
-   private @Nullable Integer primaryKeyPartNumber;
+   private final int ix;
 
 
+   @JsonCreator
    public Field
       (
-         String name,
-         int jdbcTypeCode,
-         String databaseType,
-         @Nullable Integer length,
-         @Nullable Integer precision,
-         @Nullable Integer precisionRadix,
-         @Nullable Integer fractionalDigits,
-         @Nullable Boolean nullable,
-         @Nullable Integer primaryKeyPartNumber
+         @JsonProperty("name") String name,
+         @JsonProperty("jdbcTypeCode") int jdbcTypeCode,
+         @JsonProperty("databaseType") String databaseType,
+         @JsonProperty("length") @Nullable Integer length,
+         @JsonProperty("precision") @Nullable Integer precision,
+         @JsonProperty("precisionRadix") @Nullable Integer precisionRadix,
+         @JsonProperty("fractionalDigits") @Nullable Integer fractionalDigits,
+         @JsonProperty("nullable") @Nullable Boolean nullable,
+         @JsonProperty("primaryKeyPartNumber") @Nullable Integer primaryKeyPartNumber
       )
    {
-      this.name = requireNonNull(name);
-      this.jdbcTypeCode = jdbcTypeCode;
-      this.databaseType = requireNonNull(databaseType);
-      this.length = length;
-      this.precision = precision;
-      this.precisionRadix = precisionRadix;
-      this.fractionalDigits = fractionalDigits;
-      this.nullable = nullable;
-      this.primaryKeyPartNumber = primaryKeyPartNumber;
+      this(
+         FieldTable.ofSingleField(
+            name, jdbcTypeCode, databaseType, length, precision, precisionRadix, fractionalDigits, nullable,
+            primaryKeyPartNumber
+         ),
+         0
+      );
    }
 
-   Field()
+   Field(FieldTable table, int ix)
    {
-      this.name = "";
-      this.databaseType = "";
+      this.table = table;
+      this.ix = ix;
    }
 
-   public String getName() { return name; }
+   public String getName() { return table.getName(ix); }
 
-   public int getJdbcTypeCode() { return jdbcTypeCode; }
+   public int getJdbcTypeCode() { return table.getJdbcTypeCode(ix); }
 
-   public String getDatabaseType() { return databaseType; }
+   public String getDatabaseType() { return table.getDatabaseType(ix); }
 
-   public @Nullable Integer getLength() { return length; }
+   public @Nullable Integer getLength() { return table.getLength(ix); }
 
-   public @Nullable Integer getFractionalDigits() { return fractionalDigits; }
+   public @Nullable Integer getFractionalDigits() { return table.getFractionalDigits(ix); }
 
-   public @Nullable Integer getPrecision() { return precision; }
+   public @Nullable Integer getPrecision() { return table.getPrecision(ix); }
 
-   public @Nullable Integer getPrecisionRadix() { return precisionRadix; }
+   public @Nullable Integer getPrecisionRadix() { return table.getPrecisionRadix(ix); }
 
-   public @Nullable Boolean getNullable() { return nullable; }
+   public @Nullable Boolean getNullable() { return table.getNullable(ix); }
 
-   public @Nullable Integer getPrimaryKeyPartNumber() { return primaryKeyPartNumber; }
+   public @Nullable Integer getPrimaryKeyPartNumber() { return table.getPrimaryKeyPartNumber(ix); }
 
    @JsonIgnore
-   public boolean isNumericType() { return isJdbcTypeNumeric(jdbcTypeCode); }
+   public boolean isNumericType() { return isJdbcTypeNumeric(getJdbcTypeCode()); }
 
    @JsonIgnore
-   public boolean isCharacterType() { return isJdbcTypeChar(jdbcTypeCode); }
+   public boolean isCharacterType() { return isJdbcTypeChar(getJdbcTypeCode()); }
 
    public static boolean isJdbcTypeNumeric(int jdbcType)
    {
@@ -0,0 +1,243 @@
+package org.sqljson.dbmd;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import static java.util.Objects.requireNonNull;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+
+/// Columnar storage for the fields of a relation. Names and database types are interned, so the type names and
+/// common field names repeated across a large schema are shared. The numeric attributes are stored as primitives in
+/// a single array holding one block of values per attribute, with the absence of optional attributes recorded in
+/// flag bits, so that each relation carries only a few array headers however many fields it has.
+final class FieldTable
+{
+   // Attribute blocks within the values array.
+   private static final int JDBC_TYPE_CODES = 0;
+   private static final int LENGTHS = 1;
+   private static final int PRECISIONS = 2;
+   private static final int FRACTIONAL_DIGITS = 3;
+   // Packed flags (bits 0-7), precision radix (bits 8-15) and primary key part number (bits 16-31).
+   private static final int PACKED = 4;
+   private static final int BLOCKS = 5;
+
+   // Flag bits, set when the corresponding optional attribute is absent, or for nullability when it is known.
+   private static final int NO_LENGTH = 1;
+   private static final int NO_PRECISION = 1 << 1;
+   private static final int NO_PRECISION_RADIX = 1 << 2;
+   private static final int NO_FRACTIONAL_DIGITS = 1 << 3;
+   private static final int NO_PRIMARY_KEY_PART = 1 << 4;
+   private static final int NULLABLE_KNOWN = 1 << 5;
+   private static final int NULLABLE = 1 << 6;
+
+   // Relations with at most this many fields are searched by name linearly rather than through a hash index.
+   private static final int MAX_UNINDEXED_FIELDS = 8;
+
+   // Interned database types. These have few distinct values, for which a map is faster than String.intern().
+   private static final ConcurrentHashMap<String,String> databaseTypeInstances = new ConcurrentHashMap<>();
+
+   static final FieldTable EMPTY = new FieldTable(new String[0], new String[0]);
+
+   private final String[] names;
+   private final String[] databaseTypes;
+   private final int[] values;
+
+   // Open addressing hash table of field name to field index + 1, with 0 marking an empty slot.
+   private final int @Nullable [] nameSlots;
+
+   private FieldTable
+      (
+         String[] names, // interned
+         String[] databaseTypes // interned
+      )
+   {
+      int size = names.length;
+      this.names = names;
+      this.databaseTypes = databaseTypes;
+      this.values = new int[BLOCKS * size];
+      this.nameSlots = size > MAX_UNINDEXED_FIELDS ? makeNameSlots(names) : null;
+   }
+
+   static FieldTable of(List<Field> fields)
+   {
+      if ( fields.isEmpty() )
+         return EMPTY;
+
+      // Fields are views of field tables, so their strings are already interned.
+      FieldTable t =
+         new FieldTable(
+            fields.stream().map(Field::getName).toArray(String[]::new),
+            fields.stream().map(Field::getDatabaseType).toArray(String[]::new)
+         );
+
+      for ( int ix = 0; ix < fields.size(); ++ix )
+      {
+         Field f = fields.get(ix);
+         t.set(
+            ix, f.getName(), f.getJdbcTypeCode(), f.getLength(), f.getPrecision(), f.getPrecisionRadix(),
+            f.getFractionalDigits(), f.getNullable(), f.getPrimaryKeyPartNumber()
+         );
+      }
+
+      return t;
+   }
+
+   static FieldTable ofSingleField
+      (
+         String name,
+         int jdbcTypeCode,
+         String databaseType,
+         @Nullable Integer length,
+         @Nullable Integer precision,
+         @Nullable Integer precisionRadix,
+         @Nullable Integer fractionalDigits,
+         @Nullable Boolean nullable,
+         @Nullable Integer primaryKeyPartNumber
+      )
+   {
+      FieldTable t =
+         new FieldTable(
+            new String[]{ requireNonNull(name).intern() },
+            new String[]{ internDatabaseType(requireNonNull(databaseType)) }
+         );
+      t.set(0, name, jdbcTypeCode, length, precision, precisionRadix, fractionalDigits, nullable, primaryKeyPartNumber);
+      return t;
+   }
+
+   private void set
+      (
+         int ix,
+         String name,
+         int jdbcTypeCode,
+         @Nullable Integer length,
+         @Nullable Integer precision,
+         @Nullable Integer precisionRadix,
+         @Nullable Integer fractionalDigits,
+         @Nullable Boolean nullable,
+         @Nullable Integer primaryKeyPartNumber
+      )
+   {
+      int packed = 0;
+
+      values[valueIx(JDBC_TYPE_CODES, ix)] = jdbcTypeCode;
+
+      if ( length != null ) values[valueIx(LENGTHS, ix)] = length; else packed |= NO_LENGTH;
+      if ( precision != null ) values[valueIx(PRECISIONS, ix)] = precision; else packed |= NO_PRECISION;
+      if ( fractionalDigits != null ) values[valueIx(FRACTIONAL_DIGITS, ix)] = fractionalDigits;
+      else packed |= NO_FRACTIONAL_DIGITS;
+
+      if ( precisionRadix != null )
+      {
+         if ( precisionRadix < 0 || precisionRadix > 0xff )
+            throw new RuntimeException("Precision radix " + precisionRadix + " of field " + name + " is out of range.");
+         packed |= precisionRadix << 8;
+      }
+      else
+         packed |= NO_PRECISION_RADIX;
+
+      if ( primaryKeyPartNumber != null )
+      {
+         if ( primaryKeyPartNumber < 0 || primaryKeyPartNumber > 0xffff )
+            throw new RuntimeException(
+               "Primary key part number " + primaryKeyPartNumber + " of field " + name + " is out of range."
+            );
+         packed |= primaryKeyPartNumber << 16;
+      }
+      else
+         packed |= NO_PRIMARY_KEY_PART;
+
+      if ( nullable != null )
+         packed |= nullable ? NULLABLE_KNOWN | NULLABLE : NULLABLE_KNOWN;
+
+      values[valueIx(PACKED, ix)] = packed;
+   }
+
+   int size() { return names.length; }
+
+   /// Return the index of the field with the given exact name, or -1 if there is no such field.
+   int indexOf(String name)
+   {
+      if ( nameSlots == null )
+      {
+         for ( int ix = 0; ix < names.length; ++ix )
+            if ( names[ix].equals(name) )
+               return ix;
+         return -1;
+      }
+
+      int mask = nameSlots.length - 1;
+      for ( int slot = name.hashCode() & mask; ; slot = (slot + 1) & mask )
+      {
+         int entry = nameSlots[slot];
+         if ( entry == 0 )
+            return -1;
+         if ( names[entry - 1].equals(name) )
+            return entry - 1;
+      }
+   }
+
+   String getName(int ix) { return names[ix]; }
+
+   int getJdbcTypeCode(int ix) { return values[valueIx(JDBC_TYPE_CODES, ix)]; }
+
+   String getDatabaseType(int ix) { return databaseTypes[ix]; }
+
+   @Nullable Integer getLength(int ix) { return has(ix, NO_LENGTH) ? null : values[valueIx(LENGTHS, ix)]; }
+
+   @Nullable Integer getPrecision(int ix) { return has(ix, NO_PRECISION) ? null : values[valueIx(PRECISIONS, ix)]; }
+
+   @Nullable Integer getPrecisionRadix(int ix)
+   {
+      return has(ix, NO_PRECISION_RADIX) ? null : (values[valueIx(PACKED, ix)] >>> 8) & 0xff;
+   }
+
+   @Nullable Integer getFractionalDigits(int ix)
+   {
+      return has(ix, NO_FRACTIONAL_DIGITS) ? null : values[valueIx(FRACTIONAL_DIGITS, ix)];
+   }
+
+   @Nullable Boolean getNullable(int ix)
+   {
+      return !has(ix, NULLABLE_KNOWN) ? null : Boolean.valueOf(has(ix, NULLABLE));
+   }
+
+   @Nullable Integer getPrimaryKeyPartNumber(int ix)
+   {
+      return has(ix, NO_PRIMARY_KEY_PART) ? null : values[valueIx(PACKED, ix)] >>> 16;
+   }
+
+   private boolean has(int ix, int flag) { return (values[valueIx(PACKED, ix)] & flag) != 0; }
+
+   private int valueIx(int block, int ix) { return block * names.length + ix; }
+
+   private static String internDatabaseType(String databaseType)
+   {
+      @Nullable String instance = databaseTypeInstances.putIfAbsent(databaseType, databaseType);
+      return instance != null ? instance : databaseType;
+   }
+
+   private static int[] makeNameSlots(String[] names)
+   {
+      int[] slots = new int[Integer.highestOneBit(names.length * 2 - 1) * 2];
+      int mask = slots.length - 1;
+
+      // Index the names, keeping the first field for any duplicated name.
+      for ( int ix = 0; ix < names.length; ++ix )
+      {
+         for ( int slot = names[ix].hashCode() & mask; ; slot = (slot + 1) & mask )
+         {
+            int entry = slots[slot];
+            if ( entry == 0 )
+            {
+               slots[slot] = ix + 1;
+               break;
+            }
+            if ( names[entry - 1].equals(names[ix]) )
+               break;
+         }
+      }
+
+      return slots;
+   }
+}
@@ -0,0 +1,66 @@
+package org.sqljson.dbmd;
+
+import java.util.*;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+@JsonPropertyOrder({"name", "unique", "fieldNames", "filterCondition"})
+public class Index
+{
+   private final @Nullable String name;
+
+   private final boolean unique;
+
+   // Indexed field names in index key order. Index expressions which are not simple fields appear as expression text.
+   private final List<String> fieldNames;
+
+   // Condition restricting the rows included in a partial index, if any.
+   private final @Nullable String filterCondition;
+
+   public Index
+      (
+         @Nullable String name,
+         boolean unique,
+         List<String> fieldNames,
+         @Nullable String filterCondition
+      )
+   {
+      this.name = name;
+      this.unique = unique;
+      this.fieldNames = unmodifiableList(new ArrayList<>(requireNonNull(fieldNames)));
+      this.filterCondition = filterCondition;
+   }
+
+   Index()
+   {
+      this.name = null;
+      this.unique = false;
+      this.fieldNames = emptyList();
+      this.filterCondition = null;
+   }
+
+   public @Nullable String getName() { return name; }
+
+   public boolean isUnique() { return unique; }
+
+   public List<String> getFieldNames() { return fieldNames; }
+
+   @JsonInclude(JsonInclude.Include.NON_NULL)
+   public @Nullable String getFilterCondition() { return filterCondition; }
+
+   /// Whether the index can be used to look up rows by equality conditions on all of the given fields, which is the
+   /// case when the given fields are the leading fields of the index in some order and the index is not partial.
+   public boolean hasLeadingFields(Collection<String> fields)
+   {
+      if ( filterCondition != null || fields.isEmpty() || fields.size() > fieldNames.size() )
+         return false;
+
+      return new HashSet<>(fieldNames.subList(0, fields.size())).equals(new HashSet<>(fields));
+   }
+}
@@ -0,0 +1,40 @@
+package org.sqljson.dbmd;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+
+class IndexBuilder
+{
+   private final @Nullable String name;
+
+   private final boolean unique;
+
+   private final List<String> fieldNames;
+
+   private final @Nullable String filterCondition;
+
+   public IndexBuilder
+      (
+         @Nullable String name,
+         boolean unique,
+         @Nullable String filterCondition
+      )
+   {
+      this.name = name;
+      this.unique = unique;
+      this.fieldNames = new ArrayList<>();
+      this.filterCondition = filterCondition;
+   }
+
+   public @Nullable String getName() { return name; }
+
+   public void addFieldName(String fieldName) { fieldNames.add(fieldName); }
+
+   public Index build()
+   {
+      return new Index(name, unique, fieldNames, filterCondition);
+   }
+}
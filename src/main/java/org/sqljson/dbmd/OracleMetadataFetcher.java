@@ -0,0 +1,446 @@
+package org.sqljson.dbmd;
+
+import java.sql.*;
+import java.util.*;
+import java.util.regex.Pattern;
+import static java.util.Collections.nCopies;
+import static java.util.Objects.requireNonNull;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import org.sqljson.util.StringFuns;
+import static org.sqljson.dbmd.RelMetadata.RelType.Table;
+import static org.sqljson.dbmd.RelMetadata.RelType.View;
+
+
+/// Metadata fetcher for Oracle which queries the ALL_* dictionary views directly, fetching all columns with their
+/// primary key part numbers in a single query, and all foreign keys in another. Type codes and sizes are decoded
+/// as the Oracle JDBC driver decodes them for DatabaseMetaData.getColumns() with its default connection properties
+/// (DATE reported as TIMESTAMP, unconstrained NUMBER reported with size 0 and decimal digits -127).
+public class OracleMetadataFetcher extends DatabaseMetadataFetcher
+{
+   private static final String DATA_TYPE_CODE_EXPR =
+      "decode(substr(t.data_type, 1, 9),\n" +
+      "    'TIMESTAMP', decode(substr(t.data_type, 10, 1),\n" +
+      "      '(', decode(substr(t.data_type, 19, 5), 'LOCAL', -102, 'TIME ', -101, 93),\n" +
+      "      decode(substr(t.data_type, 16, 5), 'LOCAL', -102, 'TIME ', -101, 93)),\n" +
+      "    'INTERVAL ', decode(substr(t.data_type, 10, 3), 'DAY', -104, 'YEA', -103),\n" +
+      "    decode(t.data_type,\n" +
+      "      'BINARY_DOUBLE', 101, 'BINARY_FLOAT', 100, 'BFILE', -13, 'BLOB', 2004, 'CHAR', 1, 'CLOB', 2005,\n" +
+      "      'COLLECTION', 2003, 'DATE', 93, 'FLOAT', 6, 'LONG', -1, 'LONG RAW', -4, 'NCHAR', -15, 'NCLOB', 2011,\n" +
+      "      'NUMBER', 2, 'NVARCHAR', -9, 'NVARCHAR2', -9, 'OBJECT', 2002, 'OPAQUE/XMLTYPE', 2009, 'RAW', -3,\n" +
+      "      'REF', 2006, 'ROWID', -8, 'SQLXML', 2009, 'UROWID', -8, 'VARCHAR2', 12, 'VARRAY', 2003,\n" +
+      "      'XMLTYPE', 2009,\n" +
+      "      decode((select a.typecode from all_types a\n" +
+      "              where a.type_name = t.data_type\n" +
+      "                and ((a.owner is null and t.data_type_owner is null) or a.owner = t.data_type_owner)),\n" +
+      "        'OBJECT', 2002, 'COLLECTION', 2003, 1111)))";
+
+   private static final String COLUMN_SIZE_EXPR =
+      "decode(t.data_precision,\n" +
+      "    null, decode(t.data_type,\n" +
+      "      'NUMBER', decode(t.data_scale, null, 0, 38),\n" +
+      "      decode(t.data_type, 'CHAR', t.char_length, 'VARCHAR', t.char_length, 'VARCHAR2', t.char_length,\n" +
+      "        'NVARCHAR2', t.char_length, 'NCHAR', t.char_length, 'NUMBER', 0, t.data_length)),\n" +
+      "    t.data_precision)";
+
+   private static final String DECIMAL_DIGITS_EXPR =
+      "decode(t.data_type,\n" +
+      "    'NUMBER', decode(t.data_precision, null, decode(t.data_scale, null, -127, t.data_scale), t.data_scale),\n" +
+      "    t.data_scale)";
+
+   // Maximum number of relations for which the columns query is restricted to the relations by name.
+   private static final int MAX_NAMED_RELATIONS = 100;
+
+   public OracleMetadataFetcher(DateMapping mapping)
+   {
+      super(mapping);
+   }
+
+   @Override
+   public List<RelDescr> fetchRelationDescriptions
+      (
+         DatabaseMetaData dbmd,
+         @Nullable String schema,
+         boolean includeTables,
+         boolean includeViews,
+         @Nullable Pattern excludeRelsPattern
+      )
+      throws SQLException
+   {
+      List<String> objectTypes = new ArrayList<>();
+      if ( includeTables )
+         objectTypes.add("'TABLE'");
+      if ( includeViews )
+         objectTypes.add("'VIEW'");
+
+      List<RelDescr> relDescrs = new ArrayList<>();
+
+      if ( objectTypes.isEmpty() )
+         return relDescrs;
+
+      String sql =
+         "select o.owner, o.object_name, o.object_type, c.comments\n" +
+         "from all_objects o\n" +
+         "left join all_tab_comments c on c.owner = o.owner and c.table_name = o.object_name\n" +
+         "where o.object_type in (" + String.join(", ", objectTypes) + ")" +
+         (schema != null ? "\n  and o.owner like ? escape '/'" : "");
+
+      try ( PreparedStatement ps = dbmd.getConnection().prepareStatement(sql) )
+      {
+         if ( schema != null )
+            ps.setString(1, schema);
+
+         try ( ResultSet rs = ps.executeQuery() )
+         {
+            while ( rs.next() )
+            {
+               RelId relId = new RelId(rs.getString(1), requireNonNull(rs.getString(2)));
+
+               if ( !StringFuns.matches(excludeRelsPattern, relId.getIdString()) )
+               {
+                  RelMetadata.RelType relType = "TABLE".equals(rs.getString(3)) ? Table : View;
+
+                  relDescrs.add(new RelDescr(relId, relType, rs.getString(4)));
+               }
+            }
+         }
+      }
+
+      return relDescrs;
+   }
+
+   @Override
+   protected int getRelationMetadataBatchSize()
+   {
+      return MAX_NAMED_RELATIONS;
+   }
+
+   @Override
+   public List<RelMetadata> fetchRelationMetadatas
+      (
+         List<RelDescr> relDescrs, // descriptions of relations to include
+         @Nullable String schema,
+         DatabaseMetaData dbmd
+      )
+      throws SQLException
+   {
+      if ( relDescrs.isEmpty() )
+         return new ArrayList<>();
+
+      Map<RelId,RelDescr> relDescrsByRelId = relDescrs.stream().collect(toMap(RelDescr::getRelationId, identity()));
+
+      // Restrict by relation names when only a few relations are needed, as when refreshing changed relations.
+      List<String> relNames = relDescrsByRelId.keySet().stream().map(RelId::getName).distinct().collect(toList());
+      boolean restrictByName = relNames.size() <= MAX_NAMED_RELATIONS;
+
+      String sql =
+         "select\n" +
+         "  t.owner, t.table_name, t.column_name,\n" +
+         "  " + DATA_TYPE_CODE_EXPR + " as data_type_code,\n" +
+         "  t.data_type,\n" +
+         "  " + COLUMN_SIZE_EXPR + " as column_size,\n" +
+         "  " + DECIMAL_DIGITS_EXPR + " as decimal_digits,\n" +
+         "  decode(t.nullable, 'N', 0, 1) as nullable,\n" +
+         "  pk.position as key_seq\n" +
+         "from all_tab_columns t\n" +
+         "left join (\n" +
+         "  select cc.owner, cc.table_name, cc.column_name, cc.position\n" +
+         "  from all_constraints k\n" +
+         "  join all_cons_columns cc\n" +
+         "    on cc.owner = k.owner and cc.constraint_name = k.constraint_name and cc.table_name = k.table_name\n" +
+         "  where k.constraint_type = 'P'" +
+         (schema != null ? "\n    and k.owner like ? escape '/'" : "") + "\n" +
+         ") pk on pk.owner = t.owner and pk.table_name = t.table_name and pk.column_name = t.column_name\n" +
+         "where 1 = 1" +
+         (schema != null ? "\n  and t.owner like ? escape '/'" : "") +
+         (restrictByName ? "\n  and t.table_name in (" + String.join(", ", nCopies(relNames.size(), "?")) + ")" : "") +
+         "\n" +
+         "order by t.owner, t.table_name, t.column_id";
+
+      try ( PreparedStatement ps = dbmd.getConnection().prepareStatement(sql) )
+      {
+         int paramIx = 1;
+         if ( schema != null )
+         {
+            ps.setString(paramIx++, schema);
+            ps.setString(paramIx++, schema);
+         }
+         if ( restrictByName )
+         {
+            for ( String relName : relNames )
+               ps.setString(paramIx++, relName);
+         }
+
+         try ( ResultSet rs = ps.executeQuery() )
+         {
+            List<RelMetadata> relMds = new ArrayList<>();
+            @Nullable RelMetadataBuilder rmdBldr = null;
+
+            while ( rs.next() )
+            {
+               RelId relId = new RelId(rs.getString("owner"), requireNonNull(rs.getString("table_name")));
+
+               @Nullable RelDescr relDescr = relDescrsByRelId.get(relId);
+               if ( relDescr != null ) // Include this relation?
+               {
+                  Field f =
+                     makeField(
+                        requireNonNull(rs.getString("column_name")),
+                        rs.getInt("data_type_code"),
+                        requireNonNull(rs.getString("data_type")),
+                        getRSInt(rs, "column_size"),
+                        getRSInt(rs, "decimal_digits"),
+                        getRSInt(rs, "nullable"),
+                        getRSInt(rs, "key_seq")
+                     );
+
+                  // Relation changed ?
+                  if ( rmdBldr == null || !relId.equals(rmdBldr.getRelId()) )
+                  {
+                     // finalize previous if any
+                     if ( rmdBldr != null )
+                        relMds.add(rmdBldr.build());
+
+                     rmdBldr = new RelMetadataBuilder(relId, relDescr.getRelationType());
+                  }
+
+                  rmdBldr.addField(f);
+               }
+            }
+
+            if ( rmdBldr != null )
+               relMds.add(rmdBldr.build());
+
+            return relMds;
+         }
+      }
+   }
+
+   /// Fetch indexes for the given relations from all_indexes and all_ind_columns. The key columns of function-based
+   /// indexes appear under their system-generated column names.
+   @Override
+   public Map<RelId,List<Index>> fetchIndexes
+      (
+         List<RelDescr> relDescrs,
+         @Nullable String schema,
+         DatabaseMetaData dbmd
+      )
+      throws SQLException
+   {
+      Map<RelId,List<Index>> indexesByRelId = new HashMap<>();
+
+      if ( relDescrs.isEmpty() )
+         return indexesByRelId;
+
+      Set<RelId> relIds = relDescrs.stream().map(RelDescr::getRelationId).collect(toSet());
+
+      List<String> relNames = relIds.stream().map(RelId::getName).distinct().collect(toList());
+      boolean restrictByName = relNames.size() <= MAX_NAMED_RELATIONS;
+
+      String sql =
+         "select ic.table_owner, ic.table_name, ic.index_name, i.uniqueness, ic.column_name\n" +
+         "from all_indexes i\n" +
+         "join all_ind_columns ic on ic.index_owner = i.owner and ic.index_name = i.index_name\n" +
+         "where i.index_type <> 'LOB'" +
+         (schema != null ? "\n  and ic.table_owner like ? escape '/'" : "") +
+         (restrictByName ? "\n  and ic.table_name in (" + String.join(", ", nCopies(relNames.size(), "?")) + ")" : "") +
+         "\n" +
+         "order by ic.table_owner, ic.table_name, ic.index_name, ic.column_position";
+
+      try ( PreparedStatement ps = dbmd.getConnection().prepareStatement(sql) )
+      {
+         int paramIx = 1;
+         if ( schema != null )
+            ps.setString(paramIx++, schema);
+         if ( restrictByName )
+         {
+            for ( String relName : relNames )
+               ps.setString(paramIx++, relName);
+         }
+
+         try ( ResultSet rs = ps.executeQuery() )
+         {
+            @Nullable RelId bldrRelId = null;
+            @Nullable IndexBuilder idxBldr = null;
+
+            while ( rs.next() )
+            {
+               RelId relId = new RelId(rs.getString("table_owner"), requireNonNull(rs.getString("table_name")));
+
+               if ( !relIds.contains(relId) )
+                  continue;
+
+               String idxName = requireNonNull(rs.getString("index_name"));
+
+               // Index changed ?
+               if ( idxBldr == null || !relId.equals(bldrRelId) || !idxName.equals(idxBldr.getName()) )
+               {
+                  if ( idxBldr != null && bldrRelId != null )
+                     indexesByRelId.computeIfAbsent(bldrRelId, k -> new ArrayList<>()).add(idxBldr.build());
+
+                  bldrRelId = relId;
+                  idxBldr = new IndexBuilder(idxName, "UNIQUE".equals(rs.getString("uniqueness")), null);
+               }
+
+               idxBldr.addFieldName(requireNonNull(rs.getString("column_name")));
+            }
+
+            if ( idxBldr != null && bldrRelId != null )
+               indexesByRelId.computeIfAbsent(bldrRelId, k -> new ArrayList<>()).add(idxBldr.build());
+         }
+      }
+
+      return indexesByRelId;
+   }
+
+   /// Fetch change markers made from each relation's object id and LAST_DDL_TIME, which is updated by any DDL
+   /// statement altering the relation or its constraints.
+   @Override
+   public Map<RelId,String> fetchRelationChangeMarkers
+      (
+         DatabaseMetaData dbmd,
+         @Nullable String schema
+      )
+      throws SQLException
+   {
+      String sql =
+         "select o.owner, o.object_name, o.object_id || '.' || to_char(o.last_ddl_time, 'YYYYMMDDHH24MISS')\n" +
+         "from all_objects o\n" +
+         "where o.object_type in ('TABLE', 'VIEW')" +
+         (schema != null ? "\n  and o.owner like ? escape '/'" : "");
+
+      Map<RelId,String> changeMarkers = new HashMap<>();
+
+      try ( PreparedStatement ps = dbmd.getConnection().prepareStatement(sql) )
+      {
+         if ( schema != null )
+            ps.setString(1, schema);
+
+         try ( ResultSet rs = ps.executeQuery() )
+         {
+            while ( rs.next() )
+            {
+               RelId relId = new RelId(rs.getString(1), requireNonNull(rs.getString(2)));
+               changeMarkers.put(relId, requireNonNull(rs.getString(3)));
+            }
+         }
+      }
+
+      return changeMarkers;
+   }
+
+   /// Fetch the optimizer statistics recorded in all_tables, which are null for tables not yet analyzed.
+   @Override
+   public Map<RelId,RelStatistics> fetchRelationStatistics
+      (
+         DatabaseMetaData dbmd,
+         @Nullable String schema
+      )
+      throws SQLException
+   {
+      String sql =
+         "select t.owner, t.table_name, t.num_rows, t.blocks\n" +
+         "from all_tables t\n" +
+         "where t.num_rows is not null" +
+         (schema != null ? "\n  and t.owner like ? escape '/'" : "");
+
+      Map<RelId,RelStatistics> stats = new HashMap<>();
+
+      try ( PreparedStatement ps = dbmd.getConnection().prepareStatement(sql) )
+      {
+         if ( schema != null )
+            ps.setString(1, schema);
+
+         try ( ResultSet rs = ps.executeQuery() )
+         {
+            while ( rs.next() )
+            {
+               RelId relId = new RelId(rs.getString(1), requireNonNull(rs.getString(2)));
+               long blocks = rs.getLong(4);
+               stats.put(relId, new RelStatistics(rs.getLong(3), rs.wasNull() ? null : blocks));
+            }
+         }
+      }
+
+      return stats;
+   }
+
+   @Override
+   public List<ForeignKey> fetchForeignKeys
+      (
+         @Nullable String schema,
+         DatabaseMetaData dbmd,
+         @Nullable Pattern excludeRelsPattern
+      )
+      throws SQLException
+   {
+      String sql =
+         "select\n" +
+         "  f.owner fk_schema, f.table_name fk_table, f.constraint_name, p.owner pk_schema, p.table_name pk_table,\n" +
+         "  fc.column_name fk_column, pc.column_name pk_column\n" +
+         "from all_constraints f\n" +
+         "join all_constraints p on p.owner = f.r_owner and p.constraint_name = f.r_constraint_name\n" +
+         "join all_cons_columns fc\n" +
+         "  on fc.owner = f.owner and fc.constraint_name = f.constraint_name and fc.table_name = f.table_name\n" +
+         "join all_cons_columns pc\n" +
+         "  on pc.owner = p.owner and pc.constraint_name = p.constraint_name and pc.table_name = p.table_name\n" +
+         "  and pc.position = fc.position\n" +
+         "where f.constraint_type = 'R' and p.constraint_type = 'P'" +
+         (schema != null ? "\n  and f.owner = ?" : "") + "\n" +
+         "order by f.owner, f.table_name, f.constraint_name, fc.position";
+
+      List<ForeignKey> fks = new ArrayList<>();
+
+      try ( PreparedStatement ps = dbmd.getConnection().prepareStatement(sql) )
+      {
+         if ( schema != null )
+            ps.setString(1, schema);
+
+         try ( ResultSet rs = ps.executeQuery() )
+         {
+            @Nullable ForeignKeyBuilder fkBldr = null;
+            @Nullable String fkConstraintName = null;
+            @Nullable String fkSchema = null;
+
+            while ( rs.next() )
+            {
+               String constraintName = requireNonNull(rs.getString("constraint_name"));
+               @Nullable String schemaName = rs.getString("fk_schema");
+
+               if ( !constraintName.equals(fkConstraintName) || !Objects.equals(schemaName, fkSchema) ) // new fk
+               {
+                  fkConstraintName = constraintName;
+                  fkSchema = schemaName;
+
+                  // Finalize previous fk if any.
+                  if ( fkBldr != null && fkBldr.neitherRelMatches(excludeRelsPattern) )
+                     fks.add(fkBldr.build());
+
+                  fkBldr = new ForeignKeyBuilder(
+                     null,
+                     new RelId(schemaName, requireNonNull(rs.getString("fk_table"))),
+                     new RelId(rs.getString("pk_schema"), requireNonNull(rs.getString("pk_table")))
+                  );
+               }
+
+               requireNonNull(fkBldr).addComponent(
+                  new ForeignKey.Component(
+                     requireNonNull(rs.getString("fk_column")),
+                     requireNonNull(rs.getString("pk_column"))
+                  )
+               );
+            }
+
+            if ( fkBldr != null && fkBldr.neitherRelMatches(excludeRelsPattern) )
+               fks.add(fkBldr.build());
+         }
+      }
+
+      return fks;
+   }
+}
@@ -0,0 +1,488 @@
+package org.sqljson.dbmd;
+
+import java.sql.*;
+import java.util.*;
+import java.util.regex.Pattern;
+import static java.util.Objects.requireNonNull;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.Oid;
+import org.postgresql.core.ServerVersion;
+import org.postgresql.core.TypeInfo;
+
+import org.sqljson.util.StringFuns;
+import static org.sqljson.dbmd.RelMetadata.RelType.Table;
+import static org.sqljson.dbmd.RelMetadata.RelType.View;
+
+
+/// Metadata fetcher for PostgreSQL which queries the pg_catalog tables directly, fetching all columns with their
+/// primary key part numbers in a single query, and all foreign keys in another. Type codes, type names and sizes
+/// are derived as the pg JDBC driver derives them for DatabaseMetaData.getColumns(), so the resulting metadata is
+/// the same as that produced by the generic JDBC based fetcher.
+public class PostgresMetadataFetcher extends DatabaseMetadataFetcher
+{
+   private static final int RELATION_METADATA_BATCH_SIZE = 500;
+
+   public PostgresMetadataFetcher(DateMapping mapping)
+   {
+      super(mapping);
+   }
+
+   @Override
+   public List<RelDescr> fetchRelationDescriptions
+      (
+         DatabaseMetaData dbmd,
+         @Nullable String schema,
+         boolean includeTables,
+         boolean includeViews,
+         @Nullable Pattern excludeRelsPattern
+      )
+      throws SQLException
+   {
+      List<String> relKindConds = new ArrayList<>();
+      if ( includeTables )
+         relKindConds.add("c.relkind = 'r' and n.nspname !~ '^pg_' and n.nspname <> 'information_schema'");
+      if ( includeViews )
+         relKindConds.add("c.relkind = 'v' and n.nspname <> 'pg_catalog' and n.nspname <> 'information_schema'");
+
+      List<RelDescr> relDescrs = new ArrayList<>();
+
+      if ( relKindConds.isEmpty() )
+         return relDescrs;
+
+      String sql =
+         "select n.nspname, c.relname, c.relkind, d.description\n" +
+         "from pg_catalog.pg_class c\n" +
+         "join pg_catalog.pg_namespace n on n.oid = c.relnamespace\n" +
+         "left join pg_catalog.pg_description d\n" +
+         "  on d.objoid = c.oid and d.objsubid = 0 and d.classoid = 'pg_catalog.pg_class'::regclass\n" +
+         "where (" + String.join(" or ", relKindConds) + ")" +
+         (schema != null ? "\n  and n.nspname like ?" : "");
+
+      try ( PreparedStatement ps = dbmd.getConnection().prepareStatement(sql) )
+      {
+         if ( schema != null )
+            ps.setString(1, schema);
+
+         try ( ResultSet rs = ps.executeQuery() )
+         {
+            while ( rs.next() )
+            {
+               RelId relId = new RelId(rs.getString(1), requireNonNull(rs.getString(2)));
+
+               if ( !StringFuns.matches(excludeRelsPattern, relId.getIdString()) )
+               {
+                  RelMetadata.RelType relType = "r".equals(rs.getString(3)) ? Table : View;
+
+                  relDescrs.add(new RelDescr(relId, relType, rs.getString(4)));
+               }
+            }
+         }
+      }
+
+      return relDescrs;
+   }
+
+   @Override
+   protected int getRelationMetadataBatchSize()
+   {
+      return RELATION_METADATA_BATCH_SIZE;
+   }
+
+   @Override
+   public List<RelMetadata> fetchRelationMetadatas
+      (
+         List<RelDescr> relDescrs, // descriptions of relations to include
+         @Nullable String schema,
+         DatabaseMetaData dbmd
+      )
+      throws SQLException
+   {
+      if ( relDescrs.isEmpty() )
+         return new ArrayList<>();
+
+      Map<RelId,RelDescr> relDescrsByRelId = relDescrs.stream().collect(toMap(RelDescr::getRelationId, identity()));
+
+      BaseConnection conn = dbmd.getConnection().unwrap(BaseConnection.class);
+      TypeInfo typeInfo = conn.getTypeInfo();
+
+      String sql =
+         "select\n" +
+         "  n.nspname, c.relname, a.attname, a.atttypid, a.atttypmod,\n" +
+         "  a.attnotnull or (t.typtype = 'd' and t.typnotnull) as attnotnull,\n" +
+         "  t.typtype, t.typbasetype, t.typtypmod,\n" +
+         "  pg_catalog.pg_get_expr(def.adbin, def.adrelid) as adsrc,\n" +
+         "  pk.keyseq\n" +
+         "from pg_catalog.pg_class c\n" +
+         "join pg_catalog.pg_namespace n on n.oid = c.relnamespace\n" +
+         "join pg_catalog.pg_attribute a on a.attrelid = c.oid\n" +
+         "join pg_catalog.pg_type t on t.oid = a.atttypid\n" +
+         "left join pg_catalog.pg_attrdef def on def.adrelid = a.attrelid and def.adnum = a.attnum\n" +
+         "left join (\n" +
+         "  select i.indrelid, k.attnum, k.keyseq\n" +
+         "  from pg_catalog.pg_index i\n" +
+         "  cross join unnest(i.indkey::int2[]) with ordinality k(attnum, keyseq)\n" +
+         "  where i.indisprimary\n" +
+         ") pk on pk.indrelid = c.oid and pk.attnum = a.attnum\n" +
+         "where c.relkind in ('r','p','v','f','m') and a.attnum > 0 and not a.attisdropped\n" +
+         "  and c.relname = any(?)" +
+         (schema != null ? "\n  and n.nspname like ?" : "") + "\n" +
+         "order by n.nspname, c.relname, a.attnum";
+
+      // Restrict by relation names so that only the needed relations are read when refreshing a few relations.
+      Object[] relNames = relDescrsByRelId.keySet().stream().map(RelId::getName).distinct().toArray();
+
+      try ( PreparedStatement ps = conn.prepareStatement(sql) )
+      {
+         ps.setArray(1, conn.createArrayOf("text", relNames));
+         if ( schema != null )
+            ps.setString(2, schema);
+
+         try ( ResultSet rs = ps.executeQuery() )
+         {
+            List<RelMetadata> relMds = new ArrayList<>();
+            @Nullable RelMetadataBuilder rmdBldr = null;
+
+            while ( rs.next() )
+            {
+               RelId relId = new RelId(rs.getString("nspname"), requireNonNull(rs.getString("relname")));
+
+               @Nullable RelDescr relDescr = relDescrsByRelId.get(relId);
+               if ( relDescr != null ) // Include this relation?
+               {
+                  Field f = makeField(rs, typeInfo, conn);
+
+                  // Relation changed ?
+                  if ( rmdBldr == null || !relId.equals(rmdBldr.getRelId()) )
+                  {
+                     // finalize previous if any
+                     if ( rmdBldr != null )
+                        relMds.add(rmdBldr.build());
+
+                     rmdBldr = new RelMetadataBuilder(relId, relDescr.getRelationType());
+                  }
+
+                  rmdBldr.addField(f);
+               }
+            }
+
+            if ( rmdBldr != null )
+               relMds.add(rmdBldr.build());
+
+            return relMds;
+         }
+      }
+   }
+
+   /// Make a field from a row of the pg_catalog columns query, deriving type code, type name and sizes the same way
+   /// as the pg driver does for its DatabaseMetaData.getColumns() results.
+   private Field makeField
+      (
+         ResultSet rs,
+         TypeInfo typeInfo,
+         BaseConnection conn
+      )
+      throws SQLException
+   {
+      String name = requireNonNull(rs.getString("attname"));
+      int typeOid = (int)rs.getLong("atttypid");
+      int typeMod = rs.getInt("atttypmod");
+      String typtype = requireNonNull(rs.getString("typtype"));
+
+      int typeCode =
+         typtype.equals("c") ? Types.STRUCT
+         : typtype.equals("d") ? Types.DISTINCT
+         : typtype.equals("e") ? Types.VARCHAR
+         : typeInfo.getSQLType(typeOid);
+
+      String dbType = requireNonNull(typeInfo.getPGType(typeOid));
+
+      @Nullable String defaultExpr = rs.getString("adsrc");
+      if ( defaultExpr != null && defaultExpr.contains("nextval(") )
+      {
+         if ( dbType.equals("int4") )
+            dbType = "serial";
+         else if ( dbType.equals("int8") )
+            dbType = "bigserial";
+         else if ( dbType.equals("int2") && conn.haveMinimumServerVersion(ServerVersion.v9_2) )
+            dbType = "smallserial";
+      }
+
+      int decimalDigits;
+      int size;
+      if ( typeCode == Types.DISTINCT ) // domain type
+      {
+         int baseTypeOid = (int)rs.getLong("typbasetype");
+         int domainTypeMod = rs.getInt("typtypmod");
+         decimalDigits = typeInfo.getScale(baseTypeOid, typeMod);
+         if ( domainTypeMod == -1 )
+            size = typeInfo.getPrecision(baseTypeOid, typeMod);
+         else if ( baseTypeOid == Oid.NUMERIC )
+         {
+            decimalDigits = typeInfo.getScale(baseTypeOid, domainTypeMod);
+            size = typeInfo.getPrecision(baseTypeOid, domainTypeMod);
+         }
+         else
+            size = domainTypeMod;
+      }
+      else
+      {
+         decimalDigits = typeInfo.getScale(typeOid, typeMod);
+         size = typeInfo.getPrecision(typeOid, typeMod);
+         if ( typeCode != Types.NUMERIC && size == 0 )
+            size = typeInfo.getDisplaySize(typeOid, typeMod);
+      }
+
+      boolean unsetNumericScale = (typeCode == Types.NUMERIC || typeCode == Types.DECIMAL) && typeMod == -1;
+
+      int nullableCode = rs.getBoolean("attnotnull") ? ResultSetMetaData.columnNoNulls : ResultSetMetaData.columnNullable;
+
+      return
+         makeField(
+            name,
+            typeCode,
+            dbType,
+            size,
+            unsetNumericScale ? null : decimalDigits,
+            nullableCode,
+            getRSInt(rs, "keyseq")
+         );
+   }
+
+   /// Fetch indexes for the given relations from pg_index in a single query. Only key columns are included, omitting any
+   /// non-key columns added with INCLUDE, and expression key columns are represented by their expression text.
+   @Override
+   public Map<RelId,List<Index>> fetchIndexes
+      (
+         List<RelDescr> relDescrs,
+         @Nullable String schema,
+         DatabaseMetaData dbmd
+      )
+      throws SQLException
+   {
+      Map<RelId,List<Index>> indexesByRelId = new HashMap<>();
+
+      if ( relDescrs.isEmpty() )
+         return indexesByRelId;
+
+      BaseConnection conn = dbmd.getConnection().unwrap(BaseConnection.class);
+
+      String sql =
+         "select\n" +
+         "  n.nspname, c.relname, ic.relname as index_name, i.indisunique,\n" +
+         "  case when k.attnum > 0 then a.attname\n" +
+         "       else pg_catalog.pg_get_indexdef(i.indexrelid, k.keyseq::int, false) end as column_name,\n" +
+         "  pg_catalog.pg_get_expr(i.indpred, i.indrelid) as filter_condition\n" +
+         "from pg_catalog.pg_index i\n" +
+         "join pg_catalog.pg_class c on c.oid = i.indrelid\n" +
+         "join pg_catalog.pg_namespace n on n.oid = c.relnamespace\n" +
+         "join pg_catalog.pg_class ic on ic.oid = i.indexrelid\n" +
+         "cross join unnest(i.indkey::int2[]) with ordinality k(attnum, keyseq)\n" +
+         "left join pg_catalog.pg_attribute a on a.attrelid = c.oid and a.attnum = k.attnum\n" +
+         "where c.relkind in ('r','p') and c.relname = any(?)" +
+         (schema != null ? "\n  and n.nspname like ?" : "") +
+         (conn.haveMinimumServerVersion(ServerVersion.v11) ? "\n  and k.keyseq <= i.indnkeyatts" : "") + "\n" +
+         "order by n.nspname, c.relname, ic.relname, k.keyseq";
+
+      Set<RelId> relIds = relDescrs.stream().map(RelDescr::getRelationId).collect(toSet());
+      Object[] relNames = relIds.stream().map(RelId::getName).distinct().toArray();
+
+      try ( PreparedStatement ps = conn.prepareStatement(sql) )
+      {
+         ps.setArray(1, conn.createArrayOf("text", relNames));
+         if ( schema != null )
+            ps.setString(2, schema);
+
+         try ( ResultSet rs = ps.executeQuery() )
+         {
+            @Nullable RelId bldrRelId = null;
+            @Nullable IndexBuilder idxBldr = null;
+
+            while ( rs.next() )
+            {
+               RelId relId = new RelId(rs.getString("nspname"), requireNonNull(rs.getString("relname")));
+
+               if ( !relIds.contains(relId) )
+                  continue;
+
+               String idxName = requireNonNull(rs.getString("index_name"));
+
+               // Index changed ?
+               if ( idxBldr == null || !relId.equals(bldrRelId) || !idxName.equals(idxBldr.getName()) )
+               {
+                  if ( idxBldr != null && bldrRelId != null )
+                     indexesByRelId.computeIfAbsent(bldrRelId, k -> new ArrayList<>()).add(idxBldr.build());
+
+                  bldrRelId = relId;
+                  idxBldr = new IndexBuilder(idxName, rs.getBoolean("indisunique"), rs.getString("filter_condition"));
+               }
+
+               idxBldr.addFieldName(requireNonNull(rs.getString("column_name")));
+            }
+
+            if ( idxBldr != null && bldrRelId != null )
+               indexesByRelId.computeIfAbsent(bldrRelId, k -> new ArrayList<>()).add(idxBldr.build());
+         }
+      }
+
+      return indexesByRelId;
+   }
+
+   /// Fetch change markers made from the system column xmin of the catalog rows describing the relation and its
+   /// attributes, column defaults and constraints, which is changed in each catalog row updated by a DDL statement.
+   /// The relation's oid is included so a dropped and re-created relation is also seen as changed.
+   @Override
+   public Map<RelId,String> fetchRelationChangeMarkers
+      (
+         DatabaseMetaData dbmd,
+         @Nullable String schema
+      )
+      throws SQLException
+   {
+      String sql =
+         "select\n" +
+         "  n.nspname, c.relname,\n" +
+         "  c.oid || '.' || c.xmin::text || '.' || md5(\n" +
+         "    coalesce((select string_agg(a.attnum || ':' || a.xmin::text, ',' order by a.attnum)\n" +
+         "              from pg_catalog.pg_attribute a where a.attrelid = c.oid and a.attnum > 0), '') || '/' ||\n" +
+         "    coalesce((select string_agg(ad.adnum || ':' || ad.xmin::text, ',' order by ad.adnum)\n" +
+         "              from pg_catalog.pg_attrdef ad where ad.adrelid = c.oid), '') || '/' ||\n" +
+         "    coalesce((select string_agg(con.oid || ':' || con.xmin::text, ',' order by con.oid)\n" +
+         "              from pg_catalog.pg_constraint con where con.conrelid = c.oid), '')\n" +
+         "  ) change_marker\n" +
+         "from pg_catalog.pg_class c\n" +
+         "join pg_catalog.pg_namespace n on n.oid = c.relnamespace\n" +
+         "where c.relkind in ('r','p','v','f','m')" +
+         (schema != null ? "\n  and n.nspname like ?" : "");
+
+      Map<RelId,String> changeMarkers = new HashMap<>();
+
+      try ( PreparedStatement ps = dbmd.getConnection().prepareStatement(sql) )
+      {
+         if ( schema != null )
+            ps.setString(1, schema);
+
+         try ( ResultSet rs = ps.executeQuery() )
+         {
+            while ( rs.next() )
+            {
+               RelId relId = new RelId(rs.getString(1), requireNonNull(rs.getString(2)));
+               changeMarkers.put(relId, requireNonNull(rs.getString(3)));
+            }
+         }
+      }
+
+      return changeMarkers;
+   }
+
+   /// Fetch statistics from pg_class, which are updated by vacuum, analyze and some DDL statements. A negative
+   /// reltuples value indicates that the table has not yet been vacuumed or analyzed.
+   @Override
+   public Map<RelId,RelStatistics> fetchRelationStatistics
+      (
+         DatabaseMetaData dbmd,
+         @Nullable String schema
+      )
+      throws SQLException
+   {
+      String sql =
+         "select n.nspname, c.relname, c.reltuples::bigint, c.relpages\n" +
+         "from pg_catalog.pg_class c\n" +
+         "join pg_catalog.pg_namespace n on n.oid = c.relnamespace\n" +
+         "where c.relkind in ('r','p','m') and c.reltuples >= 0" +
+         (schema != null ? "\n  and n.nspname like ?" : "");
+
+      Map<RelId,RelStatistics> stats = new HashMap<>();
+
+      try ( PreparedStatement ps = dbmd.getConnection().prepareStatement(sql) )
+      {
+         if ( schema != null )
+            ps.setString(1, schema);
+
+         try ( ResultSet rs = ps.executeQuery() )
+         {
+            while ( rs.next() )
+            {
+               RelId relId = new RelId(rs.getString(1), requireNonNull(rs.getString(2)));
+               stats.put(relId, new RelStatistics(rs.getLong(3), rs.getLong(4)));
+            }
+         }
+      }
+
+      return stats;
+   }
+
+   @Override
+   public List<ForeignKey> fetchForeignKeys
+      (
+         @Nullable String schema,
+         DatabaseMetaData dbmd,
+         @Nullable Pattern excludeRelsPattern
+      )
+      throws SQLException
+   {
+      String sql =
+         "select\n" +
+         "  con.oid, fkn.nspname fk_schema, fkc.relname fk_table, pkn.nspname pk_schema, pkc.relname pk_table,\n" +
+         "  fka.attname fk_column, pka.attname pk_column\n" +
+         "from pg_catalog.pg_constraint con\n" +
+         "join pg_catalog.pg_class fkc on fkc.oid = con.conrelid\n" +
+         "join pg_catalog.pg_namespace fkn on fkn.oid = fkc.relnamespace\n" +
+         "join pg_catalog.pg_class pkc on pkc.oid = con.confrelid\n" +
+         "join pg_catalog.pg_namespace pkn on pkn.oid = pkc.relnamespace\n" +
+         "cross join unnest(con.conkey, con.confkey) with ordinality k(fk_attnum, pk_attnum, keyseq)\n" +
+         "join pg_catalog.pg_attribute fka on fka.attrelid = con.conrelid and fka.attnum = k.fk_attnum\n" +
+         "join pg_catalog.pg_attribute pka on pka.attrelid = con.confrelid and pka.attnum = k.pk_attnum\n" +
+         "where con.contype = 'f'" +
+         (schema != null ? "\n  and fkn.nspname = ?" : "") + "\n" +
+         "order by pkn.nspname, pkc.relname, con.conname, con.oid, k.keyseq";
+
+      List<ForeignKey> fks = new ArrayList<>();
+
+      try ( PreparedStatement ps = dbmd.getConnection().prepareStatement(sql) )
+      {
+         if ( schema != null )
+            ps.setString(1, schema);
+
+         try ( ResultSet rs = ps.executeQuery() )
+         {
+            @Nullable ForeignKeyBuilder fkBldr = null;
+            long fkOid = -1;
+
+            while ( rs.next() )
+            {
+               if ( rs.getLong("oid") != fkOid ) // starting new fk
+               {
+                  fkOid = rs.getLong("oid");
+
+                  // Finalize previous fk if any.
+                  if ( fkBldr != null && fkBldr.neitherRelMatches(excludeRelsPattern) )
+                     fks.add(fkBldr.build());
+
+                  fkBldr = new ForeignKeyBuilder(
+                     null,
+                     new RelId(rs.getString("fk_schema"), requireNonNull(rs.getString("fk_table"))),
+                     new RelId(rs.getString("pk_schema"), requireNonNull(rs.getString("pk_table")))
+                  );
+               }
+
+               requireNonNull(fkBldr).addComponent(
+                  new ForeignKey.Component(
+                     requireNonNull(rs.getString("fk_column")),
+                     requireNonNull(rs.getString("pk_column"))
+                  )
+               );
+            }
+
+            if ( fkBldr != null && fkBldr.neitherRelMatches(excludeRelsPattern) )
+               fks.add(fkBldr.build());
+         }
+      }
+
+      return fks;
+   }
+}
@@ -1,24 +1,36 @@
 package org.sqljson.dbmd;
 
 import java.util.*;
-import static java.util.Collections.emptyList;
 import static java.util.Collections.unmodifiableList;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
-@JsonPropertyOrder({"relationId", "relationType", "fields"})
+@JsonPropertyOrder({"relationId", "relationType", "fields", "indexes", "changeMarker", "statistics"})
 public class RelMetadata
 {
    private final RelId relationId;
 
    private final RelType relationType;
 
-   private final List<Field> fields;
+   // Fields are stored in columnar form, and presented as views of that storage.
+   private final FieldTable fieldTable;
+
+   // Indexes on the relation, if recorded.
+   private final @Nullable List<Index> indexes;
+
+   // Opaque value from the database catalog which changes whenever the relation's definition changes, if recorded.
+   private final @Nullable String changeMarker;
+
+   // Table size estimates from the database's statistics, if recorded.
+   private final @Nullable RelStatistics statistics;
 
    public enum RelType { Table, View, Unknown }
 
@@ -30,30 +42,98 @@ public class RelMetadata
          List<Field> fields
       )
    {
-      this.relationId = requireNonNull(relationId);
-      this.relationType = requireNonNull(relationType);
-      this.fields = unmodifiableList(new ArrayList<>(requireNonNull(fields)));
+      this(relationId, relationType, fields, null, null, null);
+   }
+
+   @JsonCreator
+   public RelMetadata
+      (
+         @JsonProperty("relationId") RelId relationId,
+         @JsonProperty("relationType") RelType relationType,
+         @JsonProperty("fields") List<Field> fields,
+         @JsonProperty("indexes") @Nullable List<Index> indexes,
+         @JsonProperty("changeMarker") @Nullable String changeMarker,
+         @JsonProperty("statistics") @Nullable RelStatistics statistics
+      )
+   {
+      this(relationId, relationType, FieldTable.of(requireNonNull(fields)), indexes, changeMarker, statistics);
    }
 
-   RelMetadata()
+   private RelMetadata
+      (
+         RelId relationId,
+         RelType relationType,
+         FieldTable fieldTable,
+         @Nullable List<Index> indexes,
+         @Nullable String changeMarker,
+         @Nullable RelStatistics statistics
+      )
    {
-      this.relationId = RelId.DUMMY_INSTANCE;
-      this.relationType = RelType.Table;
-      this.fields = emptyList();
+      this.relationId = requireNonNull(relationId);
+      this.relationType = requireNonNull(relationType);
+      this.fieldTable = fieldTable;
+      this.indexes = indexes != null ? unmodifiableList(new ArrayList<>(indexes)) : null;
+      this.changeMarker = changeMarker;
+      this.statistics = statistics;
    }
 
    public RelId getRelationId() { return relationId; }
 
    public RelType getRelationType() { return relationType; }
 
-   public List<Field> getFields() { return fields; }
+   public List<Field> getFields()
+   {
+      return new AbstractList<Field>()
+      {
+         @Override
+         public Field get(int ix)
+         {
+            Objects.checkIndex(ix, fieldTable.size());
+            return new Field(fieldTable, ix);
+         }
+
+         @Override
+         public int size() { return fieldTable.size(); }
+      };
+   }
+
+   /// Return the field with the given name exactly as stored in the metadata, if any.
+   public @Nullable Field getField(String name)
+   {
+      int ix = fieldTable.indexOf(name);
+      return ix >= 0 ? new Field(fieldTable, ix) : null;
+   }
+
+   @JsonInclude(JsonInclude.Include.NON_NULL)
+   public @Nullable List<Index> getIndexes() { return indexes; }
+
+   public RelMetadata withIndexes(@Nullable List<Index> indexes)
+   {
+      return new RelMetadata(relationId, relationType, fieldTable, indexes, changeMarker, statistics);
+   }
+
+   @JsonInclude(JsonInclude.Include.NON_NULL)
+   public @Nullable String getChangeMarker() { return changeMarker; }
+
+   public RelMetadata withChangeMarker(@Nullable String changeMarker)
+   {
+      return new RelMetadata(relationId, relationType, fieldTable, indexes, changeMarker, statistics);
+   }
+
+   @JsonInclude(JsonInclude.Include.NON_NULL)
+   public @Nullable RelStatistics getStatistics() { return statistics; }
+
+   public RelMetadata withStatistics(@Nullable RelStatistics statistics)
+   {
+      return new RelMetadata(relationId, relationType, fieldTable, indexes, changeMarker, statistics);
+   }
 
    @JsonIgnore()
    public List<Field> getPrimaryKeyFields()
    {
       List<Field> pks = new ArrayList<>();
 
-      for ( Field f: fields )
+      for ( Field f: getFields() )
       {
          if ( f.getPrimaryKeyPartNumber() != null )
             pks.add(f);
@@ -0,0 +1,36 @@
+package org.sqljson.dbmd;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/// Size estimates for a table as last recorded by the database's statistics gathering, which may be out of date.
+@JsonPropertyOrder({"rowCount", "pageCount"})
+public final class RelStatistics
+{
+   // Estimated number of rows in the table.
+   private long rowCount;
+
+   // Estimated number of storage pages (Postgres) or blocks (Oracle) used by the table, if known.
+   private @Nullable Long pageCount;
+
+   public RelStatistics
+      (
+         long rowCount,
+         @Nullable Long pageCount
+      )
+   {
+      this.rowCount = rowCount;
+      this.pageCount = pageCount;
+   }
+
+   RelStatistics()
+   {
+      this.rowCount = 0;
+      this.pageCount = null;
+   }
+
+   public long getRowCount() { return rowCount; }
+
+   public @Nullable Long getPageCount() { return pageCount; }
+}
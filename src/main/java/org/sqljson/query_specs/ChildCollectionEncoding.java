@@ -0,0 +1,13 @@
+package org.sqljson.query_specs;
+
+
+/// How the elements of child collections are encoded in json.
+public enum ChildCollectionEncoding
+{
+   /// Encode each element as a json object, with a property for each of its fields.
+   OBJECTS,
+   /// Encode each element as a json array of its property values, in the order of the properties of its generated
+   /// result type, so that property names are not repeated for every element. Generated Java types read these arrays
+   /// into objects directly, and generated TypeScript modules include functions decoding them into objects.
+   TUPLES
+}
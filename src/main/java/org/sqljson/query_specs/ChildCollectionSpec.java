@@ -18,6 +18,10 @@ public final class ChildCollectionSpec
    private final @Nullable String filter;
    private final @Nullable Boolean unwrap;
    private final @Nullable String orderBy;
+   private final @Nullable ChildCollectionStrategy strategy; // query's child collection strategy if empty
+   private final @Nullable Integer limit; // maximum child rows per parent, in orderBy order
+   private final @Nullable Integer offset; // leading child rows per parent to skip, in orderBy order
+   private final @Nullable ChildCollectionEncoding encoding; // query's child collection encoding if empty
 
    private ChildCollectionSpec()
    {
@@ -28,6 +32,10 @@ public final class ChildCollectionSpec
       this.filter = null;
       this.unwrap = false;
       this.orderBy = null;
+      this.strategy = null;
+      this.limit = null;
+      this.offset = null;
+      this.encoding = null;
    }
 
    public ChildCollectionSpec
@@ -37,7 +45,11 @@ public final class ChildCollectionSpec
          @Nullable List<String> fkFields,
          @Nullable String filter,
          @Nullable Boolean unwrap,
-         @Nullable String orderBy
+         @Nullable String orderBy,
+         @Nullable ChildCollectionStrategy strategy,
+         @Nullable Integer limit,
+         @Nullable Integer offset,
+         @Nullable ChildCollectionEncoding encoding
       )
    {
       this.collectionName = collectionName;
@@ -47,6 +59,10 @@ public final class ChildCollectionSpec
       this.filter = filter;
       this.unwrap = unwrap;
       this.orderBy = orderBy;
+      this.strategy = strategy;
+      this.limit = limit;
+      this.offset = offset;
+      this.encoding = encoding;
    }
 
    public ChildCollectionSpec
@@ -56,7 +72,11 @@ public final class ChildCollectionSpec
          CustomJoinCondition customJoinCondition,
          @Nullable String filter,
          @Nullable Boolean unwrap,
-         @Nullable String orderBy
+         @Nullable String orderBy,
+         @Nullable ChildCollectionStrategy strategy,
+         @Nullable Integer limit,
+         @Nullable Integer offset,
+         @Nullable ChildCollectionEncoding encoding
       )
    {
       this.collectionName = collectionName;
@@ -66,6 +86,10 @@ public final class ChildCollectionSpec
       this.filter = filter;
       this.unwrap = unwrap;
       this.orderBy = orderBy;
+      this.strategy = strategy;
+      this.limit = limit;
+      this.offset = offset;
+      this.encoding = encoding;
    }
 
    public String getCollectionName() { return collectionName; }
@@ -87,4 +111,22 @@ public final class ChildCollectionSpec
    public @Nullable Boolean getUnwrap() { return unwrap; }
 
    public @Nullable String getOrderBy() { return orderBy; }
+
+   public @Nullable ChildCollectionStrategy getStrategy() { return strategy; }
+
+   /// The maximum number of child rows in the collection of each parent, the first in orderBy order after any offset.
+   public @Nullable Integer getLimit() { return limit; }
+
+   /// The number of the first child rows in orderBy order to leave out of the collection of each parent.
+   public @Nullable Integer getOffset() { return offset; }
+
+   public @Nullable ChildCollectionEncoding getEncoding() { return encoding; }
+
+   /// Whether the collection's elements are encoded as tuples, given the query's default encoding. The elements of
+   /// unwrapped collections are their sole property values whatever the encoding.
+   public boolean hasTupleElements(@Nullable ChildCollectionEncoding queryEncoding)
+   {
+      @Nullable ChildCollectionEncoding enc = encoding != null ? encoding : queryEncoding;
+      return enc == ChildCollectionEncoding.TUPLES && !Boolean.TRUE.equals(unwrap);
+   }
 }
@@ -0,0 +1,15 @@
+package org.sqljson.query_specs;
+
+
+/// How the SQL for child collections is generated. Each strategy yields the same JSON.
+public enum ChildCollectionStrategy
+{
+   /// Aggregate the child rows in a correlated subquery within the select clause of the parent query.
+   CORRELATED_SUBQUERY,
+   /// Aggregate the child rows in a lateral subquery joined to the parent table, which can allow the database more
+   /// freedom in planning the query.
+   LATERAL_JOIN,
+   /// Aggregate the child rows for all parents at once, grouped by the child's foreign key fields, and join the
+   /// aggregates to the parent table. This suits queries returning many parents, allowing hash aggregation and joins.
+   PREAGGREGATED_JOIN
+}
@@ -0,0 +1,13 @@
+package org.sqljson.query_specs;
+
+
+/// The type of the json values built by generated queries, where the database has more than one. Only Postgres
+/// distinguishes these, other databases building their own json values for either.
+public enum JsonType
+{
+   /// Build values of the binary jsonb type, whose objects have their keys sorted and deduplicated as they're built.
+   JSONB,
+   /// Build values of the text json type, which keep their properties as built, avoiding the conversion to binary
+   /// at each level of nesting. This suits results which are only sent to the client as text.
+   JSON
+}
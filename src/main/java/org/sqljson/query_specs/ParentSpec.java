@@ -17,10 +17,11 @@ public final class ParentSpec
    private final @Nullable String referenceName;
    private final @Nullable List<String> viaForeignKeyFields;
    private final @Nullable CustomJoinCondition customJoinCondition;
+   private final @Nullable ReferencedParentStrategy strategy; // for referenced parents only
 
    private ParentSpec()
    {
-      this(new TableJsonSpec(), null, null, null);
+      this(new TableJsonSpec(), null, null, null, null);
    }
 
    public ParentSpec
@@ -30,7 +31,7 @@ public final class ParentSpec
          @Nullable List<String> viaForeignKeyFields
       )
    {
-      this(tableJson, referenceName, viaForeignKeyFields, null);
+      this(tableJson, referenceName, viaForeignKeyFields, null, null);
    }
 
    public ParentSpec
@@ -38,13 +39,15 @@ public final class ParentSpec
          TableJsonSpec tableJson,
          @Nullable String referenceName,
          @Nullable List<String> viaForeignKeyFields,
-         @Nullable CustomJoinCondition customJoinCondition
+         @Nullable CustomJoinCondition customJoinCondition,
+         @Nullable ReferencedParentStrategy strategy
       )
    {
       this.tableJson = tableJson;
       this.referenceName = referenceName;
       this.viaForeignKeyFields = viaForeignKeyFields;
       this.customJoinCondition = customJoinCondition;
+      this.strategy = strategy;
    }
    public TableJsonSpec getTableJson() { return getParentTableJsonSpec(); }
 
@@ -54,6 +57,9 @@ public final class ParentSpec
 
    public @Nullable CustomJoinCondition getCustomJoinCondition() { return customJoinCondition; }
 
+   /// Strategy for generating this parent if referenced, overriding the query's referenced parent strategy.
+   public @Nullable ReferencedParentStrategy getStrategy() { return strategy; }
+
    @JsonIgnore
    public TableJsonSpec getParentTableJsonSpec() { return tableJson; }
 
@@ -7,6 +7,8 @@ import static java.util.Collections.unmodifiableList;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import static org.sqljson.query_specs.PropertyNameDefault.CAMELCASE;
 
 
@@ -15,6 +17,8 @@ public final class QueryGroupSpec
    private @Nullable String defaultSchema = null;
    private PropertyNameDefault propertyNameDefault = CAMELCASE;
    private List<String> generateUnqualifiedNamesForSchemas = emptyList();
+   private @Nullable JsonType jsonType = null;
+   private @Nullable Boolean oracleExtendedStringSize = null;
    private List<QuerySpec> querySpecs = emptyList();
 
    private QueryGroupSpec() {}
@@ -24,12 +28,16 @@ public final class QueryGroupSpec
          @Nullable String defaultSchema,
          PropertyNameDefault propertyNameDefault,
          List<String> generateUnqualifiedNamesForSchemas,
+         @Nullable JsonType jsonType,
+         @Nullable Boolean oracleExtendedStringSize,
          List<QuerySpec> querySpecs
       )
    {
       this.defaultSchema = defaultSchema;
       this.propertyNameDefault = propertyNameDefault;
       this.generateUnqualifiedNamesForSchemas = generateUnqualifiedNamesForSchemas;
+      this.jsonType = jsonType;
+      this.oracleExtendedStringSize = oracleExtendedStringSize;
       this.querySpecs = unmodifiableList(new ArrayList<>(querySpecs));
    }
 
@@ -39,6 +47,20 @@ public final class QueryGroupSpec
 
    public List<String> getGenerateUnqualifiedNamesForSchemas() { return generateUnqualifiedNamesForSchemas; }
 
+   /// The type of the json values built by the group's queries where the database distinguishes json types, by
+   /// default JSONB.
+   public @Nullable JsonType getJsonType() { return jsonType; }
+
+   /// Whether the Oracle database has extended string size enabled (max_string_size = extended), allowing json
+   /// results of up to 32767 bytes to be returned as varchar2 rather than clob values, by default false.
+   public @Nullable Boolean getOracleExtendedStringSize() { return oracleExtendedStringSize; }
+
+   @JsonIgnore
+   public boolean getOracleExtendedStringSizeOrDefault()
+   {
+      return oracleExtendedStringSize != null ? oracleExtendedStringSize : false;
+   }
+
    public List<QuerySpec> getQuerySpecs() { return querySpecs; }
 }
 
@@ -23,6 +23,16 @@ public final class QuerySpec
    private final @Nullable String orderBy;
    private final @Nullable Boolean forUpdate;
    private final @Nullable String typesFileHeader;
+   private final @Nullable ChildCollectionStrategy childCollectionStrategy; // default for the query's child collections
+   private final @Nullable ChildCollectionEncoding childCollectionEncoding; // default for the query's child collections
+   private final @Nullable ReferencedParentStrategy referencedParentStrategy; // default for referenced parents
+   private final @Nullable SharedSubqueryMode sharedSubqueries;
+   private final @Nullable List<String> pageKeyFields; // unique ordering for paging, primary key fields if empty
+   private final @Nullable Boolean generateByKeysVariant;
+   private final @Nullable Integer jsonArrayChunkSize; // maximum elements per array of JSON_ARRAY_CHUNK_ROWS results
+   private final @Nullable JsonType jsonType; // inherited from query group spec if empty
+   private final @Nullable Boolean omitNullProperties;
+   private final @Nullable Boolean compactPropertyKeys;
 
    private QuerySpec()
    {
@@ -35,6 +45,16 @@ public final class QuerySpec
       this.orderBy = null;
       this.forUpdate = false;
       this.typesFileHeader = null;
+      this.childCollectionStrategy = null;
+      this.childCollectionEncoding = null;
+      this.referencedParentStrategy = null;
+      this.sharedSubqueries = null;
+      this.pageKeyFields = null;
+      this.generateByKeysVariant = false;
+      this.jsonArrayChunkSize = null;
+      this.jsonType = null;
+      this.omitNullProperties = null;
+      this.compactPropertyKeys = null;
    }
 
    public QuerySpec
@@ -47,7 +67,17 @@ public final class QuerySpec
          @Nullable PropertyNameDefault propertyNameDefault,
          @Nullable String orderBy,
          @Nullable Boolean forUpdate,
-         @Nullable String typesFileHeader
+         @Nullable String typesFileHeader,
+         @Nullable ChildCollectionStrategy childCollectionStrategy,
+         @Nullable ChildCollectionEncoding childCollectionEncoding,
+         @Nullable ReferencedParentStrategy referencedParentStrategy,
+         @Nullable SharedSubqueryMode sharedSubqueries,
+         @Nullable List<String> pageKeyFields,
+         @Nullable Boolean generateByKeysVariant,
+         @Nullable Integer jsonArrayChunkSize,
+         @Nullable JsonType jsonType,
+         @Nullable Boolean omitNullProperties,
+         @Nullable Boolean compactPropertyKeys
       )
    {
       this.queryName = queryName;
@@ -61,6 +91,16 @@ public final class QuerySpec
       this.orderBy = orderBy;
       this.forUpdate = forUpdate;
       this.typesFileHeader = typesFileHeader;
+      this.childCollectionStrategy = childCollectionStrategy;
+      this.childCollectionEncoding = childCollectionEncoding;
+      this.referencedParentStrategy = referencedParentStrategy;
+      this.sharedSubqueries = sharedSubqueries;
+      this.pageKeyFields = pageKeyFields != null ? unmodifiableList(new ArrayList<>(pageKeyFields)) : null;
+      this.generateByKeysVariant = generateByKeysVariant;
+      this.jsonArrayChunkSize = jsonArrayChunkSize;
+      this.jsonType = jsonType;
+      this.omitNullProperties = omitNullProperties;
+      this.compactPropertyKeys = compactPropertyKeys;
       if ( valueOr(generateResultTypes, true) && !valueOr(generateSource, true) )
          throw new RuntimeException(
             "In query \"" + queryName + "\", cannot generate result types without " +
@@ -110,4 +150,68 @@ public final class QuerySpec
    }
 
    public @Nullable String getTypesFileHeader() { return typesFileHeader; }
+
+   /// Strategy for generating child collections in this query which do not specify their own strategy.
+   public @Nullable ChildCollectionStrategy getChildCollectionStrategy() { return childCollectionStrategy; }
+
+   /// The encoding of the elements of the query's child collections which don't specify their own, by default OBJECTS.
+   public @Nullable ChildCollectionEncoding getChildCollectionEncoding() { return childCollectionEncoding; }
+
+   /// Strategy for generating referenced parents in this query which do not specify their own strategy.
+   public @Nullable ReferencedParentStrategy getReferencedParentStrategy() { return referencedParentStrategy; }
+
+   /// How subqueries repeated within this query are shared, by default not at all (NONE).
+   public @Nullable SharedSubqueryMode getSharedSubqueries() { return sharedSubqueries; }
+
+   @JsonIgnore
+   public SharedSubqueryMode getSharedSubqueriesOrDefault()
+   {
+      return sharedSubqueries != null ? sharedSubqueries : SharedSubqueryMode.NONE;
+   }
+
+   /// Fields of the top table, unique in the table, in whose order the JSON_OBJECT_ROWS_PAGE result representation
+   /// pages through the table, by default the primary key fields.
+   public @Nullable List<String> getPageKeyFields() { return pageKeyFields; }
+
+   /// Whether to also generate a JSON_OBJECT_ROWS_BY_KEYS query, which fetches the rows of the top table for a given
+   /// set of primary key values.
+   public @Nullable Boolean getGenerateByKeysVariant() { return generateByKeysVariant; }
+
+   @JsonIgnore
+   public boolean getGenerateByKeysVariantOrDefault()
+   {
+      return generateByKeysVariant != null ? generateByKeysVariant : false;
+   }
+
+   /// The maximum number of top table objects in the json array of each result row of the JSON_ARRAY_CHUNK_ROWS
+   /// result representation, by default 1000.
+   public @Nullable Integer getJsonArrayChunkSize() { return jsonArrayChunkSize; }
+
+   @JsonIgnore
+   public int getJsonArrayChunkSizeOrDefault()
+   {
+      return jsonArrayChunkSize != null ? jsonArrayChunkSize : 1000;
+   }
+
+   /// The type of the json values built by this query where the database distinguishes json types, by default that of
+   /// the query group.
+   public @Nullable JsonType getJsonType() { return jsonType; }
+
+   /// Whether properties with null values are omitted from the json objects built by this query, rather than included
+   /// with json null values.
+   public @Nullable Boolean getOmitNullProperties() { return omitNullProperties; }
+
+   @JsonIgnore
+   public boolean getOmitNullPropertiesOrDefault()
+   {
+      return omitNullProperties != null ? omitNullProperties : false;
+   }
+
+   public @Nullable Boolean getCompactPropertyKeys() { return compactPropertyKeys; }
+
+   @JsonIgnore
+   public boolean getCompactPropertyKeysOrDefault()
+   {
+      return compactPropertyKeys != null ? compactPropertyKeys : false;
+   }
 }
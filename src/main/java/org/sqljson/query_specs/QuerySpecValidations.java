@@ -2,14 +2,11 @@ package org.sqljson.query_specs;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toSet;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import org.sqljson.dbmd.DatabaseMetadata;
-import org.sqljson.dbmd.Field;
 import org.sqljson.dbmd.RelId;
 import org.sqljson.dbmd.RelMetadata;
 
@@ -121,11 +118,9 @@ public final class QuerySpecValidations
       )
       throws SpecError
    {
-      Set<String> dbmdTableFields = relMd.getFields().stream().map(Field::getName).collect(toSet());
-
       List<String> missingFields =
          fieldNames.stream()
-            .filter(fieldName -> !dbmdTableFields.contains(dbmd.normalizeName(fieldName)))
+            .filter(fieldName -> dbmd.getField(relMd.getRelationId(), fieldName) == null)
             .collect(toList());
 
       if ( !missingFields.isEmpty() )
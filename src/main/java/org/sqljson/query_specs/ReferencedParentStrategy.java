@@ -0,0 +1,13 @@
+package org.sqljson.query_specs;
+
+
+/// How the SQL for referenced parent objects is generated. Each strategy yields the same JSON.
+public enum ReferencedParentStrategy
+{
+   /// Build the parent's row object in a correlated subquery within the select clause of the child query.
+   CORRELATED_SUBQUERY,
+   /// Outer join the parent table's query once in the from clause of the child query, and build the parent's row
+   /// object in its select clause. This lets the database hash or merge join the parent rows rather than probing the
+   /// parent table for each child row.
+   JOIN
+}
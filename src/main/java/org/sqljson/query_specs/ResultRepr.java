@@ -5,5 +5,9 @@ public enum ResultRepr
 {
    MULTI_COLUMN_ROWS,
    JSON_OBJECT_ROWS,
-   JSON_ARRAY_ROW
+   JSON_ARRAY_ROW,
+   JSON_OBJECT_ROWS_PAGE,
+   JSON_OBJECT_ROWS_FIRST_PAGE,
+   JSON_OBJECT_ROWS_BY_KEYS,
+   JSON_ARRAY_CHUNK_ROWS
 }
@@ -0,0 +1,20 @@
+package org.sqljson.query_specs;
+
+
+/// Whether and how subqueries which are repeated within a query are generated once in a with clause and shared.
+/// Repeated subqueries are those of structurally identical referenced parents generated as joins, inline parents
+/// isolated in derived tables, or pre-aggregated child collections, which have the same join fields. Correlated
+/// subqueries are never shared, so that they keep the use of any indexes on their join fields.
+public enum SharedSubqueryMode
+{
+   /// Generate each occurrence of a repeated subquery separately.
+   NONE,
+   /// Share repeated subqueries as common table expressions, leaving their materialization to the database.
+   CTE,
+   /// Share repeated subqueries as common table expressions which the database is asked to materialize, so that each
+   /// is evaluated once.
+   MATERIALIZED_CTE,
+   /// Share repeated subqueries as common table expressions which the database is asked not to materialize, so that
+   /// each may be planned within the queries using it.
+   NOT_MATERIALIZED_CTE
+}
@@ -16,6 +16,7 @@ public class ResultType
    private final List<ParentReferenceProperty> parentReferenceProperties;
    // NOTE: Fields from inline parents are included in the above.
    private final boolean unwrapped;
+   private final boolean tupleEncoded; // encoded as a json array of its property values in property order
 
    ResultType
       (
@@ -32,6 +33,7 @@ public class ResultType
           tableExpressionProperties,
           childCollectionProperties,
           parentReferenceProperties,
+          false,
           false
        );
    }
@@ -43,7 +45,8 @@ public class ResultType
          List<TableExpressionProperty> tableExpressionProperties,
          List<ChildCollectionProperty> childCollectionProperties,
          List<ParentReferenceProperty> parentReferenceProperties,
-         boolean unwrapped
+         boolean unwrapped,
+         boolean tupleEncoded
       )
    {
       this.typeName = typeName;
@@ -52,6 +55,7 @@ public class ResultType
       this.childCollectionProperties = unmodifiableList(new ArrayList<>(childCollectionProperties));
       this.parentReferenceProperties = unmodifiableList(new ArrayList<>(parentReferenceProperties));
       this.unwrapped = unwrapped;
+      this.tupleEncoded = tupleEncoded;
    }
 
    public String getTypeName() { return typeName; }
@@ -82,6 +86,38 @@ public class ResultType
       return parentReferenceProperties.stream().map(ParentReferenceProperty::toNullable).collect(toList());
    }
 
+   /// Get the names of all properties, in the order in which they are declared in generated source code and in which
+   /// their values occur in the tuple encoding of the type.
+   public List<String> getPropertyNames()
+   {
+      List<String> names = new ArrayList<>(getFieldsCount());
+      simpleTableFieldProperties.forEach(p -> names.add(p.getName()));
+      tableExpressionProperties.forEach(p -> names.add(p.getName()));
+      childCollectionProperties.forEach(p -> names.add(p.getName()));
+      parentReferenceProperties.forEach(p -> names.add(p.getName()));
+      return names;
+   }
+
+   /// Get the compact keys standing for the properties in json objects built with compact property keys, by property
+   /// name. The keys follow the property order, so are determined by the query specification alone.
+   public Map<String,String> getCompactPropertyKeys()
+   {
+      Map<String,String> keys = new LinkedHashMap<>();
+      List<String> names = getPropertyNames();
+      for ( int i = 0; i < names.size(); ++i )
+         keys.put(names.get(i), compactPropertyKey(i));
+      return keys;
+   }
+
+   /// The compact key for the property at the given position in property order: "a" to "z", then "aa", "ab" etc.
+   public static String compactPropertyKey(int propertyIndex)
+   {
+      StringBuilder sb = new StringBuilder();
+      for ( int n = propertyIndex; n >= 0; n = n / 26 - 1 )
+         sb.append((char)('a' + n % 26));
+      return sb.reverse().toString();
+   }
+
    public boolean isUnwrapped() { return unwrapped; }
 
    public ResultType withUnwrapped(boolean unwrap)
@@ -89,12 +125,22 @@ public class ResultType
       if ( unwrap == this.unwrapped )
          return this;
       else
-         return new ResultType(typeName, simpleTableFieldProperties, tableExpressionProperties, childCollectionProperties, parentReferenceProperties, unwrap);
+         return new ResultType(typeName, simpleTableFieldProperties, tableExpressionProperties, childCollectionProperties, parentReferenceProperties, unwrap, tupleEncoded);
+   }
+
+   public boolean isTupleEncoded() { return tupleEncoded; }
+
+   public ResultType withTupleEncoded(boolean tupleEncoded)
+   {
+      if ( tupleEncoded == this.tupleEncoded )
+         return this;
+      else
+         return new ResultType(typeName, simpleTableFieldProperties, tableExpressionProperties, childCollectionProperties, parentReferenceProperties, unwrapped, tupleEncoded);
    }
 
    public ResultType withTypeName(String newTypeName)
    {
-      return new ResultType(newTypeName, simpleTableFieldProperties, tableExpressionProperties, childCollectionProperties, parentReferenceProperties, unwrapped);
+      return new ResultType(newTypeName, simpleTableFieldProperties, tableExpressionProperties, childCollectionProperties, parentReferenceProperties, unwrapped, tupleEncoded);
    }
 
    public int getFieldsCount()
@@ -109,7 +155,8 @@ public class ResultType
          tableExpressionProperties.equals(that.tableExpressionProperties) &&
          childCollectionProperties.equals(that.childCollectionProperties) &&
          parentReferenceProperties.equals(that.parentReferenceProperties) &&
-         unwrapped == that.unwrapped;
+         unwrapped == that.unwrapped &&
+         tupleEncoded == that.tupleEncoded;
    }
 
    @Override
@@ -124,14 +171,15 @@ public class ResultType
          tableExpressionProperties.equals(that.tableExpressionProperties) &&
          childCollectionProperties.equals(that.childCollectionProperties) &&
          parentReferenceProperties.equals(that.parentReferenceProperties) &&
-         unwrapped == that.unwrapped;
+         unwrapped == that.unwrapped &&
+         tupleEncoded == that.tupleEncoded;
 
    }
 
    @Override
    public int hashCode()
    {
-      return Objects.hash(typeName, simpleTableFieldProperties, tableExpressionProperties, childCollectionProperties, parentReferenceProperties, unwrapped);
+      return Objects.hash(typeName, simpleTableFieldProperties, tableExpressionProperties, childCollectionProperties, parentReferenceProperties, unwrapped, tupleEncoded);
    }
 
    @Override
@@ -144,6 +192,7 @@ public class ResultType
          ", childCollectionProperties=" + childCollectionProperties +
          ", parentReferenceProperties=" + parentReferenceProperties +
          ", unwrapped=" + unwrapped +
+         ", tupleEncoded=" + tupleEncoded +
          '}';
    }
 }
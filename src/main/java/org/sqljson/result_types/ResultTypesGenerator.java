@@ -5,7 +5,6 @@ import java.util.function.Function;
 import static java.util.Collections.emptyMap;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.*;
-import static java.util.function.Function.identity;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -35,13 +34,26 @@ public class ResultTypesGenerator
 
    public List<ResultType> generateResultTypes(TableJsonSpec tjs)
    {
-      return this.generateResultTypesWithTypesInScope(tjs, emptyMap());
+      return generateResultTypes(tjs, null);
+   }
+
+   /// Generate the result types for the given table json spec, with the given encoding of child collection elements
+   /// for collections not specifying their own.
+   public List<ResultType> generateResultTypes
+      (
+         TableJsonSpec tjs,
+         @Nullable ChildCollectionEncoding defaultCollectionEncoding
+      )
+   {
+      return this.generateResultTypesWithTypesInScope(tjs, false, defaultCollectionEncoding, emptyMap());
    }
 
    @SuppressWarnings("keyfor")
    private List<ResultType> generateResultTypesWithTypesInScope
       (
          TableJsonSpec tjs,
+         boolean tupleEncoded, // whether the top table's type is tuple encoded
+         @Nullable ChildCollectionEncoding defaultCollectionEncoding,
          Map<String,ResultType> envTypesInScope // types by type name
       )
    {
@@ -59,19 +71,22 @@ public class ResultTypesGenerator
       // Inline parents can contribute fields to any primary field category (table field,
       // expression, parent ref, child collection). Get the inline parent fields, and the result
       // types from the tables themselves and recursively from their specified related tables.
-      var inlineParentsContr = getInlineParentContrs(relId, tjs.getInlineParentTablesList(), typesInScope);
+      var inlineParentsContr =
+         getInlineParentContrs(relId, tjs.getInlineParentTablesList(), defaultCollectionEncoding, typesInScope);
       typeBuilder.addAllFieldsFrom(inlineParentsContr.typeBuilder);
       resultTypes.addAll(inlineParentsContr.resultTypes);
       inlineParentsContr.resultTypes.forEach(t -> typesInScope.put(t.getTypeName(), t));
 
       // Get referenced parent fields and result types, with result types from related tables.
-      var refdParentsContr = getRefdParentContrs(relId, tjs.getReferencedParentTablesList(), typesInScope);
+      var refdParentsContr =
+         getRefdParentContrs(relId, tjs.getReferencedParentTablesList(), defaultCollectionEncoding, typesInScope);
       typeBuilder.addParentReferenceProperties(refdParentsContr.parentReferenceProperties);
       resultTypes.addAll(refdParentsContr.resultTypes);
       refdParentsContr.resultTypes.forEach(t -> typesInScope.put(t.getTypeName(), t));
 
       // Get the child collection fields and result types, with result types from related tables.
-      var childCollsContr = getChildCollectionContrs(tjs.getChildTableCollectionsList(), typesInScope);
+      var childCollsContr =
+         getChildCollectionContrs(tjs.getChildTableCollectionsList(), defaultCollectionEncoding, typesInScope);
       typeBuilder.addChildCollectionProperties(childCollsContr.childCollectionProperties);
       resultTypes.addAll(childCollsContr.resultTypes);
       childCollsContr.resultTypes.forEach(t -> typesInScope.put(t.getTypeName(), t));
@@ -81,7 +96,7 @@ public class ResultTypesGenerator
       // extension added to make the name unique, then add the previously generated
       // instance instead.
       String baseTypeName = StringFuns.upperCamelCase(tjs.getTable()); // Base type name is the desired name, without any trailing digits.
-      ResultType bnResType = typeBuilder.build(baseTypeName);
+      ResultType bnResType = typeBuilder.build(baseTypeName).withTupleEncoded(tupleEncoded);
       if ( !typesInScope.containsKey(baseTypeName) ) // No previously generated type of same base name.
          resultTypes.add(0, bnResType);
       else
@@ -111,13 +126,13 @@ public class ResultTypesGenerator
    {
       var fields = new ArrayList<SimpleTableFieldProperty>();
 
-      Map<String,Field> dbFieldsByName = getTableFieldsByName(relId);
+      RelMetadata relMd = getTableMetadata(relId);
 
       for ( TableFieldExpr tfe : tableFieldExpressions )
       {
          if ( tfe.getField() != null )
          {
-            Field dbField = requireNonNull(dbFieldsByName.get(dbmd.normalizeName(requireNonNull(tfe.getField()))),
+            Field dbField = requireNonNull(relMd.getField(dbmd.normalizeName(requireNonNull(tfe.getField()))),
                "no metadata for field " + relId + "." + tfe.getField());
             fields.add(new SimpleTableFieldProperty(getOutputFieldName(tfe, dbField), dbField, tfe.getFieldTypeInGeneratedSource()));
          }
@@ -153,6 +168,7 @@ public class ResultTypesGenerator
       (
          RelId relId,
          List<ParentSpec> inlineParentSpecs,
+         @Nullable ChildCollectionEncoding defaultCollectionEncoding,
          Map<String,ResultType> envTypesInScope
       )
    {
@@ -164,7 +180,10 @@ public class ResultTypesGenerator
       for ( var parentSpec :  inlineParentSpecs )
       {
          // Generate types for the parent table and any related tables it includes recursively.
-         List<ResultType> parentResultTypes = generateResultTypesWithTypesInScope(parentSpec.getParentTableJsonSpec(), typesInScope);
+         List<ResultType> parentResultTypes =
+            generateResultTypesWithTypesInScope(
+               parentSpec.getParentTableJsonSpec(), false, defaultCollectionEncoding, typesInScope
+            );
          ResultType parentType = parentResultTypes.get(0); // will not be generated
 
          // If the parent record might be absent, then all inline fields must be nullable.
@@ -187,6 +206,7 @@ public class ResultTypesGenerator
       (
          RelId relId,
          List<ParentSpec> referencedParentSpecs,
+         @Nullable ChildCollectionEncoding defaultCollectionEncoding,
          Map<String, ResultType> envTypesInScope
       )
    {
@@ -200,7 +220,10 @@ public class ResultTypesGenerator
          String refName = requireNonNull(parentSpec.getReferenceName());
 
          // Generate types by traversing the parent table and its parents and children.
-         List<ResultType> parentResultTypes = generateResultTypesWithTypesInScope(parentSpec.getParentTableJsonSpec(), typesInScope);
+         List<ResultType> parentResultTypes =
+            generateResultTypesWithTypesInScope(
+               parentSpec.getParentTableJsonSpec(), false, defaultCollectionEncoding, typesInScope
+            );
          ResultType parentType = parentResultTypes.get(0);
 
          boolean forceNullable =
@@ -219,6 +242,7 @@ public class ResultTypesGenerator
    private ChildCollectionContrs getChildCollectionContrs
       (
          List<ChildCollectionSpec> childCollectionSpecs,
+         @Nullable ChildCollectionEncoding defaultCollectionEncoding,
          Map<String, ResultType> envTypesInScope
       )
    {
@@ -230,7 +254,14 @@ public class ResultTypesGenerator
       for ( var childCollSpec : childCollectionSpecs )
       {
          // Generate types by traversing the child table and its parents and children recursively.
-         List<ResultType> childResultTypes = generateResultTypesWithTypesInScope(childCollSpec.getTableJson(), typesInScope);
+         // Tuple encoded types are distinct from any otherwise identical object encoded types.
+         List<ResultType> childResultTypes =
+            generateResultTypesWithTypesInScope(
+               childCollSpec.getTableJson(),
+               childCollSpec.hasTupleElements(defaultCollectionEncoding),
+               defaultCollectionEncoding,
+               typesInScope
+            );
 
          // Mark the top-level child type as unwrapped if specified.
          ResultType childType = childResultTypes.get(0).withUnwrapped(valueOr(childCollSpec.getUnwrap(), false));
@@ -254,13 +285,11 @@ public class ResultTypesGenerator
       return valueOrGet(tableFieldExpr.getJsonProperty(), () -> defaultPropertyNameFn.apply(dbField.getName()));
    }
 
-   private Map<String,Field> getTableFieldsByName(RelId relId)
+   private RelMetadata getTableMetadata(RelId relId)
    {
-      RelMetadata relMd = valueOrThrow(dbmd.getRelationMetadata(relId), () ->
+      return valueOrThrow(dbmd.getRelationMetadata(relId), () ->
          new RuntimeException("Metadata for table " + relId + " not found.")
       );
-
-      return relMd.getFields().stream().collect(toMap(Field::getName, identity()));
    }
 
    private @Nullable ResultType findTypeIgnoringNameExtensions
@@ -293,11 +322,11 @@ public class ResultTypesGenerator
          new RuntimeException("foreign key to parent not found")
       );
 
-      Map<String,Field> childFieldsByName = getTableFieldsByName(childRelId);
+      RelMetadata childRelMd = getTableMetadata(childRelId);
 
       for ( String fkFieldName : fk.getChildFieldNames() )
       {
-         Field fkField = valueOrThrow(childFieldsByName.get(fkFieldName), () ->
+         Field fkField = valueOrThrow(childRelMd.getField(fkFieldName), () ->
             new RuntimeException("foreign key not found")
          );
 
@@ -7,10 +7,15 @@ import java.sql.Types;
 import java.time.Instant;
 import java.util.*;
 import java.util.regex.Pattern;
+import static java.util.Collections.emptyMap;
+import static java.util.stream.Collectors.joining;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import org.sqljson.ByKeysQuery;
+import org.sqljson.KeysetPaging;
 import org.sqljson.QueryReprSqlPath;
+import org.sqljson.query_specs.ResultRepr;
 import org.sqljson.result_types.*;
 import static org.sqljson.util.IO.newFileOrStdoutWriter;
 import static org.sqljson.util.IO.writeString;
@@ -60,7 +65,10 @@ public class JavaWriter implements SourceCodeWriter
          String queryName,
          List<ResultType> resultTypes,
          List<String> paramNames,
+         @Nullable KeysetPaging keysetPaging,
          List<QueryReprSqlPath> sqlPaths,
+         boolean nullPropertiesOmitted,
+         boolean compactPropertyKeys,
          @Nullable String queryFileHeader,
          boolean includeTimestamp
       )
@@ -76,11 +84,17 @@ public class JavaWriter implements SourceCodeWriter
       {
          writeCommonHeaderAndPackageDeclaration(bw, includeTimestamp);
 
-         writeQueryFileImportsAndHeaders(bw, queryFileHeader);
+         boolean jacksonAnnotations =
+            compactPropertyKeys || resultTypes.stream().anyMatch(ResultType::isTupleEncoded);
+
+         writeQueryFileImportsAndHeaders(bw, jacksonAnnotations, queryFileHeader);
 
          bw.write("\n\n");
 
-         writeQueryClass(bw, queryClassName, paramNames, resultTypes, sqlPaths);
+         writeQueryClass(
+            bw, queryClassName, paramNames, keysetPaging, resultTypes, sqlPaths, nullPropertiesOmitted,
+            compactPropertyKeys
+         );
       }
       finally
       {
@@ -92,6 +106,7 @@ public class JavaWriter implements SourceCodeWriter
    private void writeQueryFileImportsAndHeaders
       (
          BufferedWriter bw,
+         boolean jacksonAnnotations,
          @Nullable String queryFileHeader
       )
       throws IOException
@@ -107,6 +122,8 @@ public class JavaWriter implements SourceCodeWriter
       );
       bw.write("import com.fasterxml.jackson.databind.JsonNode;\n");
       bw.write("import com.fasterxml.jackson.databind.node.*;\n");
+      if ( jacksonAnnotations )
+         bw.write("import com.fasterxml.jackson.annotation.*;\n");
 
       // Write common headers if any.
       if ( filesHeader != null )
@@ -121,8 +138,11 @@ public class JavaWriter implements SourceCodeWriter
          BufferedWriter bw,
          String queryClassName,
          List<String> paramNames,
+         @Nullable KeysetPaging keysetPaging,
          List<ResultType> resultTypes,
-         List<QueryReprSqlPath> sqlPaths
+         List<QueryReprSqlPath> sqlPaths,
+         boolean nullPropertiesOmitted,
+         boolean compactPropertyKeys
       )
       throws IOException
    {
@@ -131,8 +151,15 @@ public class JavaWriter implements SourceCodeWriter
 
       writeQuerySqlFileReferenceMembers(bw, sqlPaths);
 
+      // The by-keys query yields each row's key value in a column following its json.
+      if ( sqlPaths.stream().anyMatch(p -> p.getResultRepr() == ResultRepr.JSON_OBJECT_ROWS_BY_KEYS) )
+         bw.write("   public static final String keyColumn = \"" + ByKeysQuery.KEY_COLUMN + "\";\n\n");
+
       writeParamMembers(paramNames, bw);
 
+      if ( keysetPaging != null )
+         writeKeysetPagingMembers(keysetPaging, bw);
+
       if ( !resultTypes.isEmpty() )
       {
          String topClass = resultTypes.get(0).getTypeName();
@@ -147,7 +174,7 @@ public class JavaWriter implements SourceCodeWriter
             if ( !writtenTypeNames.contains(resultType.getTypeName()) &&
                  !resultType.isUnwrapped() )
             {
-               String srcCode = makeGeneratedTypeSource(resultType);
+               String srcCode = makeGeneratedTypeSource(resultType, nullPropertiesOmitted, compactPropertyKeys);
 
                bw.write('\n');
                bw.write(indentLines(srcCode, 3));
@@ -216,12 +243,54 @@ public class JavaWriter implements SourceCodeWriter
       }
    }
 
+   private void writeKeysetPagingMembers
+      (
+         KeysetPaging keysetPaging,
+         BufferedWriter bw
+      )
+      throws IOException
+   {
+      List<String> afterKeyParamNames = keysetPaging.getAfterKeyParamNames();
+
+      writeParamMembers(List.of(KeysetPaging.PAGE_SIZE_PARAM), bw);
+      writeParamMembers(afterKeyParamNames, bw);
+
+      String paramValueType = nullableFieldRepr == NullableFieldRepr.ANNOTATED ? "@Nullable Object" : "Object";
+      String paramsType = "Map<String," + paramValueType + ">";
+
+      bw.write("   // Columns of the page query results holding each row's page key, named as its after-key params.\n");
+      bw.write("   public static final List<String> pageKeyColumns = List.of(" +
+               afterKeyParamNames.stream().map(p -> "\"" + p + "\"").collect(joining(", ")) + ");\n\n");
+
+      bw.write("   public static " + paramsType + " firstPageParams(int pageSize)\n");
+      bw.write("   {\n");
+      bw.write("      " + paramsType + " params = new HashMap<>();\n");
+      bw.write("      params.put(pageSizeParam, pageSize);\n");
+      bw.write("      return params;\n");
+      bw.write("   }\n\n");
+
+      bw.write("   // Params for the page query, following the page whose last row is the current row of the given result set.\n");
+      bw.write("   public static " + paramsType + " nextPageParams(java.sql.ResultSet lastRow, int pageSize)\n");
+      bw.write("      throws java.sql.SQLException\n");
+      bw.write("   {\n");
+      bw.write("      " + paramsType + " params = new HashMap<>();\n");
+      bw.write("      params.put(pageSizeParam, pageSize);\n");
+      bw.write("      for ( String column : pageKeyColumns ) params.put(column, lastRow.getObject(column));\n");
+      bw.write("      return params;\n");
+      bw.write("   }\n\n");
+   }
+
    private @Nullable Path getOutputFilePath(String className)
    {
       return applyIfPresent(packageOutputDir, d -> d.resolve(className + ".java"));
    }
 
-   private String makeGeneratedTypeSource(ResultType genType)
+   private String makeGeneratedTypeSource
+      (
+         ResultType genType,
+         boolean nullPropertiesOmitted,
+         boolean compactPropertyKeys
+      )
    {
       StringBuilder sb = new StringBuilder();
 
@@ -231,6 +300,14 @@ public class JavaWriter implements SourceCodeWriter
          "@DefaultQualifier(value=NonNull.class)\n" +
          "@SuppressWarnings(\"nullness\") // because fields will be set directly by the deserializer not by constructor\n"
       );
+      // Tuple encoded types are read by Jackson from the array of their property values, in declaration order.
+      if ( genType.isTupleEncoded() )
+      {
+         sb.append("@JsonFormat(shape = JsonFormat.Shape.ARRAY)\n");
+         sb.append("@JsonPropertyOrder({");
+         sb.append(genType.getPropertyNames().stream().map(p -> "\"" + p + "\"").collect(joining(", ")));
+         sb.append("})\n");
+      }
       sb.append("public static class ");
       sb.append(typeName);
       sb.append("\n{\n");
@@ -249,13 +326,21 @@ public class JavaWriter implements SourceCodeWriter
          fields.add(new FieldInfo(f.getName(), getParentRefDeclaredType(f)))
       );
 
+      // Tuple encoded types have no property keys, else compact keys stand for the properties in json objects.
+      Map<String,String> compactKeys =
+         compactPropertyKeys && !genType.isTupleEncoded() ? genType.getCompactPropertyKeys() : emptyMap();
+
       // field declarations
       for ( FieldInfo f : fields )
       {
+         ifPresent(compactKeys.get(f.name), key -> sb.append("   @JsonProperty(\"" + key + "\")\n"));
          sb.append("   public ");
          sb.append(f.typeDeclaration);
          sb.append(" ");
          sb.append(f.name);
+         // An absent property leaves its field unset by the deserializer, so wrapped fields must default to empty.
+         if ( nullPropertiesOmitted && f.typeDeclaration.startsWith("Optional<") )
+            sb.append(" = Optional.empty()");
          sb.append(";\n");
       }
 
@@ -4,18 +4,24 @@ import java.io.IOException;
 import java.util.List;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sqljson.KeysetPaging;
 import org.sqljson.QueryReprSqlPath;
 import org.sqljson.result_types.ResultType;
 
 
 public interface SourceCodeWriter
 {
+   /// Write the source code for a query. If nullPropertiesOmitted is true, the query's json objects omit properties
+   /// having null values, so that the nullable properties of the result types may be absent.
    void writeQuerySourceCode
       (
          String queryName,
          List<ResultType> resultTypes,
          List<String> paramNames,
+         @Nullable KeysetPaging keysetPaging,
          List<QueryReprSqlPath> sqlPaths,
+         boolean nullPropertiesOmitted,
+         boolean compactPropertyKeys,
          @Nullable String queryFileHeader,
          boolean includeTimestamp
       )
@@ -6,10 +6,15 @@ import java.nio.file.Path;
 import java.sql.Types;
 import java.time.Instant;
 import java.util.*;
+import java.util.function.Function;
+import static java.util.stream.Collectors.joining;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import org.sqljson.ByKeysQuery;
+import org.sqljson.KeysetPaging;
 import org.sqljson.QueryReprSqlPath;
+import org.sqljson.query_specs.ResultRepr;
 import org.sqljson.result_types.*;
 import org.sqljson.util.IO;
 import static org.sqljson.util.IO.writeString;
@@ -41,7 +46,10 @@ public class TypeScriptWriter implements SourceCodeWriter
          String queryName,
          List<ResultType> resultTypes,
          List<String> paramNames,
+         @Nullable KeysetPaging keysetPaging,
          List<QueryReprSqlPath> sqlPaths,
+         boolean nullPropertiesOmitted,
+         boolean compactPropertyKeys,
          @Nullable String queryFileHeader,
          boolean includeTimestamp
       )
@@ -61,7 +69,9 @@ public class TypeScriptWriter implements SourceCodeWriter
 
          bw.write("\n\n");
 
-         writeQueryModuleMembers(bw, resultTypes, paramNames, sqlPaths);
+         writeQueryModuleMembers(
+            bw, resultTypes, paramNames, keysetPaging, sqlPaths, nullPropertiesOmitted, compactPropertyKeys
+         );
       }
       finally
       {
@@ -104,14 +114,24 @@ public class TypeScriptWriter implements SourceCodeWriter
          BufferedWriter bw,
          List<ResultType> resultTypes,
          List<String> paramNames,
-         List<QueryReprSqlPath> sqlPaths
+         @Nullable KeysetPaging keysetPaging,
+         List<QueryReprSqlPath> sqlPaths,
+         boolean nullPropertiesOmitted,
+         boolean compactPropertyKeys
       )
       throws IOException
    {
       writeQuerySqlFileReferenceMembers(bw, sqlPaths);
 
+      // The by-keys query yields each row's key value in a column following its json.
+      if ( sqlPaths.stream().anyMatch(p -> p.getResultRepr() == ResultRepr.JSON_OBJECT_ROWS_BY_KEYS) )
+         bw.write("export const keyColumn = '" + ByKeysQuery.KEY_COLUMN + "';\n\n");
+
       writeParamMembers(paramNames, bw);
 
+      if ( keysetPaging != null )
+         writeKeysetPagingMembers(keysetPaging, bw);
+
       if ( !resultTypes.isEmpty() )
       {
          Set<String> writtenTypeNames = new HashSet<>();
@@ -122,11 +142,24 @@ public class TypeScriptWriter implements SourceCodeWriter
                  !resultType.isUnwrapped() )
             {
                bw.write('\n');
-               bw.write(getTypeDeclaration(resultType));
+               bw.write(getTypeDeclaration(resultType, nullPropertiesOmitted));
 
                writtenTypeNames.add(resultType.getTypeName());
             }
          }
+
+         Set<String> writtenDecoderTypeNames = new HashSet<>();
+
+         for ( ResultType resultType : resultTypes )
+         {
+            if ( !writtenDecoderTypeNames.contains(resultType.getTypeName()) && needsDecoding(resultType, compactPropertyKeys) )
+            {
+               bw.write('\n');
+               bw.write(getDecoderFunction(resultType, compactPropertyKeys));
+
+               writtenDecoderTypeNames.add(resultType.getTypeName());
+            }
+         }
       }
    }
 
@@ -167,9 +200,40 @@ public class TypeScriptWriter implements SourceCodeWriter
       }
    }
 
+   private void writeKeysetPagingMembers
+      (
+         KeysetPaging keysetPaging,
+         BufferedWriter bw
+      )
+      throws IOException
+   {
+      List<String> afterKeyParamNames = keysetPaging.getAfterKeyParamNames();
+
+      writeParamMembers(List.of(KeysetPaging.PAGE_SIZE_PARAM), bw);
+      writeParamMembers(afterKeyParamNames, bw);
+
+      bw.write("// Columns of the page query results holding each row's page key, named as its after-key params.\n");
+      bw.write("export const pageKeyColumns = [" +
+               afterKeyParamNames.stream().map(p -> "'" + p + "'").collect(joining(", ")) + "];\n\n");
+
+      bw.write("export function firstPageParams(pageSize: number): { [param: string]: any }\n");
+      bw.write("{\n");
+      bw.write("   return { [pageSizeParam]: pageSize };\n");
+      bw.write("}\n\n");
+
+      bw.write("// Params for the page query, following the page whose last row is given.\n");
+      bw.write("export function nextPageParams(lastRow: { [column: string]: any }, pageSize: number): { [param: string]: any }\n");
+      bw.write("{\n");
+      bw.write("   const params: { [param: string]: any } = { [pageSizeParam]: pageSize };\n");
+      bw.write("   for (const column of pageKeyColumns) params[column] = lastRow[column];\n");
+      bw.write("   return params;\n");
+      bw.write("}\n\n");
+   }
+
    public String getTypeDeclaration
       (
-         ResultType genType
+         ResultType genType,
+         boolean nullPropertiesOmitted
       )
    {
       StringBuilder sb = new StringBuilder();
@@ -180,25 +244,33 @@ public class TypeScriptWriter implements SourceCodeWriter
       sb.append(typeName);
       sb.append("\n{\n");
 
+      // Nullable properties are optional where null properties are omitted. Expressions are taken to be nullable.
       List<FieldInfo> fields = new ArrayList<>();
-      genType.getSimpleTableFieldProperties().forEach(f ->
-         fields.add(new FieldInfo(f.getName(), getTSTypeNameForSimpleTableField(f)))
-      );
-      genType.getTableExpressionProperties().forEach(f ->
-         fields.add(new FieldInfo(f.getName(), getTSTypeNameForTableExpressionProperty(f)))
-      );
-      genType.getChildCollectionProperties().forEach(f ->
-         fields.add(new FieldInfo(f.getName(), getChildCollectionDeclaredType(f)))
-      );
-      genType.getParentReferenceProperties().forEach(f ->
-         fields.add(new FieldInfo(f.getName(), getParentRefDeclaredType(f)))
-      );
+      Set<String> optionalFields = new HashSet<>();
+      genType.getSimpleTableFieldProperties().forEach(f -> {
+         fields.add(new FieldInfo(f.getName(), getTSTypeNameForSimpleTableField(f)));
+         if ( valueOr(f.getNullable(), true) ) optionalFields.add(f.getName());
+      });
+      genType.getTableExpressionProperties().forEach(f -> {
+         fields.add(new FieldInfo(f.getName(), getTSTypeNameForTableExpressionProperty(f)));
+         optionalFields.add(f.getName());
+      });
+      genType.getChildCollectionProperties().forEach(f -> {
+         fields.add(new FieldInfo(f.getName(), getChildCollectionDeclaredType(f)));
+         if ( f.isNullable() ) optionalFields.add(f.getName());
+      });
+      genType.getParentReferenceProperties().forEach(f -> {
+         fields.add(new FieldInfo(f.getName(), getParentRefDeclaredType(f)));
+         if ( f.isNullable() ) optionalFields.add(f.getName());
+      });
 
       // field declarations
       for ( FieldInfo f : fields )
       {
          sb.append("   ");
          sb.append(f.name);
+         if ( nullPropertiesOmitted && optionalFields.contains(f.name) )
+            sb.append("?");
          sb.append(": ");
          sb.append(f.typeDeclaration);
          sb.append(";\n");
@@ -209,6 +281,84 @@ public class TypeScriptWriter implements SourceCodeWriter
       return sb.toString();
    }
 
+   /// Whether json values of the given type need decoding into the type, because the type or a type within it is tuple
+   /// encoded, or because the type's objects have compact property keys. The values of unwrapped collections are left
+   /// as they are.
+   private static boolean needsDecoding(ResultType genType, boolean compactPropertyKeys)
+   {
+      if ( genType.isUnwrapped() )
+         return false;
+
+      return
+         compactPropertyKeys ||
+         genType.isTupleEncoded() ||
+         genType.getChildCollectionProperties().stream()
+         .anyMatch(p -> needsDecoding(p.getGeneratedType(), compactPropertyKeys)) ||
+         genType.getParentReferenceProperties().stream()
+         .anyMatch(p -> needsDecoding(p.getGeneratedType(), compactPropertyKeys));
+   }
+
+   /// Make a function decoding a json value into the given type, from the array of its property values in property
+   /// order if it's tuple encoded, else from an object, decoding in turn the properties of types needing decoding.
+   /// Objects having compact property keys are mapped to objects having the properties' names.
+   private String getDecoderFunction(ResultType genType, boolean compactPropertyKeys)
+   {
+      String typeName = genType.getTypeName();
+
+      // Decoding expressions by property name, for the properties needing decoding, in terms of the property value.
+      Map<String,Function<String,String>> propertyDecoders = new HashMap<>();
+      for ( ChildCollectionProperty p : genType.getChildCollectionProperties() )
+      {
+         if ( needsDecoding(p.getGeneratedType(), compactPropertyKeys) )
+         {
+            String decodeFn = "decode" + p.getGeneratedType().getTypeName();
+            propertyDecoders.put(p.getName(), v ->
+               p.isNullable() ? v + " == null ? " + v + " : " + v + ".map(" + decodeFn + ")" : v + ".map(" + decodeFn + ")"
+            );
+         }
+      }
+      for ( ParentReferenceProperty p : genType.getParentReferenceProperties() )
+      {
+         if ( needsDecoding(p.getGeneratedType(), compactPropertyKeys) )
+         {
+            String decodeFn = "decode" + p.getGeneratedType().getTypeName();
+            propertyDecoders.put(p.getName(), v ->
+               p.isNullable() ? v + " == null ? " + v + " : " + decodeFn + "(" + v + ")" : decodeFn + "(" + v + ")"
+            );
+         }
+      }
+
+      boolean tupleEncoded = genType.isTupleEncoded();
+      boolean allProperties = tupleEncoded || compactPropertyKeys; // else only those needing decoding are mapped
+      Map<String,String> compactKeys = genType.getCompactPropertyKeys();
+
+      StringBuilder sb = new StringBuilder();
+
+      sb.append("export function decode" + typeName + "(v: any): " + typeName + "\n");
+      sb.append("{\n");
+      sb.append("   return {\n");
+      if ( !allProperties )
+         sb.append("      ...v,\n");
+
+      List<String> propertyNames = genType.getPropertyNames();
+      for ( int i = 0; i < propertyNames.size(); ++i )
+      {
+         String name = propertyNames.get(i);
+         String value =
+            tupleEncoded ? "v[" + i + "]"
+            : compactPropertyKeys ? "v." + compactKeys.get(name)
+            : "v." + name;
+         @Nullable Function<String,String> decoder = propertyDecoders.get(name);
+         if ( allProperties || decoder != null )
+            sb.append("      " + name + ": " + (decoder != null ? decoder.apply(value) : value) + ",\n");
+      }
+
+      sb.append("   };\n");
+      sb.append("}\n");
+
+      return sb.toString();
+   }
+
    private String getTSTypeNameForSimpleTableField(SimpleTableFieldProperty f)
    {
       boolean notNull = !valueOr(f.getNullable(), true);
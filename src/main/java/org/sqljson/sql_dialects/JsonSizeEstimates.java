@@ -0,0 +1,122 @@
+package org.sqljson.sql_dialects;
+
+import java.sql.Types;
+import java.util.List;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import org.sqljson.dbmd.Field;
+import static org.sqljson.util.Nullables.valueOr;
+
+
+/// Upper bounds on the sizes of json values in bytes of UTF-8 text, as built from database fields, or null where a
+/// value's size is not bounded. The bounds allow for the worst case, so a value never exceeds its bound.
+public final class JsonSizeEstimates
+{
+   // Bytes per character of a string in the worst case, where each character is written as a unicode escape.
+   private static final int STRING_BYTES_PER_CHAR = 6;
+
+   // Bytes of a number of unknown precision, of a floating point number, and of a date or time.
+   private static final int NUMBER_BYTES = 48;
+   private static final int DATE_TIME_BYTES = 48;
+
+   private static final int NULL_BYTES = "null".length();
+
+   private JsonSizeEstimates() {}
+
+   /// Return the largest size of the given field's values in json, or null if unbounded or unknown.
+   public static @Nullable Integer ofFieldValue(Field field)
+   {
+      @Nullable Integer length = field.getLength();
+      @Nullable Integer precision = field.getPrecision();
+
+      switch ( field.getJdbcTypeCode() )
+      {
+         case Types.CHAR:
+         case Types.VARCHAR:
+         case Types.NCHAR:
+         case Types.NVARCHAR:
+         {
+            @Nullable Integer chars = length != null ? length : precision;
+            if ( chars == null || chars <= 0 )
+               return null;
+            long bytes = 2 + (long)STRING_BYTES_PER_CHAR * chars; // quotes and characters
+            return bytes <= Integer.MAX_VALUE ? Math.max((int)bytes, NULL_BYTES) : null;
+         }
+         case Types.TINYINT:
+         case Types.SMALLINT:
+         case Types.INTEGER:
+         case Types.BIGINT:
+         case Types.DECIMAL:
+         case Types.NUMERIC:
+         {
+            if ( precision == null || precision <= 0 )
+               return NUMBER_BYTES;
+            // Digits with a sign, decimal point and leading zero, plus the zeros implied by a negative scale or by a
+            // scale exceeding the precision, as in Oracle's NUMBER(3,-2) holding -99900 and NUMBER(2,4) holding -0.0099.
+            int scale = valueOr(field.getFractionalDigits(), 0);
+            long digits = (long)precision + Math.max(0L, -(long)scale) + Math.max(0L, (long)scale - precision);
+            return digits + 3 <= Integer.MAX_VALUE ? Math.max((int)digits + 3, NULL_BYTES) : null;
+         }
+         case Types.FLOAT:
+         case Types.REAL:
+         case Types.DOUBLE:
+            return NUMBER_BYTES;
+         case Types.BIT:
+         case Types.BOOLEAN:
+            return "false".length();
+         case Types.DATE:
+         case Types.TIME:
+         case Types.TIME_WITH_TIMEZONE:
+         case Types.TIMESTAMP:
+         case Types.TIMESTAMP_WITH_TIMEZONE:
+            return DATE_TIME_BYTES;
+         default:
+            return null;
+      }
+   }
+
+   /// Return the largest size of a json object built from the given columns, or null if any column is unbounded.
+   public static @Nullable Integer ofObject(List<SourceColumn> columns)
+   {
+      long bytes = 2 + Math.max(columns.size() - 1, 0); // braces and commas
+      for ( SourceColumn column : columns )
+      {
+         @Nullable Integer valueBytes = column.getMaxJsonBytes();
+         if ( valueBytes == null )
+            return null;
+         // The quoted key, colon and value.
+         bytes += column.getJsonKey().getBytes(UTF_8).length + 3 + valueBytes;
+      }
+      return bytes <= Integer.MAX_VALUE ? (int)bytes : null;
+   }
+
+   /// Return the largest size of a json array of the values of the given columns, or null if any column is unbounded.
+   public static @Nullable Integer ofTuple(List<SourceColumn> columns)
+   {
+      long bytes = 2 + Math.max(columns.size() - 1, 0); // brackets and commas
+      for ( SourceColumn column : columns )
+      {
+         @Nullable Integer valueBytes = column.getMaxJsonBytes();
+         if ( valueBytes == null )
+            return null;
+         bytes += valueBytes;
+      }
+      return bytes <= Integer.MAX_VALUE ? (int)bytes : null;
+   }
+
+   /// Return the largest size of a json array of at most the given number of elements of the given size, or null if
+   /// either is unbounded.
+   public static @Nullable Integer ofArray
+      (
+         @Nullable Integer elementBytes,
+         @Nullable Integer maxElements
+      )
+   {
+      if ( elementBytes == null || maxElements == null )
+         return null;
+      long bytes = 2 + (long)maxElements * (elementBytes + 1);
+      return bytes <= Integer.MAX_VALUE ? (int)bytes : null;
+   }
+}
@@ -1,71 +1,283 @@
 package org.sqljson.sql_dialects;
 
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import static java.util.stream.Collectors.joining;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import org.sqljson.dbmd.Field;
 import static org.sqljson.util.StringFuns.*;
 
 
 public class OracleDialect implements SqlDialect
 {
+   // Largest varchar2 size in bytes, and that with extended string size (MAX_STRING_SIZE = EXTENDED).
+   private static final int MAX_STANDARD_VARCHAR_BYTES = 4000;
+   private static final int MAX_EXTENDED_VARCHAR_BYTES = 32767;
+
+   // The select keyword of a query, after any whitespace and line comments.
+   private static final Pattern LEADING_SELECT = Pattern.compile("(\\s*--[^\\n]*\\n)*\\s*select\\b");
+
    private final int indentSpaces;
+   private final int maxVarcharBytes;
+   private final boolean omitNullProperties;
 
-   public OracleDialect(int indentSpaces)
+   public OracleDialect
+      (
+         int indentSpaces,
+         boolean extendedStringSize,
+         boolean omitNullProperties
+      )
    {
       this.indentSpaces = indentSpaces;
+      this.maxVarcharBytes = extendedStringSize ? MAX_EXTENDED_VARCHAR_BYTES : MAX_STANDARD_VARCHAR_BYTES;
+      this.omitNullProperties = omitNullProperties;
    }
 
    @Override
    public String getRowObjectExpression
       (
-         List<String> columnNames,
+         List<SourceColumn> columns,
          String fromAlias
       )
    {
       String objectFieldDecls =
-         columnNames.stream()
-         .map(colName -> "'" + unDoubleQuote(colName) + "' value " + fromAlias + "." + colName)
+         columns.stream()
+         .map(col -> "'" + col.getJsonKey() + "' value " + valueExpression(col, fromAlias))
          .collect(joining(",\n"));
 
       return
          "json_object(\n" +
             indentLines(objectFieldDecls, indentSpaces) + "\n" +
-            "  returning clob\n" +
+            (omitNullProperties ? "  absent on null\n" : "") +
+            "  returning " + returnType(JsonSizeEstimates.ofObject(columns)) + "\n" +
          ")";
    }
 
+   @Override
+   public String getResultJsonExpression(String jsonValue)
+   {
+      // Null properties are omitted where each object is built.
+      return jsonValue;
+   }
+
    @Override
    public String getAggregatedRowObjectsExpression
       (
-         List<String> columnNames,
+         List<SourceColumn> columns,
          @Nullable String orderBy,
-         String fromAlias
+         String fromAlias,
+         @Nullable Integer maxRows
       )
    {
       return
-         "treat(coalesce(json_arrayagg(" +
-            getRowObjectExpression(columnNames, fromAlias) +
+         "nvl(json_arrayagg(" +
+            getRowObjectExpression(columns, fromAlias) +
             (orderBy != null ? " order by " + orderBy.replace("$$", fromAlias) : "") +
-            " returning clob" +
-         "), to_clob('[]')) as json)";
+            " returning " + returnType(JsonSizeEstimates.ofArray(JsonSizeEstimates.ofObject(columns), maxRows)) +
+         "), '[]')";
+   }
+
+   @Override
+   public String getAggregatedRowTuplesExpression
+      (
+         List<SourceColumn> columns,
+         @Nullable String orderBy,
+         String fromAlias,
+         @Nullable Integer maxRows
+      )
+   {
+      String tupleValues =
+         columns.stream()
+         .map(col -> valueExpression(col, fromAlias))
+         .collect(joining(",\n"));
+
+      // Null values are kept in the tuples, which json_array would otherwise leave out, to keep the values' positions.
+      String tupleExpr =
+         "json_array(\n" +
+            indentLines(tupleValues, indentSpaces) + "\n" +
+            "  null on null\n" +
+            "  returning " + returnType(JsonSizeEstimates.ofTuple(columns)) + "\n" +
+         ")";
+
+      return
+         "nvl(json_arrayagg(" +
+            tupleExpr +
+            (orderBy != null ? " order by " + orderBy.replace("$$", fromAlias) : "") +
+            " returning " + returnType(JsonSizeEstimates.ofArray(JsonSizeEstimates.ofTuple(columns), maxRows)) +
+         "), '[]')";
    }
 
    @Override
    public String getAggregatedColumnValuesExpression
       (
-         String columnName,
+         SourceColumn column,
          @Nullable String orderBy,
-         String fromAlias
+         String fromAlias,
+         @Nullable Integer maxRows
       )
    {
       return
-         "treat(coalesce(json_arrayagg(" +
-            fromAlias + "." + columnName +
+         "nvl(json_arrayagg(" +
+            valueExpression(column, fromAlias) +
             (orderBy != null ? " order by " + orderBy.replace("$$", fromAlias) : "") +
-            " returning clob" +
-         "), to_clob('[]')) as json)";
+            " returning " + returnType(JsonSizeEstimates.ofArray(column.getMaxJsonBytes(), maxRows)) +
+         "), '[]')";
+   }
+
+   @Override
+   public String getAggregateOrEmptyExpression
+      (
+         String aggregateValue,
+         boolean columnValues
+      )
+   {
+      // Nvl converts the empty array text to the type of the aggregate, whether varchar2 or clob.
+      return "nvl(" + aggregateValue + ", '[]')";
+   }
+
+   /// Expression for a column's value within a json generation function. Json text from a column is marked with
+   /// format json, so that it's nested as json rather than as a string.
+   private static String valueExpression
+      (
+         SourceColumn column,
+         String fromAlias
+      )
+   {
+      return fromAlias + "." + column.getName() + (column.isJson() ? " format json" : "");
+   }
+
+   /// The type to return json of the given largest size as, a clob only if the size is unbounded or too large for a
+   /// varchar2, to avoid the cost of temporary lobs.
+   private String returnType(@Nullable Integer maxJsonBytes)
+   {
+      if ( maxJsonBytes == null || maxJsonBytes > maxVarcharBytes )
+         return "clob";
+      else if ( maxJsonBytes <= MAX_STANDARD_VARCHAR_BYTES )
+         return "varchar2(" + MAX_STANDARD_VARCHAR_BYTES + " byte)";
+      else
+         return "varchar2(" + maxVarcharBytes + " byte)";
+   }
+
+   @Override
+   public String getLateralJoinFromEntry
+      (
+         String subquery,
+         String alias
+      )
+   {
+      return
+         "outer apply (\n" +
+            indentLines(subquery, indentSpaces) + "\n" +
+         ") " + alias;
    }
-}
 
+   @Override
+   public String getCommonTableExpression
+      (
+         String name,
+         String query,
+         @Nullable Boolean materialized
+      )
+   {
+      // Oracle controls the materialization of a with clause query by a hint following its select keyword.
+      String hintedQuery =
+         materialized == null ? query
+         : withHintAfterLeadingSelect(query, materialized ? "/*+ materialize */" : "/*+ inline */");
+      return
+         name + " as (\n" +
+            indentLines(hintedQuery, indentSpaces) + "\n" +
+         ")";
+   }
+
+   /// Return the given query with the hint inserted after its select keyword, which may be preceded by line comments.
+   private static String withHintAfterLeadingSelect
+      (
+         String query,
+         String hint
+      )
+   {
+      Matcher m = LEADING_SELECT.matcher(query);
+      if ( !m.lookingAt() )
+         throw new RuntimeException("Expected a select query to receive hint " + hint + ":\n" + query);
+      return query.substring(0, m.end()) + " " + hint + query.substring(m.end());
+   }
+
+   @Override
+   public String getKeysetCondition
+      (
+         List<String> keyValues,
+         List<String> afterKeyParamNames
+      )
+   {
+      // Oracle only compares row values for equality, so the key order comparison is expanded by key field.
+      List<String> followsConds = new ArrayList<>();
+      for ( int i = 0; i < keyValues.size(); ++i )
+      {
+         List<String> fieldConds = new ArrayList<>();
+         for ( int j = 0; j < i; ++j )
+            fieldConds.add(keyValues.get(j) + " = :" + afterKeyParamNames.get(j));
+         fieldConds.add(keyValues.get(i) + " > :" + afterKeyParamNames.get(i));
+         followsConds.add(String.join(" and ", fieldConds));
+      }
+      return "(" + String.join(" or ", followsConds) + ")";
+   }
+
+   @Override
+   public String getValueInParamValuesCondition
+      (
+         String value,
+         Field valueField,
+         String valuesParamName
+      )
+   {
+      // The values are bound as the text of a json array, since Oracle can't bind an array without a declared type.
+      // They're read as the field's type, rather than as the default varchar2 which would be converted for comparison.
+      return
+         value + " in (select pv.param_value from json_table(:" + valuesParamName + ", '$[*]' " +
+         "columns (param_value " + jsonTableColumnType(valueField) + " path '$')) pv)";
+   }
+
+   /// Return the type of a json_table column holding values of the given field.
+   private String jsonTableColumnType(Field field)
+   {
+      switch ( field.getJdbcTypeCode() )
+      {
+         case Types.TINYINT:
+         case Types.SMALLINT:
+         case Types.INTEGER:
+         case Types.BIGINT:
+         case Types.DECIMAL:
+         case Types.NUMERIC:
+            return "number";
+         case Types.CHAR:
+         case Types.VARCHAR:
+         case Types.NCHAR:
+         case Types.NVARCHAR:
+         {
+            @Nullable Integer length = field.getLength();
+            return length != null && length > 0 ? "varchar2(" + length + " char)" : "varchar2(" + maxVarcharBytes + ")";
+         }
+         default:
+            return field.getDatabaseType().toLowerCase();
+      }
+   }
+
+   @Override
+   public String getRowsLimitClause
+      (
+         @Nullable String offset,
+         @Nullable String limit
+      )
+   {
+      // Row limiting clause as of Oracle 12c.
+      return
+         (offset != null ? "offset " + offset + " rows" : "") +
+         (offset != null && limit != null ? "\n" : "") +
+         (limit != null ? "fetch first " + limit + " rows only" : "");
+   }
+}
@@ -5,65 +5,185 @@ import static java.util.stream.Collectors.joining;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import org.sqljson.dbmd.Field;
+import org.sqljson.query_specs.JsonType;
 import org.sqljson.util.StringFuns;
 
 
 public class PostgresDialect implements SqlDialect
 {
    private final int indentSpaces;
+   private final String jsonType; // json or jsonb, also prefixing the names of the functions building its values
+   private final boolean omitNullProperties;
 
-   public PostgresDialect(int indentSpaces)
+   public PostgresDialect
+      (
+         int indentSpaces,
+         JsonType jsonType,
+         boolean omitNullProperties
+      )
    {
       this.indentSpaces = indentSpaces;
+      this.jsonType = jsonType == JsonType.JSON ? "json" : "jsonb";
+      this.omitNullProperties = omitNullProperties;
    }
 
    @Override
    public String getRowObjectExpression
       (
-         List<String> columnNames,
+         List<SourceColumn> columns,
          String fromAlias
       )
    {
       String objectFieldDecls =
-         columnNames.stream()
-         .map(colName -> "'" + StringFuns.unDoubleQuote(colName) + "', " + fromAlias + "." + colName)
+         columns.stream()
+         .map(col -> "'" + col.getJsonKey() + "', " + fromAlias + "." + col.getName())
          .collect(joining(",\n"));
 
-         return
-            "jsonb_build_object(\n" +
-               StringFuns.indentLines(objectFieldDecls, indentSpaces) + "\n" +
-            ")";
+      return
+         jsonType + "_build_object(\n" +
+            StringFuns.indentLines(objectFieldDecls, indentSpaces) + "\n" +
+         ")";
+   }
+
+   @Override
+   public String getResultJsonExpression(String jsonValue)
+   {
+      // Stripping nulls is recursive, so objects nested at any level are stripped here rather than where built, which
+      // would have each nested object traversed again by the stripping of every object containing it.
+      return omitNullProperties ? jsonType + "_strip_nulls(" + jsonValue + ")" : jsonValue;
    }
 
    @Override
    public String getAggregatedRowObjectsExpression
       (
-         List<String> columnNames,
+         List<SourceColumn> columns,
          @Nullable String orderBy,
-         String fromAlias
+         String fromAlias,
+         @Nullable Integer maxRows
+      )
+   {
+
+      return
+         "coalesce(" + jsonType + "_agg(" +
+            getRowObjectExpression(columns, fromAlias) +
+            (orderBy != null ? " order by " + orderBy.replace("$$", fromAlias) : "") +
+         "),'[]'::" + jsonType + ")";
+   }
+
+   @Override
+   public String getAggregatedRowTuplesExpression
+      (
+         List<SourceColumn> columns,
+         @Nullable String orderBy,
+         String fromAlias,
+         @Nullable Integer maxRows
       )
    {
+      String tupleValues =
+         columns.stream()
+         .map(col -> fromAlias + "." + col.getName())
+         .collect(joining(",\n"));
 
       return
-         "coalesce(jsonb_agg(" +
-            getRowObjectExpression(columnNames, fromAlias) +
+         "coalesce(" + jsonType + "_agg(" +
+            jsonType + "_build_array(\n" +
+               StringFuns.indentLines(tupleValues, indentSpaces) + "\n" +
+            ")" +
             (orderBy != null ? " order by " + orderBy.replace("$$", fromAlias) : "") +
-         "),'[]'::jsonb)";
+         "),'[]'::" + jsonType + ")";
    }
 
    @Override
    public String getAggregatedColumnValuesExpression
       (
-          String columnName,
+          SourceColumn column,
           @Nullable String orderBy,
-          String fromAlias
+          String fromAlias,
+          @Nullable Integer maxRows
       )
    {
       return
-         "coalesce(jsonb_agg(" +
-            fromAlias + "." + columnName +
+         "coalesce(" + jsonType + "_agg(" +
+            fromAlias + "." + column.getName() +
             (orderBy != null ? " order by " + orderBy.replace("$$", fromAlias) : "") +
          "))";
    }
-}
 
+   @Override
+   public String getAggregateOrEmptyExpression
+      (
+         String aggregateValue,
+         boolean columnValues
+      )
+   {
+      // Aggregated column values have no default value when there are no rows.
+      return columnValues ? aggregateValue : "coalesce(" + aggregateValue + ",'[]'::" + jsonType + ")";
+   }
+
+   @Override
+   public String getLateralJoinFromEntry
+      (
+         String subquery,
+         String alias
+      )
+   {
+      return
+         "left join lateral (\n" +
+            StringFuns.indentLines(subquery, indentSpaces) + "\n" +
+         ") " + alias + " on true";
+   }
+
+   @Override
+   public String getCommonTableExpression
+      (
+         String name,
+         String query,
+         @Nullable Boolean materialized
+      )
+   {
+      String materialization =
+         materialized == null ? "" : materialized ? "materialized " : "not materialized ";
+      return
+         name + " as " + materialization + "(\n" +
+            StringFuns.indentLines(query, indentSpaces) + "\n" +
+         ")";
+   }
+
+   @Override
+   public String getKeysetCondition
+      (
+         List<String> keyValues,
+         List<String> afterKeyParamNames
+      )
+   {
+      return
+         "(" + String.join(", ", keyValues) + ") > " +
+         "(" + afterKeyParamNames.stream().map(p -> ":" + p).collect(joining(", ")) + ")";
+   }
+
+   @Override
+   public String getValueInParamValuesCondition
+      (
+         String value,
+         Field valueField,
+         String valuesParamName
+      )
+   {
+      // The values are bound as an array.
+      return value + " = any(:" + valuesParamName + ")";
+   }
+
+   @Override
+   public String getRowsLimitClause
+      (
+         @Nullable String offset,
+         @Nullable String limit
+      )
+   {
+      return
+         (offset != null ? "offset " + offset + " rows" : "") +
+         (offset != null && limit != null ? "\n" : "") +
+         (limit != null ? "fetch first " + limit + " rows only" : "");
+   }
+}
@@ -0,0 +1,55 @@
+package org.sqljson.sql_dialects;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import org.sqljson.util.StringFuns;
+
+
+/// A column of a query from which a dialect builds json values, by the column's (possibly quoted) name.
+public final class SourceColumn
+{
+   private final String name;
+   private final boolean json;
+   private final @Nullable Integer maxJsonBytes;
+   private final @Nullable String jsonKey; // the unquoted name if empty
+
+   public SourceColumn
+      (
+         String name,
+         boolean json,
+         @Nullable Integer maxJsonBytes
+      )
+   {
+      this(name, json, maxJsonBytes, null);
+   }
+
+   private SourceColumn
+      (
+         String name,
+         boolean json,
+         @Nullable Integer maxJsonBytes,
+         @Nullable String jsonKey
+      )
+   {
+      this.name = name;
+      this.json = json;
+      this.maxJsonBytes = maxJsonBytes;
+      this.jsonKey = jsonKey;
+   }
+
+   public SourceColumn withJsonKey(String jsonKey)
+   {
+      return new SourceColumn(name, json, maxJsonBytes, jsonKey);
+   }
+
+   public String getName() { return name; }
+
+   /// The key of the column's values within json objects built from the column.
+   public String getJsonKey() { return jsonKey != null ? jsonKey : StringFuns.unDoubleQuote(name); }
+
+   /// Whether the column's values are json text, to be nested as json rather than as json strings.
+   public boolean isJson() { return json; }
+
+   /// The largest size of the column's values as json text in UTF-8, or null if the values' size is not bounded.
+   public @Nullable Integer getMaxJsonBytes() { return maxJsonBytes; }
+}
@@ -5,6 +5,8 @@ import java.util.List;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import org.sqljson.dbmd.DatabaseMetadata;
+import org.sqljson.dbmd.Field;
+import org.sqljson.query_specs.JsonType;
 
 
 public interface SqlDialect
@@ -13,37 +15,112 @@ public interface SqlDialect
 
    String getRowObjectExpression
       (
-         List<String> columnNames,
+         List<SourceColumn> columns,
          String fromAlias
       );
 
+   /// Expression for a query's result json value from the given expression building it, applying any processing
+   /// of the value as a whole, such as omitting null properties, which is then done once for all nested values.
+   String getResultJsonExpression(String jsonValue);
+
    /// Select expression part of a simple aggregate objects query. This expression should be an aggregate function
-   /// which builds an array of json objects from a source relation having the given column names and table alias.
+   /// which builds an array of json objects from a source relation having the given columns and table alias, which
+   /// yields at most maxRows rows if maxRows is not null.
    String getAggregatedRowObjectsExpression
       (
-         List<String> columnNames,
+         List<SourceColumn> columns,
          @Nullable String orderBy,
-         String fromAlias
+         String fromAlias,
+         @Nullable Integer maxRows
+      );
+
+   /// Select expression part of a simple aggregate tuples query, like getAggregatedRowObjectsExpression but building
+   /// an array of json arrays of the values of the given columns in the given order, including null values.
+   String getAggregatedRowTuplesExpression
+      (
+         List<SourceColumn> columns,
+         @Nullable String orderBy,
+         String fromAlias,
+         @Nullable Integer maxRows
       );
 
    String getAggregatedColumnValuesExpression
       (
-         String columnName,
+         SourceColumn column,
          @Nullable String orderBy,
-         String fromAlias
+         String fromAlias,
+         @Nullable Integer maxRows
+      );
+
+   /// Expression for the given value of an aggregate from getAggregatedRowObjectsExpression, or from
+   /// getAggregatedColumnValuesExpression if columnValues is true, which yields the value of the aggregate over no
+   /// rows where the given value is null because no aggregate row was joined.
+   String getAggregateOrEmptyExpression
+      (
+         String aggregateValue,
+         boolean columnValues
+      );
+
+   /// From clause entry outer joining the given subquery, which yields exactly one row and may refer to the tables of
+   /// preceding from clause entries, under the given alias.
+   String getLateralJoinFromEntry
+      (
+         String subquery,
+         String alias
+      );
+
+   /// Definition of a common table expression for a with clause, naming the given query, which the database should
+   /// materialize, or not, as indicated, or as it chooses if materialized is null.
+   String getCommonTableExpression
+      (
+         String name,
+         String query,
+         @Nullable Boolean materialized
+      );
+
+   /// Condition that the given key values, in order of significance, follow the values of the given after-key
+   /// parameters in key order.
+   String getKeysetCondition
+      (
+         List<String> keyValues,
+         List<String> afterKeyParamNames
+      );
+
+   /// Condition that the given value of the given field is one of the values bound to the given param as a single
+   /// collection, so that one prepared statement serves for any number of values.
+   String getValueInParamValuesCondition
+      (
+         String value,
+         Field valueField,
+         String valuesParamName
+      );
+
+   /// Clause following an order by clause which skips the given number of rows, if any, and limits the rows
+   /// following to the given number, if any. The numbers may be given as literals or params.
+   String getRowsLimitClause
+      (
+         @Nullable String offset,
+         @Nullable String limit
       );
 
+   /// Return the dialect of the database described by the given metadata, building json values of the given type
+   /// where the database distinguishes json types. Oracle databases with extended string size may return strings of
+   /// up to 32767 bytes rather than 4000. Properties with null values are omitted from the json objects built by the
+   /// dialect if omitNullProperties is true.
    static SqlDialect fromDatabaseMetadata
       (
          DatabaseMetadata dbmd,
-         int indentSpaces
+         int indentSpaces,
+         JsonType jsonType,
+         boolean oracleExtendedStringSize,
+         boolean omitNullProperties
       )
    {
       DbmsType dbmsType = getDbmsType(dbmd.getDbmsName());
       switch ( dbmsType )
       {
-         case PG: return new PostgresDialect(indentSpaces);
-         case ORA: return new OracleDialect(indentSpaces);
+         case PG: return new PostgresDialect(indentSpaces, jsonType, omitNullProperties);
+         case ORA: return new OracleDialect(indentSpaces, oracleExtendedStringSize, omitNullProperties);
          default: throw new RuntimeException("dbms type " + dbmsType + " is currently not supported");
       }
    }
@@ -1,7 +1,10 @@
 package org.sqljson.util;
 
 import java.io.*;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 
@@ -14,12 +17,34 @@ public final class IO
          : new BufferedWriter(new OutputStreamWriter(System.out));
    }
 
+   // Output stream for the given file path or "-" for stdout, gzip compressed if the path has a ".gz" extension.
    public static OutputStream outputStream(String pathOrDash) throws IOException
    {
       if ( "-".equals(pathOrDash) )
          return System.out;
+      else if ( isGzipPath(pathOrDash) )
+         return new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(pathOrDash)));
       else
-         return new FileOutputStream(pathOrDash);
+         return new BufferedOutputStream(new FileOutputStream(pathOrDash));
+   }
+
+   // Output stream for the given file path, gzip compressed if indicated.
+   public static OutputStream outputStream(Path path, boolean gzip) throws IOException
+   {
+      OutputStream os = new BufferedOutputStream(Files.newOutputStream(path));
+      return gzip ? new GZIPOutputStream(os) : os;
+   }
+
+   // Input stream for the given file path, decompressed if the path has a ".gz" extension.
+   public static InputStream inputStream(Path path) throws IOException
+   {
+      InputStream is = new BufferedInputStream(Files.newInputStream(path));
+      return isGzipPath(path.toString()) ? new GZIPInputStream(is) : is;
+   }
+
+   public static boolean isGzipPath(String path)
+   {
+      return path.toLowerCase().endsWith(".gz");
    }
 
    public static void writeString(BufferedWriter bw, String s)
@@ -1,14 +1,18 @@
 package org.sqljson.util;
 
 import java.io.OutputStream;
+import java.nio.file.Path;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.module.jsonSchema.JsonSchema;
 import com.fasterxml.jackson.module.jsonSchema.JsonSchemaGenerator;
+import org.yaml.snakeyaml.LoaderOptions;
 
 
 public final class Serialization
@@ -35,13 +39,26 @@ public final class Serialization
       }
    }
 
+   // Get an object mapper for the format indicated by the file's extension, ignoring any ".gz" compression extension.
+   public static ObjectMapper getObjectMapper(Path filePath)
+   {
+      String fileName = filePath.getFileName().toString();
+      String uncompressedFileName = IO.isGzipPath(fileName) ? fileName.substring(0, fileName.length() - 3) : fileName;
+      int dotIx = uncompressedFileName.lastIndexOf('.');
+      return getObjectMapper(dotIx == -1 ? "" : uncompressedFileName.substring(dotIx + 1));
+   }
+
    public static ObjectMapper getObjectMapper(String fileExt)
    {
       String lcExt = fileExt.toLowerCase();
 
       if ( lcExt.equals("yaml") | lcExt.equals("yml") )
       {
-         ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
+         // Allow large metadata files beyond the parser's default 3MB document size limit.
+         LoaderOptions loaderOptions = new LoaderOptions();
+         loaderOptions.setCodePointLimit(Integer.MAX_VALUE);
+         YAMLFactory yamlFactory = YAMLFactory.builder().loaderOptions(loaderOptions).build();
+         ObjectMapper yamlMapper = new ObjectMapper(yamlFactory);
          yamlMapper.registerModule(new Jdk8Module());
          return yamlMapper;
       }
@@ -51,10 +68,19 @@ public final class Serialization
          jsonMapper.registerModule(new Jdk8Module());
          return jsonMapper;
       }
+      else if ( lcExt.equals("smile") )
+      {
+         // Binary format, with repeated strings such as type and schema names written as back-references.
+         SmileFactory smileFactory =
+            SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build();
+         ObjectMapper smileMapper = new ObjectMapper(smileFactory);
+         smileMapper.registerModule(new Jdk8Module());
+         return smileMapper;
+      }
       else
          throw new RuntimeException(
             "Unrecognized file extension '" + fileExt + "': " +
-               "expected one of 'json','json5', 'yaml','yml'."
+               "expected one of 'json','json5', 'yaml','yml', 'smile'."
          );
    }
 
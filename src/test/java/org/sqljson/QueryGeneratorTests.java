@@ -1,12 +1,20 @@
 package org.sqljson;
 
 import java.io.IOException;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
@@ -15,7 +23,13 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import static org.sqljson.TestsBase.Params.params;
 import org.sqljson.dbmd.DatabaseMetadata;
+import org.sqljson.dbmd.Field;
+import org.sqljson.dbmd.RelStatistics;
 import org.sqljson.query_specs.QueryGroupSpec;
+import org.sqljson.query_specs.QuerySpec;
+import org.sqljson.query_specs.ResultRepr;
+import org.sqljson.query_specs.SpecError;
+import org.sqljson.sql_dialects.JsonSizeEstimates;
 
 import generated.query.*;
 
@@ -312,6 +326,538 @@ class QueryGeneratorTests extends TestsBase
       });
    }
 
+   @Test
+   @DisplayName("Query for drugs with child collections generated as lateral joins yields the same json as with subqueries.")
+   void readDrugsWithLateralJoinedChildCollections() throws Exception
+   {
+      String subquerySql = getGeneratedQuerySql("drugs with ordered collections query(json object rows).sql");
+      String lateralSql = getGeneratedQuerySql("drugs with ordered collections lateral query(json object rows).sql");
+      assertTrue(lateralSql.contains("left join lateral"));
+
+      List<JsonNode> subqueryRes = queryJsonValues(subquerySql, params());
+      List<JsonNode> lateralRes = queryJsonValues(lateralSql, params());
+
+      assertEquals(5, subqueryRes.size());
+      assertEquals(3, subqueryRes.get(1).get("advisories").size());
+      assertEquals(subqueryRes, lateralRes);
+   }
+
+   @Test
+   @DisplayName("Query for drugs with pre-aggregated child collections yields the same json as with subqueries.")
+   void readDrugsWithPreaggregatedChildCollections() throws Exception
+   {
+      String subquerySql = getGeneratedQuerySql("drugs with ordered collections query(json object rows).sql");
+      String preaggSql = getGeneratedQuerySql("drugs with ordered collections preaggregated query(json object rows).sql");
+      assertTrue(preaggSql.contains("group by"));
+
+      assertEquals(queryJsonValues(subquerySql, params()), queryJsonValues(preaggSql, params()));
+   }
+
+   @Test
+   @DisplayName("Query for compounds with filtered, nested pre-aggregated child collections yields the same json as with subqueries.")
+   void readCompoundsWithFilteredNestedPreaggregatedChildCollections() throws Exception
+   {
+      String subquerySql = getGeneratedQuerySql("compounds with filtered nested collections query(json object rows).sql");
+      String preaggSql = getGeneratedQuerySql("compounds with filtered nested collections preaggregated query(json object rows).sql");
+
+      List<JsonNode> subqueryRes = queryJsonValues(subquerySql, params());
+      List<JsonNode> preaggRes = queryJsonValues(preaggSql, params());
+
+      assertEquals(5, subqueryRes.size());
+      assertEquals(0, subqueryRes.get(2).get("drugs").size()); // drug 3 filtered out
+      JsonNode drug2 = subqueryRes.get(1).get("drugs").get(0);
+      assertEquals(2, drug2.get("advisories").size());
+      assertEquals(202, drug2.get("advisories").get(0).get("id").asInt());
+      assertTrue(drug2.get("advisoryIds").isNull());
+      assertEquals(preaggRes, subqueryRes);
+   }
+
+   @Test
+   @DisplayName("Query for drugs with joined referenced parents yields the same json as with subqueries.")
+   void readDrugsWithJoinedReferencedParents() throws Exception
+   {
+      String subquerySql = getGeneratedQuerySql("drugs with referenced parents query(json object rows).sql");
+      String joinSql = getGeneratedQuerySql("drugs with joined referenced parents query(json object rows).sql");
+      assertTrue(joinSql.contains("joined for reference 'compound'"));
+      assertFalse(joinSql.contains("joined for reference 'enteredByAnalyst'"));
+
+      List<JsonNode> subqueryRes = queryJsonValues(subquerySql, params());
+      List<JsonNode> joinRes = queryJsonValues(joinSql, params());
+
+      assertEquals(5, subqueryRes.size());
+      assertTrue(subqueryRes.get(1).get("compound").isNull()); // compound 2 excluded by its record condition
+      assertEquals(joinRes, subqueryRes);
+   }
+
+   @Test
+   @DisplayName("Query with repeated subqueries shared in a with clause yields the same json as without sharing.")
+   void readDrugsWithSharedSubqueries() throws Exception
+   {
+      String unsharedSql = getGeneratedQuerySql("drugs with repeated subqueries query(json object rows).sql");
+      String sharedSql = getGeneratedQuerySql("drugs with shared subqueries query(json object rows).sql");
+      assertFalse(unsharedSql.contains("with\n"));
+      assertTrue(sharedSql.contains("shared_analyst as materialized ("));
+      assertTrue(sharedSql.contains("shared_advisory_agg as materialized ("));
+      assertEquals(2, sharedSql.split("left join shared_analyst ").length - 1);
+      assertEquals(2, sharedSql.split("left join shared_advisory_agg ").length - 1);
+
+      List<JsonNode> unsharedRes = queryJsonValues(unsharedSql, params());
+      List<JsonNode> sharedRes = queryJsonValues(sharedSql, params());
+
+      assertEquals(5, sharedRes.size());
+      assertEquals(2, sharedRes.get(0).get("cautions").size());
+      assertEquals(sharedRes.get(0).get("cautions"), sharedRes.get(0).get("otherCautions"));
+      assertEquals(unsharedRes, sharedRes);
+
+      assertEquals(
+         queryJsonValues(getGeneratedQuerySql("drugs with repeated subqueries query(json array row).sql"), params()),
+         queryJsonValues(getGeneratedQuerySql("drugs with shared subqueries query(json array row).sql"), params())
+      );
+
+      // Oracle is asked to materialize each shared subquery by a hint after its select keyword.
+      QueryGroupSpec queryGroupSpec = readQuerySpecs();
+      QuerySqlGenerator queryGenerator = makeQuerySqlGenerator(oracleDatabaseMetadata(), queryGroupSpec);
+      String oraSql = generateJsonObjectRowsSql(queryGenerator, queryGroupSpec, "drugs with shared subqueries query");
+      assertTrue(oraSql.contains("shared_analyst as (\n  select /*+ materialize */\n"));
+      assertTrue(oraSql.contains("shared_advisory_agg as (\n  select /*+ materialize */\n"));
+   }
+
+   @Test
+   @DisplayName("Query for advisories with chains of inline parents, joined directly where not isolated by a condition.")
+   void readAdvisoriesWithInlineParentChains() throws Exception
+   {
+      String sql = getGeneratedQuerySql("advisories with inline parent chains query(json object rows).sql");
+      assertTrue(sql.contains("left join authority "));
+      assertTrue(sql.contains("left join compound "));
+      assertEquals(1, sql.split("left join \\(").length - 1);
+
+      List<JsonNode> res = queryJsonValues(sql, params());
+
+      assertEquals(15, res.size());
+      JsonNode adv123 = res.get(2);
+      assertEquals(123, adv123.get("id").asInt());
+      assertEquals("Rumor", adv123.get("advisoryTypeName").asText());
+      assertEquals("Anonymous", adv123.get("authorityName").asText());
+      assertEquals("Test Drug 1", adv123.get("drugName").asText());
+      JsonNode adv201 = res.get(3);
+      assertEquals(201, adv201.get("id").asInt());
+      assertEquals("FDA", adv201.get("authorityName").asText());
+      assertTrue(adv201.get("drugName").isNull()); // drug 2 excluded by its record condition
+      assertTrue(adv201.get("compoundName").isNull());
+   }
+
+   @Test
+   @DisplayName("Page through drugs by primary key, and advisory types by unique name, with keyset pagination.")
+   void readPagesByKeyset() throws Exception
+   {
+      String firstPageSql = getGeneratedQuerySql(DrugsPageQuery.sqlResourceJsonObjectRowsFirstPage);
+      String pageSql = getGeneratedQuerySql(DrugsPageQuery.sqlResourceJsonObjectRowsPage);
+      assertTrue(pageSql.contains("where (q.\"_id\") > (:afterId)\norder by q.\"_id\"\nfetch first :pageSize rows only"));
+
+      List<List<Long>> drugIdPages = new ArrayList<>();
+      Map<String,@Nullable Object> pageParams = DrugsPageQuery.firstPageParams(2);
+      while ( drugIdPages.size() < 5 )
+      {
+         List<Long> pageIds = new ArrayList<>();
+         Map<String,@Nullable Object> nextPageParams = new HashMap<>();
+         String sql = drugIdPages.isEmpty() ? firstPageSql : pageSql;
+         doQuery(sql, new MapSqlParameterSource(pageParams), rs -> {
+            DrugsPageQuery.Drug drug = readJson(rs.getString(1), DrugsPageQuery.Drug.class);
+            assertEquals(drug.id, rs.getLong(DrugsPageQuery.afterIdParam));
+            assertEquals(1, drug.brands.size());
+            pageIds.add(drug.id);
+            nextPageParams.putAll(DrugsPageQuery.nextPageParams(rs, 2));
+         });
+         if ( pageIds.isEmpty() )
+            break;
+         drugIdPages.add(pageIds);
+         pageParams = nextPageParams;
+      }
+      assertEquals(List.of(List.of(1L, 2L), List.of(3L, 4L), List.of(5L)), drugIdPages);
+
+      String typesPageSql = getGeneratedQuerySql(AdvisoryTypesPageByNameQuery.sqlResourceJsonObjectRowsPage);
+      List<String> typeNames = new ArrayList<>();
+      Map<String,@Nullable Object> typesPageParams = AdvisoryTypesPageByNameQuery.firstPageParams(2);
+      typesPageParams.put(AdvisoryTypesPageByNameQuery.afterNameParam, "Boxed Warning");
+      doQuery(typesPageSql, new MapSqlParameterSource(typesPageParams), rs ->
+         typeNames.add(readJson(rs.getString(1), AdvisoryTypesPageByNameQuery.AdvisoryType.class).name)
+      );
+      assertEquals(List.of("Caution", "Rumor"), typeNames);
+   }
+
+   @Test
+   @DisplayName("Query for drugs of many keys at once, with each result row carrying its key.")
+   void readDrugsByKeys() throws Exception
+   {
+      String sql = getGeneratedQuerySql(DrugsByKeysQuery.sqlResourceJsonObjectRowsByKeys);
+      assertTrue(sql.contains("d.id = any(:keys)"));
+
+      Map<Long,DrugsByKeysQuery.Drug> drugsByKey = new HashMap<>();
+      SqlParameterSource params = params(DrugsByKeysQuery.keysParam, new Long[]{ 4L, 2L, 9L });
+      doQuery(sql, params, rs -> {
+         DrugsByKeysQuery.Drug drug = readJson(rs.getString(1), DrugsByKeysQuery.Drug.class);
+         drugsByKey.put(rs.getLong(DrugsByKeysQuery.keyColumn), drug);
+      });
+
+      assertEquals(Set.of(2L, 4L), drugsByKey.keySet());
+      assertEquals(4L, drugsByKey.get(4L).id);
+      assertEquals(3, drugsByKey.get(4L).advisories.size());
+      assertEquals("Test Drug 2", drugsByKey.get(2L).name);
+
+      // Oracle reads the keys from a json array bound as text, as values of the key field's type.
+      QueryGroupSpec queryGroupSpec = readQuerySpecs();
+      QuerySqlGenerator queryGenerator = makeQuerySqlGenerator(oracleDatabaseMetadata(), queryGroupSpec);
+      QuerySpec querySpec = getQuerySpec(queryGroupSpec, "drugs by keys query");
+      String oraSql = queryGenerator.generateSqls(querySpec).get(ResultRepr.JSON_OBJECT_ROWS_BY_KEYS);
+      assertTrue(oraSql.contains("json_table(:keys, '$[*]' columns (param_value number path '$')) pv"));
+   }
+
+   @Test
+   @DisplayName("Query for advisories as json arrays of a limited size, together holding the single array's elements.")
+   void readAdvisoriesInChunkedArrays() throws Exception
+   {
+      String sql = getGeneratedQuerySql(AdvisoriesChunkedQuery.sqlResourceJsonArrayChunkRows);
+
+      List<JsonNode> chunks = queryJsonValues(sql, params());
+
+      assertEquals(List.of(4, 4, 4, 3), chunks.stream().map(JsonNode::size).collect(toList()));
+      List<JsonNode> chunkedAdvisories = new ArrayList<>();
+      chunks.forEach(chunk -> chunk.forEach(chunkedAdvisories::add));
+      assertEquals(101, chunkedAdvisories.get(0).get("id").asInt());
+      AdvisoriesChunkedQuery.Advisory[] lastChunk =
+         readJson(chunks.get(3).toString(), AdvisoriesChunkedQuery.Advisory[].class);
+      assertEquals("Rumor", lastChunk[2].advisoryType.name);
+
+      List<JsonNode> arrayRow =
+         queryJsonValues(getGeneratedQuerySql(AdvisoriesChunkedQuery.sqlResourceJsonArrayRow), params());
+      List<JsonNode> unchunkedAdvisories = new ArrayList<>();
+      arrayRow.get(0).forEach(unchunkedAdvisories::add);
+      assertEquals(unchunkedAdvisories, chunkedAdvisories);
+   }
+
+   @Test
+   @DisplayName("Query for drugs with limited child collections yields the same json for each strategy.")
+   void readDrugsWithLimitedChildCollections() throws Exception
+   {
+      String subquerySql = getGeneratedQuerySql("drugs with latest advisories query(json object rows).sql");
+      String lateralSql = getGeneratedQuerySql("drugs with latest advisories lateral query(json object rows).sql");
+      String preaggSql = getGeneratedQuerySql("drugs with latest advisories preaggregated query(json object rows).sql");
+
+      List<JsonNode> subqueryRes = queryJsonValues(subquerySql, params());
+
+      assertEquals(5, subqueryRes.size());
+      JsonNode drug1 = subqueryRes.get(0);
+      assertEquals(List.of(123, 102), ids(drug1.get("latestAdvisories")));
+      assertEquals(List.of(102, 123), ids(drug1.get("laterAdvisories")));
+      assertEquals(subqueryRes, queryJsonValues(lateralSql, params()));
+      assertEquals(subqueryRes, queryJsonValues(preaggSql, params()));
+   }
+
+   private static List<Integer> ids(JsonNode objects)
+   {
+      List<Integer> ids = new ArrayList<>();
+      objects.forEach(o -> ids.add(o.get("id").asInt()));
+      return ids;
+   }
+
+   @Test
+   @DisplayName("Query omitting null properties leaves them absent at each level, deserializing to null fields.")
+   void readDrugsWithNullPropertiesOmitted() throws Exception
+   {
+      String sql = getGeneratedQuerySql("drugs with null properties omitted query(json object rows).sql");
+      // Nested objects are stripped of null properties by the single stripping of each result value.
+      assertEquals(sql.indexOf("_strip_nulls("), sql.lastIndexOf("_strip_nulls("));
+
+      List<JsonNode> drugs = queryJsonValues(sql, params());
+      assertEquals(5, drugs.size());
+      JsonNode drug1 = drugs.get(0), drug2 = drugs.get(1);
+      assertFalse(drug1.has("evenIdName"));
+      assertEquals("Test Drug 2", drug2.get("evenIdName").asText());
+      JsonNode drug1Advisories = drug1.get("advisories");
+      assertEquals(List.of(101, 102, 123), ids(drug1Advisories));
+      assertFalse(drug1Advisories.get(0).has("evenIdText"));
+      assertTrue(drug1Advisories.get(1).has("evenIdText"));
+
+      DrugsWithNullPropertiesOmittedQuery.Drug drug1Res =
+         readJson(drug1.toString(), DrugsWithNullPropertiesOmittedQuery.Drug.class);
+      assertNull(drug1Res.evenIdName);
+      assertNull(drug1Res.advisories.get(0).evenIdText);
+   }
+
+   @Test
+   @DisplayName("Query with tuple encoded collections yields arrays of property values readable as result types.")
+   void readDrugsWithTupleEncodedCollections() throws Exception
+   {
+      String sql = getGeneratedQuerySql("drugs with tuple encoded collections query(json object rows).sql");
+      String preaggSql =
+         getGeneratedQuerySql("drugs with tuple encoded collections preaggregated query(json object rows).sql");
+      String objectsSql = getGeneratedQuerySql("drugs with ordered collections query(json object rows).sql");
+
+      List<JsonNode> drugs = queryJsonValues(sql, params());
+      List<JsonNode> objectDrugs = queryJsonValues(objectsSql, params());
+      assertEquals(5, drugs.size());
+      assertEquals(drugs, queryJsonValues(preaggSql, params()));
+
+      JsonNode drug1 = drugs.get(0), objectDrug1 = objectDrugs.get(0);
+      assertEquals(objectDrug1.get("brands"), drug1.get("brands"));
+      assertEquals(objectDrug1.get("advisoryIds"), drug1.get("advisoryIds"));
+      JsonNode advisories = drug1.get("advisories");
+      assertEquals(3, advisories.size());
+      for ( int i = 0; i < advisories.size(); ++i )
+      {
+         JsonNode advisory = advisories.get(i), objectAdvisory = objectDrug1.get("advisories").get(i);
+         assertTrue(advisory.isArray());
+         assertEquals(objectAdvisory.get("id"), advisory.get(0));
+         assertEquals(objectAdvisory.get("advisoryText"), advisory.get(1));
+         assertEquals(objectAdvisory.get("advisoryTypeName"), advisory.get(2).get("name"));
+      }
+
+      DrugsWithTupleEncodedCollectionsQuery.Drug drug1Res =
+         readJson(drug1.toString(), DrugsWithTupleEncodedCollectionsQuery.Drug.class);
+      assertEquals(List.of(101L, 102L, 123L), drug1Res.advisories.stream().map(a -> a.id).collect(toList()));
+      assertEquals(
+         objectDrug1.get("advisories").get(0).get("advisoryText").asText(),
+         drug1Res.advisories.get(0).advisoryText
+      );
+      assertEquals(
+         objectDrug1.get("advisories").get(0).get("advisoryTypeName").asText(),
+         drug1Res.advisories.get(0).advisoryType.name
+      );
+   }
+
+   @Test
+   @DisplayName("Query with compact property keys yields objects with short keys readable as result types.")
+   void readDrugsWithCompactPropertyKeys() throws Exception
+   {
+      String sql = getGeneratedQuerySql("drugs with compact property keys query(json object rows).sql");
+      String objectsSql = getGeneratedQuerySql("drugs with ordered collections query(json object rows).sql");
+
+      List<JsonNode> drugs = queryJsonValues(sql, params());
+      List<JsonNode> objectDrugs = queryJsonValues(objectsSql, params());
+      assertEquals(5, drugs.size());
+
+      // Keys follow the property order: fields, child collections, then referenced parents.
+      JsonNode drug1 = drugs.get(0), objectDrug1 = objectDrugs.get(0);
+      Set<String> drug1Keys = new HashSet<>();
+      drug1.fieldNames().forEachRemaining(drug1Keys::add);
+      assertEquals(Set.of("a", "b", "c", "d", "e"), drug1Keys);
+      assertEquals(objectDrug1.get("id"), drug1.get("a"));
+      assertEquals(objectDrug1.get("name"), drug1.get("b"));
+      assertEquals(objectDrug1.get("brands").get(0).get("brandName"), drug1.get("c").get(0).get("a"));
+      assertEquals(objectDrug1.get("advisoryIds"), drug1.get("e"));
+      JsonNode advisory1 = drug1.get("d").get(0), objectAdvisory1 = objectDrug1.get("advisories").get(0);
+      assertEquals(objectAdvisory1.get("advisoryText"), advisory1.get("b"));
+      assertEquals(objectAdvisory1.get("advisoryTypeName"), advisory1.get("c").get("b"));
+
+      DrugsWithCompactPropertyKeysQuery.Drug drug1Res =
+         readJson(drug1.toString(), DrugsWithCompactPropertyKeysQuery.Drug.class);
+      assertEquals(objectDrug1.get("name").asText(), drug1Res.name);
+      assertEquals(objectDrug1.get("brands").size(), drug1Res.brands.size());
+      assertEquals(List.of(101L, 102L, 123L), drug1Res.advisories.stream().map(a -> a.id).collect(toList()));
+      assertEquals(objectAdvisory1.get("advisoryText").asText(), drug1Res.advisories.get(0).advisoryText);
+      assertEquals(objectAdvisory1.get("advisoryTypeName").asText(), drug1Res.advisories.get(0).advisoryType.name);
+   }
+
+   @Test
+   @DisplayName("Query building text json values yields the same json as building jsonb values.")
+   void readDrugsAsTextJson() throws Exception
+   {
+      String jsonbSql = getGeneratedQuerySql("drugs with ordered collections query(json object rows).sql");
+      String jsonSql = getGeneratedQuerySql("drugs with ordered collections json query(json object rows).sql");
+      assertTrue(jsonSql.contains("json_build_object("));
+      assertTrue(jsonSql.contains("json_agg("));
+      assertFalse(jsonSql.contains("jsonb"));
+
+      assertEquals(queryJsonValues(jsonbSql, params()), queryJsonValues(jsonSql, params()));
+   }
+
+   @Test
+   @DisplayName("Join strategies not specified in query specs are chosen from table statistics.")
+   void chooseJoinStrategiesFromStatistics() throws Exception
+   {
+      DatabaseMetadata statsDbmd =
+         withRowCounts(dbmd, Map.of(
+            "drug", 100000L, "brand", 150000L, "advisory", 300000L, "advisory_type", 3L, "analyst", 50L,
+            "compound", 90000L
+         ));
+      QueryGroupSpec queryGroupSpec = readQuerySpecs();
+      QuerySqlGenerator queryGenerator = makeQuerySqlGenerator(statsDbmd, queryGroupSpec);
+
+      // All drugs are selected, so their children are aggregated for all drugs at once.
+      String allDrugsSql = generateJsonObjectRowsSql(queryGenerator, queryGroupSpec, "drugs with ordered collections query");
+      assertTrue(allDrugsSql.contains("-- strategy PREAGGREGATED_JOIN chosen from statistics: ~100000 of 100000 parent rows"));
+      assertFalse(allDrugsSql.contains("CORRELATED_SUBQUERY chosen"));
+      assertEquals(
+         queryJsonValues(getGeneratedQuerySql("drugs with ordered collections query(json object rows).sql"), params()),
+         queryJsonValues(allDrugsSql, params())
+      );
+
+      // A single drug is selected by primary key, so its children are found by correlated subqueries.
+      String oneDrugSql = generateJsonObjectRowsSql(queryGenerator, queryGroupSpec, "drug with brands and advisories query");
+      assertTrue(oneDrugSql.contains("-- strategy CORRELATED_SUBQUERY chosen from statistics: ~1 of 100000 parent rows"));
+      assertFalse(oneDrugSql.contains("PREAGGREGATED_JOIN chosen"));
+
+      // Referenced parents of all drugs are joined.
+      String refsSql = generateJsonObjectRowsSql(queryGenerator, queryGroupSpec, "drugs with referenced parents query");
+      assertTrue(refsSql.contains("-- strategy JOIN chosen from statistics: ~100000 child rows"));
+      assertEquals(
+         queryJsonValues(getGeneratedQuerySql("drugs with referenced parents query(json object rows).sql"), params()),
+         queryJsonValues(refsSql, params())
+      );
+
+      // Strategies specified in the query spec override those chosen from statistics.
+      String lateralSql = generateJsonObjectRowsSql(queryGenerator, queryGroupSpec, "drugs with ordered collections lateral query");
+      assertFalse(lateralSql.contains("chosen from statistics"));
+   }
+
+   private DatabaseMetadata withRowCounts(DatabaseMetadata dbmd, Map<String,Long> rowCountsByTable)
+   {
+      return new DatabaseMetadata(
+         dbmd.getRelationMetadatas().stream()
+         .map(relMd -> {
+            Long rowCount = rowCountsByTable.get(relMd.getRelationId().getName());
+            return relMd.withStatistics(rowCount != null ? new RelStatistics(rowCount, null) : null);
+         })
+         .collect(toList()),
+         dbmd.getForeignKeys(),
+         dbmd.getCaseSensitivity(),
+         dbmd.getDbmsName(),
+         dbmd.getDbmsVersion()
+      );
+   }
+
+   private String generateJsonObjectRowsSql
+      (
+         QuerySqlGenerator queryGenerator,
+         QueryGroupSpec queryGroupSpec,
+         String queryName
+      )
+   {
+      return queryGenerator.generateSqls(getQuerySpec(queryGroupSpec, queryName)).get(ResultRepr.JSON_OBJECT_ROWS);
+   }
+
+   private QuerySpec getQuerySpec(QueryGroupSpec queryGroupSpec, String queryName)
+   {
+      return
+         queryGroupSpec.getQuerySpecs().stream()
+         .filter(qs -> qs.getQueryName().equals(queryName))
+         .findFirst().orElseThrow();
+   }
+
+   @Test
+   @DisplayName("Oracle json of bounded size is returned as varchar2, and as clob only where unbounded.")
+   void returnOracleJsonAsVarcharWhereBounded() throws Exception
+   {
+      QueryGroupSpec queryGroupSpec = readQuerySpecs();
+      QuerySqlGenerator queryGenerator = makeQuerySqlGenerator(oracleDatabaseMetadata(), queryGroupSpec);
+
+      String sql = generateJsonObjectRowsSql(queryGenerator, queryGroupSpec, "drugs with latest advisories preaggregated query");
+      assertFalse(sql.contains("treat("));
+      // Advisory objects and the limited collection of them are bounded, the collection without a limit is not.
+      assertTrue(sql.contains("order by q.id desc returning varchar2(4000 byte)), '[]')"));
+      assertTrue(sql.contains("order by q.id returning clob), '[]')"));
+      assertTrue(sql.contains("'latestAdvisories' value q.\"latestAdvisories\" format json"));
+   }
+
+   @Test
+   @DisplayName("Json size bounds of field values allow for escaped characters and for implied zeros of numbers.")
+   void boundJsonSizesOfFieldValues()
+   {
+      assertEquals(62, JsonSizeEstimates.ofFieldValue(field(Types.VARCHAR, 10, null, null)));
+      // The bound of a string of the largest declared length exceeds the int range so is unbounded.
+      assertNull(JsonSizeEstimates.ofFieldValue(field(Types.VARCHAR, Integer.MAX_VALUE, null, null)));
+      assertNull(JsonSizeEstimates.ofFieldValue(field(Types.NVARCHAR, null, 1_000_000_000, null)));
+
+      // -99900 for NUMBER(3,-2), -0.0099 for NUMBER(2,4).
+      assertEquals(8, JsonSizeEstimates.ofFieldValue(field(Types.NUMERIC, null, 3, -2)));
+      assertEquals(7, JsonSizeEstimates.ofFieldValue(field(Types.NUMERIC, null, 2, 4)));
+      assertNull(JsonSizeEstimates.ofFieldValue(field(Types.NUMERIC, null, Integer.MAX_VALUE, -10)));
+   }
+
+   private static Field field
+      (
+         int jdbcTypeCode,
+         @Nullable Integer length,
+         @Nullable Integer precision,
+         @Nullable Integer fractionalDigits
+      )
+   {
+      return new Field("f", jdbcTypeCode, "t", length, precision, 10, fractionalDigits, true, null);
+   }
+
+   @Test
+   @DisplayName("Rows of chunked json arrays without an orderBy are numbered in primary key order.")
+   void numberChunkedArrayRowsInPrimaryKeyOrder() throws Exception
+   {
+      String sql = getGeneratedQuerySql("advisories chunked by primary key query(json array chunk rows).sql");
+
+      List<JsonNode> chunks = queryJsonValues(sql, params());
+      List<JsonNode> chunkedAdvisories = new ArrayList<>();
+      chunks.forEach(chunk -> chunk.forEach(chunkedAdvisories::add));
+      assertEquals(List.of(4, 4, 4, 3), chunks.stream().map(JsonNode::size).collect(toList()));
+      assertFalse(chunkedAdvisories.get(0).has("_id"));
+
+      // Oracle requires an ordered window for row_number().
+      QueryGroupSpec queryGroupSpec = readQuerySpecs();
+      QuerySqlGenerator queryGenerator = makeQuerySqlGenerator(oracleDatabaseMetadata(), queryGroupSpec);
+      QuerySpec querySpec = getQuerySpec(queryGroupSpec, "advisories chunked by primary key query");
+      String oraSql = queryGenerator.generateSqls(querySpec).get(ResultRepr.JSON_ARRAY_CHUNK_ROWS);
+      assertTrue(oraSql.contains("row_number() over (order by q.\"_id\") \"_row_num\""));
+   }
+
+   private DatabaseMetadata oracleDatabaseMetadata()
+   {
+      return new DatabaseMetadata(
+         dbmd.getRelationMetadatas(), dbmd.getForeignKeys(), dbmd.getCaseSensitivity(), "Oracle", "19"
+      );
+   }
+
+   @Test
+   @DisplayName("Join conditions on fields not leading any index are reported with suggested index DDL.")
+   void reportUnindexedJoinConditions() throws Exception
+   {
+      QueryGroupSpec queryGroupSpec = readQuerySpecs();
+      QuerySqlGenerator queryGenerator = makeQuerySqlGenerator(dbmd, queryGroupSpec);
+
+      // Advisories are found by their indexed drug_id field, so only the drug collection's join is reported.
+      generateJsonObjectRowsSql(queryGenerator, queryGroupSpec, "analysts with registered drugs query");
+
+      List<UnindexedJoinCondition> unindexedConds = queryGenerator.getUnindexedJoinConditions();
+      assertEquals(1, unindexedConds.size());
+      UnindexedJoinCondition cond = unindexedConds.get(0);
+      assertEquals("analysts with registered drugs query", cond.getQueryName());
+      assertEquals("drug", cond.getRelationId().getName());
+      assertEquals(List.of("registered_by"), cond.getFieldNames());
+      assertEquals("create index drug_registered_by_ix on drugs.drug (registered_by);", cond.getCreateIndexSql(dbmd));
+
+      // The collections of drugs and advisories are all joined on indexed fields.
+      generateJsonObjectRowsSql(queryGenerator, queryGroupSpec, "drugs with ordered collections query");
+      assertEquals(unindexedConds, queryGenerator.getUnindexedJoinConditions());
+   }
+
+   @Test
+   @DisplayName("A page key unique only by an index is rejected if the database metadata has no indexes.")
+   void rejectPageKeyNotKnownToBeUnique() throws Exception
+   {
+      DatabaseMetadata noIndexesDbmd =
+         new DatabaseMetadata(
+            dbmd.getRelationMetadatas().stream().map(relMd -> relMd.withIndexes(null)).collect(toList()),
+            dbmd.getForeignKeys(),
+            dbmd.getCaseSensitivity(),
+            dbmd.getDbmsName(),
+            dbmd.getDbmsVersion()
+         );
+      QueryGroupSpec queryGroupSpec = readQuerySpecs();
+      QuerySpec querySpec = getQuerySpec(queryGroupSpec, "advisory types page by name query");
+
+      // The name field is unique by its unique index.
+      makeQuerySqlGenerator(dbmd, queryGroupSpec).generateSqls(querySpec);
+
+      QuerySqlGenerator queryGenerator = makeQuerySqlGenerator(noIndexesDbmd, queryGroupSpec);
+      Throwable t = assertThrows(SpecError.class, () -> queryGenerator.generateSqls(querySpec));
+      assertTrue(t.getMessage().contains("Page key fields must include the primary key fields"));
+   }
+
    @Test
    void rejectBadForeignKeyReferenceInQuerySpec()
    {
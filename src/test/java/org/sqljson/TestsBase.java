@@ -4,11 +4,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import static java.util.Objects.requireNonNull;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
@@ -62,6 +66,29 @@ public class TestsBase
       return requireNonNull(requireNonNull(TestsBase.class.getClassLoader()).getResourceAsStream(resource));
    }
 
+   QueryGroupSpec readQuerySpecs() throws IOException
+   {
+      try ( InputStream qSpecsIS = getResourceStream("query-specs.yaml") )
+      {
+         return yamlMapper.readValue(qSpecsIS, QueryGroupSpec.class);
+      }
+   }
+
+   /// Make a generator of sql for the queries of the given query group spec, against the given database metadata.
+   QuerySqlGenerator makeQuerySqlGenerator
+      (
+         DatabaseMetadata dbmd,
+         QueryGroupSpec queryGroupSpec
+      )
+   {
+      return new QuerySqlGenerator(
+         dbmd,
+         queryGroupSpec.getDefaultSchema(),
+         new HashSet<>(queryGroupSpec.getGenerateUnqualifiedNamesForSchemas()),
+         queryGroupSpec.getPropertyNameDefault().toFunctionOfFieldName()
+      );
+   }
+
    QueryGroupSpec readBadQuerySpec(String name)
    {
       try
@@ -107,6 +134,22 @@ public class TestsBase
       npjdbc.query(sql, params, rowCallbackHandler);
    }
 
+   /// Return the json values of the first column of the query results.
+   List<JsonNode> queryJsonValues
+      (
+         String sql,
+         SqlParameterSource params
+      )
+   {
+      List<JsonNode> res = new ArrayList<>();
+
+      doQuery(sql, params, rs -> {
+         res.add(readJson(requireNonNull(rs.getString(1)), JsonNode.class));
+      });
+
+      return res;
+   }
+
    static void assertTestDatabaseAvailable()
    {
       try ( Connection conn = getTestDatabaseConnection();